@@ -0,0 +1,597 @@
+package net.wander.bench;
+
+import net.wander.objects.GameObject;
+import net.wander.utils.AllocationTracker;
+import net.wander.utils.Mouse;
+import net.wander.utils.Scene;
+import net.wander.utils.Sound;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Нагрузочный тест сцены целиком: сценарии с N объектами, N растёт на порядки.
+ *
+ *   java -Djava.awt.headless=true net.wander.bench.LoadTest --out results --label v1.4
+ *
+ * Каждый шаг: новая сцена, прогрев, затем замер кадров update + render (в картинку, без ограничения FPS).
+ * На шаг пишется строка: перцентили времени кадра, кадры/с, апдейты объектов/с,
+ * куча, GC и байты на кадр. Результаты — в results.csv и results.json в папке --out,
+ * CSV дублируется в консоль. Сравнение версий движка — по --label.
+ * В байты на кадр входят и синтетические события мыши самого теста (около 1 КБ).
+ *
+ * Опции:
+ *   --out DIR            куда писать (по умолчанию loadtest-results)
+ *   --label TEXT         метка прогона (версия, ветка)
+ *   --scenarios a,b      movers, colliders, clickables, sounds (по умолчанию все)
+ *   --sizes 10,100,...   значения N (по умолчанию 10..100000)
+ *   --frames N           кадров замера на шаг (300)
+ *   --warmup N           кадров прогрева на шаг (100)
+ *   --max-seconds S      не дольше S секунд прогрева и S секунд замера на шаг (10)
+ * Неизвестная опция или значение вне допустимого — сообщение, список опций и код выхода 2.
+ *
+ * Сценарий прекращает рост N, когда медианный кадр дольше секунды. Если уже прогрев
+ * показал кадры дольше секунды, замеряется всего несколько кадров — шаг не растягивается
+ * на десятки минут ради заведомо последней строки.
+ */
+public final class LoadTest {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+    private static final double DT = 1.0 / 60.0;
+    private static final double CLIFF_MS = 1000.0;
+    private static final int MIN_FRAMES = 30;          // кадров замера, даже если время вышло
+    private static final int MIN_FRAMES_OVER_CLIFF = 3;
+
+    private static final String USAGE = String.join("\n",
+            "Usage: LoadTest [options]",
+            "  --out DIR            output directory (default loadtest-results)",
+            "  --label TEXT         run label (engine version, branch)",
+            "  --scenarios a,b      movers, colliders, clickables, sounds (default all)",
+            "  --sizes 10,100,...   values of N, each >= 0 (default 10..100000)",
+            "  --frames N           measured frames per step, >= 1 (default 300)",
+            "  --warmup N           warmup frames per step, >= 0 (default 100)",
+            "  --max-seconds S      time limit for warmup and for measurement per step, > 0 (default 10)");
+
+    /** Нагрузка: как наполнить сцену N объектами. */
+    enum Scenario {
+        MOVERS(100_000) {
+            @Override
+            void spawn(Scene scene, int n, Random rnd, Context ctx) {
+                for (int i = 0; i < n; i++) scene.addObject(new Mover(rnd));
+            }
+        },
+        COLLIDERS(10_000) {
+            @Override
+            void spawn(Scene scene, int n, Random rnd, Context ctx) {
+                List<Collider> all = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) all.add(new Collider(rnd, all));
+                for (Collider c : all) scene.addObject(c);
+            }
+        },
+        CLICKABLES(100_000) {
+            @Override
+            void spawn(Scene scene, int n, Random rnd, Context ctx) {
+                for (int i = 0; i < n; i++) scene.addObject(new Clickable(rnd));
+            }
+        },
+        SOUNDS(10_000) {
+            @Override
+            void spawn(Scene scene, int n, Random rnd, Context ctx) {
+                for (int i = 0; i < n; i++) scene.addObject(new Emitter(rnd, ctx.sounds));
+            }
+
+            @Override
+            String unavailable(Context ctx) {
+                return ctx.sounds == null ? "no audio device" : null;
+            }
+        };
+
+        final int maxN;
+
+        Scenario(int maxN) {
+            this.maxN = maxN;
+        }
+
+        abstract void spawn(Scene scene, int n, Random rnd, Context ctx);
+
+        /** Почему сценарий нельзя запустить (null — можно). */
+        String unavailable(Context ctx) {
+            return null;
+        }
+
+        String id() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** Общие ресурсы прогона. */
+    private static final class Context {
+        Sound[] sounds;           // null — звука нет
+        final Canvas mouseSource = new Canvas();
+    }
+
+    /** Опции командной строки; parse() бросает IllegalArgumentException с текстом для пользователя. */
+    static final class Options {
+        Path out = Paths.get("loadtest-results");
+        String label = "";
+        List<Scenario> scenarios = new ArrayList<>(Arrays.asList(Scenario.values()));
+        int[] sizes = {10, 100, 1_000, 10_000, 100_000};
+        int frames = 300;
+        int warmup = 100;
+        double maxSeconds = 10.0;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                String v = i + 1 < args.length ? args[i + 1] : null;
+                switch (a) {
+                    case "--out":         o.out = Paths.get(require(a, v)); i++; break;
+                    case "--label":       o.label = require(a, v); i++; break;
+                    case "--frames":      o.frames = intAtLeast(a, v, 1); i++; break;
+                    case "--warmup":      o.warmup = intAtLeast(a, v, 0); i++; break;
+                    case "--max-seconds": o.maxSeconds = positiveSeconds(a, v); i++; break;
+                    case "--sizes":       o.sizes = sizes(a, v); i++; break;
+                    case "--scenarios":   o.scenarios = scenarios(a, v); i++; break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + a);
+                }
+            }
+            return o;
+        }
+
+        private static int intAtLeast(String option, String value, int min) {
+            int n;
+            try {
+                n = Integer.parseInt(require(option, value).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(option + " expects an integer, got \"" + value + "\"");
+            }
+            if (n < min) throw new IllegalArgumentException(option + " must be at least " + min + ", got " + n);
+            return n;
+        }
+
+        private static double positiveSeconds(String option, String value) {
+            double s;
+            try {
+                s = Double.parseDouble(require(option, value).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(option + " expects a number, got \"" + value + "\"");
+            }
+            // !(s > 0) ловит и NaN
+            if (!(s > 0) || Double.isInfinite(s)) {
+                throw new IllegalArgumentException(option + " must be a positive number of seconds, got " + value);
+            }
+            return s;
+        }
+
+        private static int[] sizes(String option, String value) {
+            String[] parts = require(option, value).split(",", -1);
+            int[] sizes = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                if (parts[i].trim().isEmpty()) {
+                    throw new IllegalArgumentException(option + " has an empty value in \"" + value + "\"");
+                }
+                sizes[i] = intAtLeast(option, parts[i], 0);
+            }
+            return sizes;
+        }
+
+        private static List<Scenario> scenarios(String option, String value) {
+            List<Scenario> list = new ArrayList<>();
+            for (String s : require(option, value).split(",", -1)) {
+                String id = s.trim();
+                Scenario found = null;
+                for (Scenario sc : Scenario.values()) {
+                    if (sc.id().equals(id.toLowerCase(Locale.ROOT))) found = sc;
+                }
+                if (found == null) throw new IllegalArgumentException("Unknown scenario: \"" + id + "\"");
+                list.add(found);
+            }
+            return list;
+        }
+    }
+
+    /** Результат одного шага. */
+    private static final class Result {
+        String scenario;
+        int n;
+        int frames;
+        double p50, p90, p99, max, mean;
+        double fps;
+        double updatesPerSec;
+        long heapUsed;
+        long gcCount;
+        long gcMillis;
+        long bytesPerFrame;
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        Options opt;
+        try {
+            opt = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        Path out = opt.out;
+        String label = opt.label;
+        List<Scenario> scenarios = opt.scenarios;
+        int[] sizes = opt.sizes;
+        int frames = opt.frames;
+        int warmup = opt.warmup;
+        double maxSeconds = opt.maxSeconds;
+
+        Context ctx = new Context();
+        if (scenarios.contains(Scenario.SOUNDS)) ctx.sounds = loadSounds();
+
+        List<Result> results = new ArrayList<>();
+        System.out.println(csvHeader());
+        for (Scenario s : scenarios) {
+            String why = s.unavailable(ctx);
+            if (why != null) {
+                System.err.println("# skip " + s.id() + ": " + why);
+                continue;
+            }
+            for (int n : sizes) {
+                if (n > s.maxN) break;
+                Result r = runStep(s, n, warmup, frames, maxSeconds, ctx);
+                results.add(r);
+                System.out.println(csvRow(label, r));
+                if (r.p50 > CLIFF_MS) {
+                    System.err.println("# " + s.id() + ": median frame over " + CLIFF_MS + " ms, stopping sweep");
+                    break;
+                }
+            }
+        }
+
+        Files.createDirectories(out);
+        writeCsv(out.resolve("results.csv"), label, results);
+        writeJson(out.resolve("results.json"), label, results);
+        System.err.println("# written " + out.resolve("results.csv") + " and " + out.resolve("results.json"));
+
+        if (ctx.sounds != null) {
+            for (Sound snd : ctx.sounds) snd.destroy();
+        }
+    }
+
+    // ================== ШАГ ==================
+
+    private static Result runStep(Scenario scenario, int n, int warmup, int frames, double maxSeconds, Context ctx) {
+        Scene scene = new Scene(scenario.id());
+        scenario.spawn(scene, n, new Random(42), ctx);
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        AllocationTracker tracker = new AllocationTracker();
+
+        try {
+            long limit = (long) (maxSeconds * 1e9);
+
+            // прогрев тоже ограничен по времени: на огромном N один кадр может идти секундами
+            long warmupStart = System.nanoTime();
+            int warmed = 0;
+            while (warmed < warmup) {
+                frame(scene, g, warmed++, ctx, null);
+                if (System.nanoTime() - warmupStart > limit) break;
+            }
+            double warmupFrameMs = warmed == 0 ? 0 : (System.nanoTime() - warmupStart) / 1e6 / warmed;
+            int minFrames = warmupFrameMs > CLIFF_MS ? MIN_FRAMES_OVER_CLIFF : MIN_FRAMES;
+            System.gc();
+
+            long gcCount0 = gcCount(), gcMillis0 = gcMillis();
+            long[] times = new long[frames];
+            long start = System.nanoTime();
+            int done = 0;
+            while (done < frames) {
+                long t0 = System.nanoTime();
+                frame(scene, g, warmed + done, ctx, tracker);
+                long t1 = System.nanoTime();
+                times[done++] = t1 - t0;
+                if (t1 - start > limit && done >= minFrames) break;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            Result r = new Result();
+            r.scenario = scenario.id();
+            r.n = n;
+            r.frames = done;
+            long[] sorted = Arrays.copyOf(times, done);
+            Arrays.sort(sorted);
+            r.p50 = percentile(sorted, 0.50);
+            r.p90 = percentile(sorted, 0.90);
+            r.p99 = percentile(sorted, 0.99);
+            r.max = sorted[done - 1] / 1e6;
+            long sum = 0;
+            for (long t : sorted) sum += t;
+            r.mean = sum / 1e6 / done;
+            r.fps = done / (elapsed / 1e9);
+            r.updatesPerSec = r.fps * n;
+            Runtime rt = Runtime.getRuntime();
+            r.heapUsed = rt.totalMemory() - rt.freeMemory();
+            r.gcCount = gcCount() - gcCount0;
+            r.gcMillis = gcMillis() - gcMillis0;
+            AllocationTracker.SceneStats stats = tracker.getStats(scene.getName());
+            r.bytesPerFrame = stats == null ? 0 : stats.getAverageBytesPerFrame();
+            return r;
+        } finally {
+            g.dispose();
+            tracker.close();
+        }
+    }
+
+    /** Один кадр: ввод (синтетическая мышь), update, render. */
+    private static void frame(Scene scene, Graphics2D g, int index, Context ctx, AllocationTracker tracker) {
+        if (tracker != null) tracker.beginFrame(scene.getName());
+
+        Mouse.nextFrame();
+        driveMouse(ctx.mouseSource, index);
+
+        if (tracker != null) tracker.phase(AllocationTracker.Phase.UPDATE);
+        scene.update(DT);
+
+        if (tracker != null) tracker.phase(AllocationTracker.Phase.RENDER);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        scene.render(g);
+
+        if (tracker != null) tracker.endFrame();
+    }
+
+    /** Курсор ходит по экрану, раз в 10 кадров — клик. */
+    private static void driveMouse(Canvas source, int frame) {
+        if (source.getMouseListeners().length == 0) Mouse.attach(source);
+        int x = (frame * 37) % WIDTH, y = (frame * 23) % HEIGHT;
+        MouseEvent move = new MouseEvent(source, MouseEvent.MOUSE_MOVED, 0, 0, x, y, 0, false, MouseEvent.NOBUTTON);
+        for (MouseMotionListener l : source.getMouseMotionListeners()) l.mouseMoved(move);
+        if (frame % 10 == 0) {
+            MouseEvent press = new MouseEvent(source, MouseEvent.MOUSE_PRESSED, 0, 0, x, y, 1, false, MouseEvent.BUTTON1);
+            MouseEvent release = new MouseEvent(source, MouseEvent.MOUSE_RELEASED, 0, 0, x, y, 1, false, MouseEvent.BUTTON1);
+            for (MouseListener l : source.getMouseListeners()) {
+                l.mousePressed(press);
+                l.mouseReleased(release);
+            }
+        }
+    }
+
+    // ================== ОБЪЕКТЫ СЦЕНАРИЕВ ==================
+
+    /** Летает и отражается от краёв. */
+    private static class Mover extends GameObject {
+        final Color color;
+
+        Mover(Random rnd) {
+            super(rnd.nextDouble() * WIDTH, rnd.nextDouble() * HEIGHT, 4 + rnd.nextInt(8), 4 + rnd.nextInt(8));
+            setVelocity(rnd.nextDouble() * 200 - 100, rnd.nextDouble() * 200 - 100);
+            color = new Color(rnd.nextInt(0xffffff));
+        }
+
+        @Override
+        public void update(double dt) {
+            super.update(dt);
+            if (x < 0 || x + width > WIDTH) vx = -vx;
+            if (y < 0 || y + height > HEIGHT) vy = -vy;
+        }
+
+        @Override
+        public void render(Graphics2D g) {
+            if (!isVisible()) return;
+            g.setColor(color);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+    }
+
+    /** Движется и проверяет пересечения со всеми остальными (как в наивном коде игры). */
+    private static final class Collider extends Mover {
+        private final List<Collider> all;
+        private boolean hit;
+
+        Collider(Random rnd, List<Collider> all) {
+            super(rnd);
+            this.all = all;
+        }
+
+        @Override
+        public void update(double dt) {
+            super.update(dt);
+            hit = false;
+            for (int i = 0, n = all.size(); i < n; i++) {
+                Collider o = all.get(i);
+                if (o != this && intersects(o)) {
+                    hit = true;
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void render(Graphics2D g) {
+            g.setColor(hit ? Color.RED : color);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+    }
+
+    /** Кнопка: проверяет наведение и клик каждый кадр. */
+    private static final class Clickable extends GameObject {
+        private boolean hover;
+        private int clicks;
+
+        Clickable(Random rnd) {
+            super(rnd.nextInt(WIDTH - 40), rnd.nextInt(HEIGHT - 20), 40, 20);
+        }
+
+        @Override
+        public void update(double dt) {
+            hover = isMouseOver();
+            if (isLeftClicked()) clicks++;
+        }
+
+        @Override
+        public void render(Graphics2D g) {
+            g.setColor(hover ? Color.YELLOW : (clicks & 1) == 0 ? Color.GRAY : Color.DARK_GRAY);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+    }
+
+    /** Изредка проигрывает один из общих звуков. */
+    private static final class Emitter extends GameObject {
+        private final Sound[] sounds;
+        private final Random rnd;
+
+        Emitter(Random rnd, Sound[] sounds) {
+            super(rnd.nextInt(WIDTH), rnd.nextInt(HEIGHT), 2, 2);
+            this.sounds = sounds;
+            this.rnd = new Random(rnd.nextLong());
+        }
+
+        @Override
+        public void update(double dt) {
+            // в среднем раз в 2 секунды
+            if (rnd.nextInt(120) == 0) {
+                sounds[rnd.nextInt(sounds.length)].play(0.1, 0.8 + rnd.nextDouble() * 0.4, 0.0);
+            }
+        }
+    }
+
+    // ================== ЗВУК ==================
+
+    /** Несколько коротких звуков из сгенерированного WAV; null, если аудио недоступно. */
+    private static Sound[] loadSounds() {
+        try {
+            if (AudioSystem.getMixerInfo().length == 0) return null;
+            File wav = File.createTempFile("loadtest", ".wav");
+            wav.deleteOnExit();
+            AudioFormat f = new AudioFormat(44100, 16, 1, true, false);
+            byte[] pcm = new byte[4410 * 2];
+            for (int i = 0; i < pcm.length / 2; i++) {
+                short s = (short) (Math.sin(i * 2 * Math.PI * 440 / 44100) * 8000);
+                pcm[2 * i] = (byte) s;
+                pcm[2 * i + 1] = (byte) (s >> 8);
+            }
+            AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm), f, pcm.length / 2),
+                    AudioFileFormat.Type.WAVE, wav);
+
+            Sound[] sounds = new Sound[8];
+            for (int i = 0; i < sounds.length; i++) sounds[i] = new Sound(wav.getPath());
+            return sounds;
+        } catch (IOException | RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // ================== ОТЧЁТ ==================
+
+    private static String csvHeader() {
+        return "label,scenario,n,frames,p50_ms,p90_ms,p99_ms,max_ms,mean_ms,fps,updates_per_sec,"
+                + "heap_used_bytes,gc_count,gc_ms,bytes_per_frame";
+    }
+
+    private static String csvRow(String label, Result r) {
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f,%.0f,%d,%d,%d,%d",
+                csvEscape(label), r.scenario, r.n, r.frames, r.p50, r.p90, r.p99, r.max, r.mean,
+                r.fps, r.updatesPerSec, r.heapUsed, r.gcCount, r.gcMillis, r.bytesPerFrame);
+    }
+
+    private static void writeCsv(Path file, String label, List<Result> results) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            w.println(csvHeader());
+            for (Result r : results) w.println(csvRow(label, r));
+        }
+    }
+
+    private static void writeJson(Path file, String label, List<Result> results) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            w.println("{");
+            w.println("  \"label\": " + jsonString(label) + ",");
+            w.println("  \"java\": " + jsonString(System.getProperty("java.version")) + ",");
+            w.println("  \"cpus\": " + Runtime.getRuntime().availableProcessors() + ",");
+            w.println("  \"maxHeapBytes\": " + Runtime.getRuntime().maxMemory() + ",");
+            w.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                w.print(String.format(Locale.ROOT,
+                        "    {\"scenario\": \"%s\", \"n\": %d, \"frames\": %d, "
+                                + "\"frameMs\": {\"p50\": %.3f, \"p90\": %.3f, \"p99\": %.3f, \"max\": %.3f, \"mean\": %.3f}, "
+                                + "\"fps\": %.1f, \"updatesPerSec\": %.0f, \"heapUsedBytes\": %d, "
+                                + "\"gcCount\": %d, \"gcMs\": %d, \"bytesPerFrame\": %d}",
+                        r.scenario, r.n, r.frames, r.p50, r.p90, r.p99, r.max, r.mean,
+                        r.fps, r.updatesPerSec, r.heapUsed, r.gcCount, r.gcMillis, r.bytesPerFrame));
+                w.println(i + 1 < results.size() ? "," : "");
+            }
+            w.println("  ]");
+            w.println("}");
+        }
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private static double percentile(long[] sorted, double q) {
+        int i = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(i, sorted.length - 1))] / 1e6;
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += Math.max(0, gc.getCollectionCount());
+        return n;
+    }
+
+    private static long gcMillis() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += Math.max(0, gc.getCollectionTime());
+        return n;
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) throw new IllegalArgumentException("Missing value for " + option);
+        return value;
+    }
+
+    private static String csvEscape(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -1,11 +1,21 @@
 package net.wander.objects;
 
+import net.wander.utils.MathUtil;
 import net.wander.utils.Mouse;
 import net.wander.utils.MouseTarget;
 import net.wander.utils.Scene;
+import net.wander.utils.render.FrameBuffer;
+import net.wander.utils.render.RenderCommands;
 
 import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Базовый игровой объект.
@@ -40,6 +50,42 @@ public class GameObject implements MouseTarget {
     protected String tag;        // опциональный тег (типа "player", "enemy")
     protected int layer = 0;     // слой отрисовки (чем больше, тем "выше")
 
+    // --- частота апдейтов (см. UpdateScheduler) ---
+    private static final AtomicInteger phaseCounter = new AtomicInteger();
+    protected int updateInterval = 1;       // обновлять раз в N кадров
+    protected boolean lowPriority = false;  // при перегрузке можно обновлять ещё реже
+    private final int updatePhase = phaseCounter.getAndIncrement() & 0x7fffffff;
+    private double pendingDt = 0.0;         // dt пропущенных кадров
+
+    // классы, которые задают хитбокс переопределением getBounds() без аргументов
+    private static final ClassValue<Boolean> OVERRIDES_GET_BOUNDS = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getBounds").getDeclaringClass() != GameObject.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+    private Rectangle2D hitbox;             // переиспользуемый прямоугольник для intersects
+    private double[] corners;               // углы хитбокса в мире (ребёнок) / точка для contains
+
+    // --- иерархия (см. addChild) ---
+    private GameObject parent;
+    private List<GameObject> children;      // null, пока детей нет
+    private List<GameObject> childrenView;
+
+    // кэш трансформаций: пересчитываются, только если поменялись x/y/rotation/scale или предок
+    private AffineTransform localTransform;
+    private AffineTransform worldTransform;
+    private double cachedX, cachedY, cachedRotation, cachedScaleX, cachedScaleY;
+    private int localVersion = 0;           // растёт при каждом пересчёте localTransform
+    private int seenLocalVersion = -1;
+    private int worldVersion = 0;           // растёт при каждом пересчёте worldTransform
+    private int seenParentVersion = -1;
+    private GameObject seenParent;
+
     // ================== КОНСТРУКТОРЫ ==================
 
     public GameObject() {
@@ -66,6 +112,43 @@ public class GameObject implements MouseTarget {
         y += vy * dt;
     }
 
+    /**
+     * Вызывается сценой каждый кадр вместо update(dt): копит dt и вызывает update
+     * раз в updateInterval кадров (а если объект низкоприоритетный — ещё в throttle раз реже)
+     * с накопленным dt. Объекты с одним интервалом пропускают разные кадры.
+     */
+    public final void scheduledUpdate(double dt, long frame, int throttle) {
+        pendingDt += dt;
+        long period = (long) updateInterval * (lowPriority ? throttle : 1);
+        if (period <= 1 || (frame + updatePhase) % period == 0) {
+            double d = pendingDt;
+            pendingDt = 0.0;
+            update(d);
+        }
+
+        if (children != null) {
+            // по индексу: дети могут добавляться прямо в update
+            boolean dead = false;
+            for (int i = 0; i < children.size(); i++) {
+                GameObject c = children.get(i);
+                if (!c.destroyed) c.scheduledUpdate(dt, frame, throttle);
+                dead |= c.destroyed;
+            }
+            if (dead) pruneDestroyedChildren();
+        }
+    }
+
+    /** Отцепить уничтоженных детей (иначе у долгоживущего родителя список только растёт). */
+    private void pruneDestroyedChildren() {
+        for (int i = children.size() - 1; i >= 0; i--) {
+            GameObject c = children.get(i);
+            if (c.destroyed) {
+                children.remove(i);
+                c.parent = null;
+            }
+        }
+    }
+
     /**
      * Отрисовка объекта.
      * Переопределяй в наследниках.
@@ -75,12 +158,37 @@ public class GameObject implements MouseTarget {
         // по умолчанию ничего не рисуем
     }
 
+    /**
+     * Отрисовка в программный кадр (если в игре включён FrameBuffer).
+     * Рисуется до обычного render(g), то есть под ним. По умолчанию ничего не рисует.
+     */
+    public void render(FrameBuffer fb) {
+    }
+
+    /**
+     * Запись команд отрисовки (для CommandRenderer) вместо прямого рисования.
+     * Вызывается из нескольких потоков параллельно — не меняй тут состояние объекта.
+     * По умолчанию объект будет нарисован своим render(g) при воспроизведении.
+     * Для объектов с детьми не вызывается: они всегда рисуются через renderTree(g).
+     */
+    public void record(RenderCommands out) {
+        out.custom(this);
+    }
+
     /**
      * Помечает объект как уничтоженный.
-     * Сцена/движок должны сами убрать destroyed-объекты из списка.
+     * Сцена уберёт его из своих списков в конце ближайшего update(),
+     * а дочерний объект родитель отцепит на ближайшем апдейте.
      */
     public void destroy() {
+        if (destroyed) return;
         destroyed = true;
+        if (scene != null) scene.objectDestroyed();
+        if (children != null) {
+            for (int i = 0; i < children.size(); i++) {
+                children.get(i).destroy();
+            }
+        }
     }
 
     // ================== ПОЛОЖЕНИЕ / РАЗМЕР ==================
@@ -206,6 +314,11 @@ public class GameObject implements MouseTarget {
     /** Сцена сама должна вызывать это при добавлении объекта. */
     public void setScene(Scene scene) {
         this.scene = scene;
+        if (children != null) {
+            for (int i = 0; i < children.size(); i++) {
+                children.get(i).setScene(scene);
+            }
+        }
     }
 
     public String getName()          { return name; }
@@ -215,25 +328,288 @@ public class GameObject implements MouseTarget {
     public void setTag(String tag){ this.tag = tag; }
 
     public int getLayer()             { return layer; }
-    public void setLayer(int layer)   { this.layer = layer; }
+
+    /** Сменить слой. Сцена пересортирует порядок отрисовки перед следующим кадром. */
+    public void setLayer(int layer) {
+        if (this.layer == layer) return;
+        this.layer = layer;
+        if (scene != null) scene.invalidateRenderOrder();
+    }
+
+    public int getUpdateInterval() { return updateInterval; }
+
+    /** Обновлять раз в N кадров (1 — каждый кадр). dt пропущенных кадров накапливается. */
+    public void setUpdateInterval(int frames) {
+        this.updateInterval = Math.max(1, frames);
+    }
+
+    public boolean isLowPriority() { return lowPriority; }
+
+    /** Разрешить сцене реже обновлять объект при перегрузке (декорации, дальний ИИ). */
+    public void setLowPriority(boolean lowPriority) {
+        this.lowPriority = lowPriority;
+    }
+
+    // ================== ИЕРАРХИЯ ==================
+
+    /**
+     * Сделать child дочерним объектом.
+     * Координаты, поворот и масштаб ребёнка — относительно этого объекта:
+     * его (x, y) — начало координат ребёнка, оси повёрнуты на rotation и растянуты на scale.
+     *
+     * Ребёнок не лежит в списке сцены: его апдейтит и рисует родитель
+     * (если child уже был на сцене, он оттуда убирается).
+     * contains, isMouseOver, клики и intersects ребёнка работают в мировых координатах:
+     * кнопка на сдвинутой или повёрнутой панели ловит мышь там, где нарисована.
+     */
+    public void addChild(GameObject child) {
+        if (child == null || child == this || child.parent == this) return;
+        for (GameObject p = this; p != null; p = p.parent) {
+            if (p == child) throw new IllegalArgumentException("Cannot add an ancestor as a child");
+        }
+
+        if (child.parent != null) {
+            child.parent.removeChild(child);
+        } else if (child.scene != null) {
+            child.scene.removeObject(child);
+        }
+
+        if (children == null) {
+            children = new ArrayList<>();
+            childrenView = Collections.unmodifiableList(children);
+        }
+        children.add(child);
+        child.parent = this;
+        child.setScene(scene);
+    }
+
+    /** Отцепить ребёнка (он никуда не добавляется — при желании положи его на сцену сам). */
+    public void removeChild(GameObject child) {
+        if (child == null || child.parent != this) return;
+        children.remove(child);
+        child.parent = null;
+        child.setScene(null);
+    }
+
+    public GameObject getParent() {
+        return parent;
+    }
+
+    /** Дети (только для чтения). */
+    public List<GameObject> getChildren() {
+        return children == null ? Collections.emptyList() : childrenView;
+    }
+
+    public boolean hasChildren() {
+        return children != null && !children.isEmpty();
+    }
+
+    /**
+     * Локальная трансформация: translate(x, y) · rotate(rotation) · scale(scaleX, scaleY).
+     * Не меняй возвращаемый объект.
+     */
+    public AffineTransform getLocalTransform() {
+        refreshLocal();
+        return localTransform;
+    }
+
+    /**
+     * Трансформация из системы координат этого объекта в мировую (родитель · ... · this).
+     * Кэшируется; пересчитывается только если что-то поменялось у объекта или предков.
+     * Не меняй возвращаемый объект.
+     */
+    public AffineTransform getWorldTransform() {
+        if (parent != null) parent.getWorldTransform();
+        refreshWorld();
+        return worldTransform;
+    }
+
+    /**
+     * Перевести точку из системы координат объекта в мировую.
+     * Например, дуло башни: turret.localToWorld(turret.getWidth(), turret.getHeight() / 2, null).
+     * Точки самого объекта (его x, y) лежат в системе родителя — см. parentToWorld.
+     */
+    public Point2D localToWorld(double lx, double ly, Point2D out) {
+        if (out == null) out = new Point2D.Double();
+        out.setLocation(lx, ly);
+        return getWorldTransform().transform(out, out);
+    }
+
+    /** Мировое положение точки (x, y) объекта (для корня — просто x, y). */
+    public Point2D parentToWorld(Point2D out) {
+        if (out == null) out = new Point2D.Double();
+        out.setLocation(x, y);
+        if (parent == null) return out;
+        return parent.getWorldTransform().transform(out, out);
+    }
+
+    /**
+     * Нарисовать объект и всех его потомков. Невидимый объект не рисуется вместе с поддеревом.
+     * Для объекта с детьми копирует трансформацию g — в цикле по многим корням лучше renderTree(g, base).
+     */
+    public void renderTree(Graphics2D g) {
+        if (!isVisible()) return;
+        if (children == null || children.isEmpty()) {
+            render(g);
+            return;
+        }
+        renderTree(g, g.getTransform());
+    }
+
+    /**
+     * То же без копирования трансформации: base — трансформация g, в которой рисуются корни
+     * (взять g.getTransform() один раз на кадр). Дети рисуются в base · getWorldTransform() родителя —
+     * из кэша мировых трансформаций. После вызова в g снова base.
+     */
+    public void renderTree(Graphics2D g, AffineTransform base) {
+        if (!isVisible()) return;
+        render(g);
+        if (children == null || children.isEmpty()) return;
+
+        AffineTransform world = getWorldTransform();
+        for (int i = 0, n = children.size(); i < n; i++) {
+            g.setTransform(base);
+            g.transform(world);
+            children.get(i).renderTree(g, base);
+        }
+        g.setTransform(base);
+    }
+
+    private void refreshLocal() {
+        if (localTransform != null && x == cachedX && y == cachedY && rotation == cachedRotation
+                && scaleX == cachedScaleX && scaleY == cachedScaleY) {
+            return;
+        }
+        if (localTransform == null) localTransform = new AffineTransform();
+        localTransform.setToTranslation(x, y);
+        if (rotation != 0.0) localTransform.rotate(rotation);
+        if (scaleX != 1.0 || scaleY != 1.0) localTransform.scale(scaleX, scaleY);
+        cachedX = x;
+        cachedY = y;
+        cachedRotation = rotation;
+        cachedScaleX = scaleX;
+        cachedScaleY = scaleY;
+        localVersion++;
+    }
+
+    /** Родитель должен быть уже обновлён. */
+    private void refreshWorld() {
+        refreshLocal();
+        boolean parentChanged = parent != seenParent
+                || (parent != null && parent.worldVersion != seenParentVersion);
+        if (worldTransform != null && localVersion == seenLocalVersion && !parentChanged) return;
+
+        if (worldTransform == null) worldTransform = new AffineTransform();
+        if (parent == null) {
+            worldTransform.setTransform(localTransform);
+        } else {
+            worldTransform.setTransform(parent.worldTransform);
+            worldTransform.concatenate(localTransform);
+        }
+        seenParent = parent;
+        seenParentVersion = parent == null ? -1 : parent.worldVersion;
+        seenLocalVersion = localVersion;
+        worldVersion++;
+    }
 
     // ================== КОЛЛИЗИИ / ГЕОМЕТРИЯ ==================
 
-    /** Прямоугольный хитбокс объекта. */
+    /**
+     * Прямоугольный хитбокс объекта (новый объект — в горячем коде лучше getBounds(out)).
+     * Переопределённый getBounds() по-прежнему учитывается в intersects, но с выделением памяти.
+     */
     public Rectangle2D getBounds() {
-        return new Rectangle2D.Double(x, y, width, height);
+        return getBounds(new Rectangle2D.Double());
+    }
+
+    /**
+     * Хитбокс в переданный прямоугольник (без выделения памяти).
+     * Переопредели, чтобы сузить или сдвинуть хитбокс: intersects и getBounds() берут его отсюда.
+     */
+    public Rectangle2D getBounds(Rectangle2D out) {
+        out.setRect(x, y, width, height);
+        return out;
     }
 
-    /** Содержит ли объект точку (px, py)? */
+    /**
+     * Содержит ли объект точку (px, py) в мировых координатах?
+     * У ребёнка прямоугольник лежит в системе родителя — точка переводится туда.
+     */
+    @Override
     public boolean contains(double px, double py) {
+        if (parent != null) {
+            double[] p = corners();
+            p[0] = px;
+            p[1] = py;
+            try {
+                parent.getWorldTransform().inverseTransform(p, 0, p, 0, 1);
+            } catch (NoninvertibleTransformException e) {
+                return false;   // предок сжат в линию или точку
+            }
+            px = p[0];
+            py = p[1];
+        }
         return px >= x && px <= x + width &&
                 py >= y && py <= y + height;
     }
 
-    /** Прямоугольники двух объектов пересекаются? */
+    /**
+     * Хитбоксы двух объектов (getBounds) пересекаются?
+     * Хитбокс ребёнка переводится в мир трансформацией родителя (с поворотом — честный
+     * параллелограмм, а не описанный прямоугольник). Касание краями — не пересечение.
+     */
     public boolean intersects(GameObject other) {
         if (other == null) return false;
-        return this.getBounds().intersects(other.getBounds());
+        if (parent == null && other.parent == null) return hitbox().intersects(other.hitbox());
+
+        Rectangle2D a = hitbox(), b = other.hitbox();
+        if (a.isEmpty() || b.isEmpty()) return false;
+        double[] pa = worldCorners(a), pb = other.worldCorners(b);
+        return !separated(pa, pb) && !separated(pb, pa);
+    }
+
+    private double[] corners() {
+        if (corners == null) corners = new double[8];
+        return corners;
+    }
+
+    /** Углы прямоугольника r (в системе родителя) в мировых координатах, по порядку обхода. */
+    private double[] worldCorners(Rectangle2D r) {
+        double[] c = corners();
+        double x0 = r.getX(), y0 = r.getY(), x1 = x0 + r.getWidth(), y1 = y0 + r.getHeight();
+        c[0] = x0; c[1] = y0;
+        c[2] = x1; c[3] = y0;
+        c[4] = x1; c[5] = y1;
+        c[6] = x0; c[7] = y1;
+        if (parent != null) parent.getWorldTransform().transform(c, 0, c, 0, 4);
+        return c;
+    }
+
+    /** Есть ли разделяющая ось среди нормалей к сторонам параллелограмма p (теорема о разделяющей оси). */
+    private static boolean separated(double[] p, double[] q) {
+        for (int e = 2; e <= 6; e += 4) {   // две непараллельные стороны: p0→p1 и p0→p3
+            double nx = p[1] - p[e + 1];
+            double ny = p[e] - p[0];
+            double minP = Double.POSITIVE_INFINITY, maxP = Double.NEGATIVE_INFINITY;
+            double minQ = Double.POSITIVE_INFINITY, maxQ = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < 8; i += 2) {
+                double dp = p[i] * nx + p[i + 1] * ny;
+                double dq = q[i] * nx + q[i + 1] * ny;
+                if (dp < minP) minP = dp;
+                if (dp > maxP) maxP = dp;
+                if (dq < minQ) minQ = dq;
+                if (dq > maxQ) maxQ = dq;
+            }
+            if (maxP <= minQ || maxQ <= minP) return true;
+        }
+        return false;
+    }
+
+    /** Текущий хитбокс: в свой прямоугольник, если класс не переопределял старый getBounds(). */
+    private Rectangle2D hitbox() {
+        if (OVERRIDES_GET_BOUNDS.get(getClass())) return getBounds();
+        if (hitbox == null) hitbox = new Rectangle2D.Double();
+        return getBounds(hitbox);
     }
 
     /** Расстояние до другого объекта (по центрам). */
@@ -251,11 +627,32 @@ public class GameObject implements MouseTarget {
         return Math.sqrt(dx * dx + dy * dy);
     }
 
-    /** Угол (радианы) от этого объекта к точке (px,py). */
+    /**
+     * Квадрат расстояния до другого объекта (по центрам).
+     * Для сравнений "ближе чем R" сравнивай с R*R — без корня.
+     */
+    public double distanceSqTo(GameObject other) {
+        if (other == null) return Double.POSITIVE_INFINITY;
+        double dx = this.getCenterX() - other.getCenterX();
+        double dy = this.getCenterY() - other.getCenterY();
+        return dx * dx + dy * dy;
+    }
+
+    /** Квадрат расстояния до точки. */
+    public double distanceSqTo(double px, double py) {
+        double dx = this.getCenterX() - px;
+        double dy = this.getCenterY() - py;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Угол (радианы) от этого объекта к точке (px,py).
+     * Точность/детерминизм задаются через MathUtil.setMode().
+     */
     public double angleTo(double px, double py) {
         double dx = px - getCenterX();
         double dy = py - getCenterY();
-        return Math.atan2(dy, dx);
+        return MathUtil.atan2(dy, dx);
     }
 
     /** Повернуться лицом к точке. */
@@ -266,7 +663,7 @@ public class GameObject implements MouseTarget {
     // ================== MouseTarget (наведение/клики) ==================
 
 
-    /** Наведена ли мышь на этот объект? */
+    /** Наведена ли мышь на этот объект? (см. contains — у ребёнка с учётом трансформации родителя) */
     public boolean isMouseOver() {
         return Mouse.isHover(this);
     }
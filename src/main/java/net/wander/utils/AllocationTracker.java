@@ -0,0 +1,289 @@
+package net.wander.utils;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сколько байт выделяет игровой поток за кадр — по фазам цикла и по сценам,
+ * плюс паузы GC, случившиеся за эти кадры.
+ *
+ *   AllocationTracker tracker = new AllocationTracker();
+ *   game.setAllocationTracker(tracker);
+ *   ...
+ *   System.out.println(tracker.report());
+ *
+ * Считает по счётчику выделений текущего потока (com.sun.management.ThreadMXBean),
+ * так что в отчёт попадает только то, что выделил игровой поток.
+ *
+ * Для проверки "сцена в установившемся режиме не мусорит" — assertBudget(...),
+ * её удобно звать из теста: превышение бюджета кидает AssertionError.
+ */
+public class AllocationTracker {
+
+    /** Фаза игрового цикла. */
+    public enum Phase { INPUT, UPDATE, RENDER }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final ThreadMXBean threads;
+    private final boolean supported;
+
+    // ---- текущий кадр (игровой поток) ----
+    private SceneStats current;
+    private Phase phase;
+    private long mark;
+    private final long[] frameBytes = new long[PHASES.length];
+    private final long[] lastFrame = new long[PHASES.length];   // frameBytes последнего законченного кадра
+    private long lastFrameBytes = 0;
+    private long gcSeenAtFrameStart = 0;
+    private volatile boolean resetPending = false;
+
+    private final Map<String, SceneStats> scenes = new HashMap<>();
+
+    // ---- GC (потоки уведомлений) ----
+    private final AtomicLong gcCount = new AtomicLong();
+    private final AtomicLong gcPauseMillis = new AtomicLong();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener gcListener = this::onGc;
+
+    public AllocationTracker() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof ThreadMXBean && ((ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+            supported = true;
+        } else {
+            threads = null;
+            supported = false;
+        }
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter e = (NotificationEmitter) gc;
+                e.addNotificationListener(gcListener, null, null);
+                emitters.add(e);
+            }
+        }
+    }
+
+    /** Умеет ли JVM считать выделения по потокам. Если нет — все байты будут 0. */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    // ================== РАЗМЕТКА КАДРА (игровой поток) ==================
+
+    /** Начало кадра сцены sceneName. Дальше идёт фаза INPUT. */
+    public void beginFrame(String sceneName) {
+        if (resetPending) {
+            resetPending = false;
+            scenes.clear();
+            gcCount.set(0);
+            gcPauseMillis.set(0);
+        }
+        SceneStats s = scenes.get(sceneName);
+        if (s == null) {
+            s = new SceneStats(sceneName);
+            scenes.put(sceneName, s);
+        }
+        current = s;
+        for (int i = 0; i < frameBytes.length; i++) frameBytes[i] = 0;
+        gcSeenAtFrameStart = gcCount.get();
+        phase = Phase.INPUT;
+        mark = allocated();
+    }
+
+    /** Перейти к следующей фазе: всё выделенное до этого момента засчитывается предыдущей. */
+    public void phase(Phase next) {
+        if (current == null) return;
+        long now = allocated();
+        frameBytes[phase.ordinal()] += now - mark;
+        mark = now;
+        phase = next;
+    }
+
+    /** Конец кадра. */
+    public void endFrame() {
+        if (current == null) return;
+        long now = allocated();
+        frameBytes[phase.ordinal()] += now - mark;
+
+        long total = 0;
+        for (int i = 0; i < frameBytes.length; i++) {
+            current.bytes[i] += frameBytes[i];
+            lastFrame[i] = frameBytes[i];
+            total += frameBytes[i];
+        }
+        lastFrameBytes = total;
+        current.frames++;
+        current.totalBytes += total;
+        if (total > current.maxFrameBytes) current.maxFrameBytes = total;
+        if (gcCount.get() != gcSeenAtFrameStart) current.framesWithGc++;
+        current = null;
+    }
+
+    // ================== РЕЗУЛЬТАТЫ ==================
+
+    /** Байт за последний законченный кадр. */
+    public long getLastFrameBytes() {
+        return lastFrameBytes;
+    }
+
+    /** Байт в фазе последнего законченного кадра. */
+    public long getLastFrameBytes(Phase phase) {
+        return lastFrame[phase.ordinal()];
+    }
+
+    /** Статистика по сцене (null, если кадров этой сцены ещё не было). */
+    public SceneStats getStats(String sceneName) {
+        return scenes.get(sceneName);
+    }
+
+    public long getGcCount() {
+        return gcCount.get();
+    }
+
+    /** Суммарная длительность сборок GC, мс (по данным JVM). */
+    public long getGcPauseMillis() {
+        return gcPauseMillis.get();
+    }
+
+    /**
+     * Сбросить накопленную статистику (например, после прогрева).
+     * Можно звать из любого потока: сброс выполняет игровой поток в начале следующего кадра,
+     * так что кадр, идущий сейчас, в новую статистику не попадёт, а до этого момента
+     * getStats()/report() отдают старые данные.
+     */
+    public void reset() {
+        resetPending = true;
+    }
+
+    /** Отписаться от уведомлений GC. */
+    public void close() {
+        for (NotificationEmitter e : emitters) {
+            try {
+                e.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException ignored) {}
+        }
+        emitters.clear();
+    }
+
+    /** Текстовый отчёт по всем сценам. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("GC: %d collections, %d ms%n", gcCount.get(), gcPauseMillis.get()));
+        for (SceneStats s : scenes.values()) {
+            sb.append(s).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    // ================== ПРОВЕРКА БЮДЖЕТА ==================
+
+    /**
+     * Прогнать сцену warmupFrames кадров (update + render в картинку), затем frames кадров с замером.
+     * Если в среднем сцена выделяет больше maxBytesPerFrame байт за кадр — AssertionError
+     * с разбивкой по фазам. Если JVM не умеет считать выделения — проверка пропускается.
+     *
+     * @return средние байты за кадр
+     */
+    public static long assertBudget(Scene scene, int warmupFrames, int frames, long maxBytesPerFrame) {
+        if (frames <= 0) throw new IllegalArgumentException("frames must be > 0");
+        double dt = 1.0 / 60.0;
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        AllocationTracker tracker = new AllocationTracker();
+        try {
+            for (int i = 0; i < warmupFrames; i++) {
+                scene.update(dt);
+                scene.render(g);
+            }
+            if (!tracker.isSupported()) return 0;
+
+            for (int i = 0; i < frames; i++) {
+                tracker.beginFrame(scene.getName());
+                tracker.phase(Phase.UPDATE);
+                scene.update(dt);
+                tracker.phase(Phase.RENDER);
+                scene.render(g);
+                tracker.endFrame();
+            }
+
+            SceneStats s = tracker.getStats(scene.getName());
+            long avg = s.getAverageBytesPerFrame();
+            if (avg > maxBytesPerFrame) {
+                throw new AssertionError("Scene '" + scene.getName() + "' allocates " + avg
+                        + " bytes/frame, budget " + maxBytesPerFrame + ": " + s);
+            }
+            return avg;
+        } finally {
+            g.dispose();
+            tracker.close();
+        }
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private long allocated() {
+        return supported ? threads.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private void onGc(Notification n, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+        gcCount.incrementAndGet();
+        gcPauseMillis.addAndGet(info.getGcInfo().getDuration());
+    }
+
+    /** Накопленная статистика одной сцены. */
+    public static final class SceneStats {
+        private final String scene;
+        private long frames;
+        private long totalBytes;
+        private long maxFrameBytes;
+        private long framesWithGc;
+        private final long[] bytes = new long[PHASES.length];
+
+        SceneStats(String scene) {
+            this.scene = scene;
+        }
+
+        public String getScene()        { return scene; }
+        public long getFrames()         { return frames; }
+        public long getTotalBytes()     { return totalBytes; }
+        public long getMaxFrameBytes()  { return maxFrameBytes; }
+        /** Сколько кадров застали хотя бы одну сборку GC. */
+        public long getFramesWithGc()   { return framesWithGc; }
+
+        public long getAverageBytesPerFrame() {
+            return frames == 0 ? 0 : totalBytes / frames;
+        }
+
+        public long getAverageBytes(Phase phase) {
+            return frames == 0 ? 0 : bytes[phase.ordinal()] / frames;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d frames, avg %d B/frame (input %d, update %d, render %d), max %d B, %d frames with GC",
+                    scene, frames, getAverageBytesPerFrame(),
+                    getAverageBytes(Phase.INPUT), getAverageBytes(Phase.UPDATE), getAverageBytes(Phase.RENDER),
+                    maxFrameBytes, framesWithGc);
+        }
+    }
+}
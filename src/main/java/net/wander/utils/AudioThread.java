@@ -0,0 +1,53 @@
+package net.wander.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Отдельный поток для работы со звуком.
+ * Sound кладёт сюда команды (play/stop/громкость/pitch), а вызовы в аудиодрайвер
+ * выполняются уже здесь, так что игровой поток на них не ждёт.
+ *
+ * Очередь неблокирующая (ConcurrentLinkedQueue), поток спит через LockSupport.park,
+ * пока команд нет.
+ */
+final class AudioThread {
+
+    private static final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private static volatile Thread thread;
+
+    private AudioThread() {} // утилитный класс
+
+    /** Поставить команду в очередь. Возвращается сразу. */
+    static void post(Runnable command) {
+        commands.offer(command);
+        Thread t = thread;
+        if (t == null) t = start();
+        LockSupport.unpark(t);
+    }
+
+    private static synchronized Thread start() {
+        if (thread == null) {
+            Thread t = new Thread(AudioThread::loop, "AudioThread");
+            t.setDaemon(true);
+            thread = t;
+            t.start();
+        }
+        return thread;
+    }
+
+    private static void loop() {
+        while (true) {
+            Runnable cmd;
+            while ((cmd = commands.poll()) != null) {
+                try {
+                    cmd.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Ошибка в аудиопотоке: " + e);
+                }
+            }
+            LockSupport.park();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package net.wander.utils;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая симуляция одной сцены: отдельный поток, свой тикрейт.
+ * Создаётся и останавливается из SimpleGame (setBackgroundSimulation / gotoScene).
+ */
+final class BackgroundSimulation {
+
+    // после долгой паузы (GC, сон ноутбука) не прыгаем сразу на секунды вперёд
+    private static final double MAX_DT = 0.25;
+
+    private final Scene scene;
+    private final ScheduledExecutorService executor;
+    private final Object tickLock = new Object();
+    private volatile boolean stopped = false;
+    private volatile RuntimeException failure;
+    private long lastNanos;
+
+    BackgroundSimulation(Scene scene, double tickRate) {
+        this.scene = scene;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SceneSimulation-" + scene.getName());
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1L, (long) (1_000_000_000.0 / tickRate));
+        this.lastNanos = System.nanoTime();
+        executor.scheduleAtFixedRate(this::tick, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        synchronized (tickLock) {
+            if (stopped) return;
+            long now = System.nanoTime();
+            double dt = Math.min((now - lastNanos) / 1_000_000_000.0, MAX_DT);
+            lastNanos = now;
+            try {
+                scene.update(dt);
+            } catch (RuntimeException e) {
+                // исключение убило бы расписание молча — запоминаем причину и останавливаемся
+                System.err.println("Фоновая симуляция сцены " + scene.getName() + " остановлена: " + e);
+                failure = e;
+                stopped = true;
+                executor.shutdown();
+            }
+        }
+    }
+
+    /** Исключение, на котором симуляция остановилась сама (null — работает или остановлена штатно). */
+    RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Остановить и дождаться текущего тика.
+     * После возврата сцену можно спокойно апдейтить из игрового потока.
+     */
+    void stop() {
+        stopped = true;
+        executor.shutdown();
+        synchronized (tickLock) {
+            // тик, который шёл в момент остановки, закончился
+        }
+    }
+}
@@ -10,6 +10,10 @@ public class Counter {
 
     private double accMs = 0.0; // накопленное время в мс
 
+    // если счётчик работает от планировщика (см. второй конструктор)
+    private final Scheduler scheduler;
+    private Scheduler.Timer timer;
+
     /**
      * @param autoIncrement включён ли авто-инкремент
      * @param step          на сколько увеличивать при каждом срабатывании
@@ -20,11 +24,27 @@ public class Counter {
         this.autoIncrement = autoIncrement;
         this.step = step;
         this.periodMs = periodMs;
+        this.scheduler = null;
+    }
+
+    /**
+     * Авто-инкремент на таймере планировщика: update(dt) вызывать не нужно.
+     *
+     * @param scheduler планировщик (например, scene.getScheduler())
+     * @param step      на сколько увеличивать при каждом срабатывании
+     * @param periodMs  период срабатывания в миллисекундах
+     */
+    public Counter(Scheduler scheduler, double step, long periodMs) {
+        this.autoIncrement = true;
+        this.step = step;
+        this.periodMs = periodMs;
+        this.scheduler = scheduler;
+        startTimer();
     }
 
 
     public void update(double dt) {
-        if (!autoIncrement) return;
+        if (!autoIncrement || timer != null) return;
         if (periodMs <= 0) return;
 
         accMs += dt * 1000.0;
@@ -50,5 +70,24 @@ public class Counter {
     public void reset() {
         value = 0.0;
         accMs = 0.0;
+        if (timer != null) {
+            // начинаем период заново
+            timer.cancel();
+            startTimer();
+        }
+    }
+
+    /** Остановить авто-инкремент от планировщика (значение сохраняется). */
+    public void stop() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    private void startTimer() {
+        if (scheduler == null || periodMs <= 0) return;
+        double period = periodMs / 1000.0;
+        timer = scheduler.every(period, () -> value += step);
     }
 }
\ No newline at end of file
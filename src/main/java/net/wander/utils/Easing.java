@@ -0,0 +1,85 @@
+package net.wander.utils;
+
+/**
+ * Функции плавности для твинов.
+ * Каждая — просто номер (int), чтобы твины хранились в массивах без объектов.
+ *
+ * apply(easing, t): t в диапазоне [0..1] -> "прогресс" (обычно тоже 0..1,
+ * но BACK/ELASTIC могут немного выходить за границы).
+ */
+public final class Easing {
+
+    public static final int LINEAR         = 0;
+    public static final int IN_QUAD        = 1;
+    public static final int OUT_QUAD       = 2;
+    public static final int IN_OUT_QUAD    = 3;
+    public static final int IN_CUBIC       = 4;
+    public static final int OUT_CUBIC      = 5;
+    public static final int IN_OUT_CUBIC   = 6;
+    public static final int IN_SINE        = 7;
+    public static final int OUT_SINE       = 8;
+    public static final int IN_OUT_SINE    = 9;
+    public static final int IN_EXPO        = 10;
+    public static final int OUT_EXPO       = 11;
+    public static final int IN_BACK        = 12;
+    public static final int OUT_BACK       = 13;
+    public static final int OUT_ELASTIC    = 14;
+    public static final int OUT_BOUNCE     = 15;
+    public static final int SMOOTHSTEP     = 16;
+
+    private static final double BACK = 1.70158;
+
+    private Easing() {} // утилитный класс
+
+    public static double apply(int easing, double t) {
+        if (t <= 0.0) return 0.0;
+        if (t >= 1.0) return 1.0;
+        switch (easing) {
+            case IN_QUAD:      return t * t;
+            case OUT_QUAD:     return t * (2.0 - t);
+            case IN_OUT_QUAD:  return t < 0.5 ? 2.0 * t * t : -1.0 + (4.0 - 2.0 * t) * t;
+            case IN_CUBIC:     return t * t * t;
+            case OUT_CUBIC: {
+                double u = t - 1.0;
+                return u * u * u + 1.0;
+            }
+            case IN_OUT_CUBIC: {
+                if (t < 0.5) return 4.0 * t * t * t;
+                double u = 2.0 * t - 2.0;
+                return 0.5 * u * u * u + 1.0;
+            }
+            case IN_SINE:      return 1.0 - Math.cos(t * Math.PI * 0.5);
+            case OUT_SINE:     return Math.sin(t * Math.PI * 0.5);
+            case IN_OUT_SINE:  return 0.5 * (1.0 - Math.cos(Math.PI * t));
+            case IN_EXPO:      return Math.pow(2.0, 10.0 * (t - 1.0));
+            case OUT_EXPO:     return 1.0 - Math.pow(2.0, -10.0 * t);
+            case IN_BACK:      return t * t * ((BACK + 1.0) * t - BACK);
+            case OUT_BACK: {
+                double u = t - 1.0;
+                return u * u * ((BACK + 1.0) * u + BACK) + 1.0;
+            }
+            case OUT_ELASTIC:
+                return Math.pow(2.0, -10.0 * t) * Math.sin((t - 0.075) * (2.0 * Math.PI) / 0.3) + 1.0;
+            case OUT_BOUNCE:   return bounce(t);
+            case SMOOTHSTEP:   return t * t * (3.0 - 2.0 * t);
+            case LINEAR:
+            default:
+                return t;
+        }
+    }
+
+    private static double bounce(double t) {
+        if (t < 1 / 2.75) {
+            return 7.5625 * t * t;
+        } else if (t < 2 / 2.75) {
+            t -= 1.5 / 2.75;
+            return 7.5625 * t * t + 0.75;
+        } else if (t < 2.5 / 2.75) {
+            t -= 2.25 / 2.75;
+            return 7.5625 * t * t + 0.9375;
+        } else {
+            t -= 2.625 / 2.75;
+            return 7.5625 * t * t + 0.984375;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package net.wander.utils;
+
+/**
+ * Детерминированная математика с фиксированной точкой 16.16 (значения хранятся в int).
+ *
+ * Для состояния симуляции, которое должно совпадать бит в бит на разных машинах
+ * (lockstep-мультиплеер, реплеи): только целочисленные операции, никаких double.
+ *
+ *   int x = Fixed.fromInt(10);
+ *   int v = Fixed.fromDouble(2.5);            // только при загрузке/настройке, не в симуляции
+ *   x = Fixed.add(x, Fixed.mul(v, dt));
+ *   int angle = Fixed.atan2(dy, dx);
+ *
+ * Диапазон: примерно ±32767, шаг 1/65536.
+ */
+public final class Fixed {
+
+    public static final int FRACTION_BITS = 16;
+    public static final int ONE     = 1 << FRACTION_BITS;
+    public static final int HALF    = ONE >> 1;
+    public static final int PI      = 205887;   // round(pi * 65536)
+    public static final int HALF_PI = PI / 2;
+    public static final int TWO_PI  = PI * 2;
+
+    // таблица синуса на четверть оборота (значения посчитаны StrictMath — одинаковы везде)
+    private static final int SIN_BITS = 10;
+    private static final int SIN_SIZE = 1 << SIN_BITS;
+    private static final int[] SIN_TABLE = new int[SIN_SIZE + 1];
+
+    // углы для CORDIC: atan(2^-i)
+    private static final int CORDIC_STEPS = 16;
+    private static final int[] CORDIC_ATAN = new int[CORDIC_STEPS];
+
+    static {
+        for (int i = 0; i <= SIN_SIZE; i++) {
+            SIN_TABLE[i] = (int) Math.round(StrictMath.sin(i * (StrictMath.PI * 0.5) / SIN_SIZE) * ONE);
+        }
+        for (int i = 0; i < CORDIC_STEPS; i++) {
+            CORDIC_ATAN[i] = (int) Math.round(StrictMath.atan(StrictMath.pow(2, -i)) * ONE);
+        }
+    }
+
+    private Fixed() {} // утилитный класс
+
+    // ================== ПРЕОБРАЗОВАНИЯ ==================
+
+    public static int fromInt(int v) {
+        return v << FRACTION_BITS;
+    }
+
+    /** Из double (округление). Используй для констант/настроек, не внутри симуляции. */
+    public static int fromDouble(double v) {
+        return (int) Math.round(v * ONE);
+    }
+
+    public static double toDouble(int f) {
+        return f / (double) ONE;
+    }
+
+    /** Целая часть (округление вниз). */
+    public static int toInt(int f) {
+        return f >> FRACTION_BITS;
+    }
+
+    // ================== АРИФМЕТИКА ==================
+
+    public static int add(int a, int b) {
+        return a + b;
+    }
+
+    public static int sub(int a, int b) {
+        return a - b;
+    }
+
+    public static int mul(int a, int b) {
+        return (int) (((long) a * b) >> FRACTION_BITS);
+    }
+
+    public static int div(int a, int b) {
+        if (b == 0) throw new ArithmeticException("Fixed division by zero");
+        return (int) (((long) a << FRACTION_BITS) / b);
+    }
+
+    public static int abs(int a) {
+        return a < 0 ? -a : a;
+    }
+
+    public static int lerp(int a, int b, int t) {
+        return a + mul(b - a, t);
+    }
+
+    /** Корень (целочисленный, побитовый). Для отрицательных вернёт 0. */
+    public static int sqrt(int a) {
+        if (a <= 0) return 0;
+        long v = (long) a << FRACTION_BITS;
+        long res = 0;
+        long bit = 1L << 62;
+        while (bit > v) bit >>= 2;
+        while (bit != 0) {
+            if (v >= res + bit) {
+                v -= res + bit;
+                res = (res >> 1) + bit;
+            } else {
+                res >>= 1;
+            }
+            bit >>= 2;
+        }
+        return (int) res;
+    }
+
+    /** Длина вектора (dx, dy). */
+    public static int length(int dx, int dy) {
+        long sq = ((long) dx * dx + (long) dy * dy) >> FRACTION_BITS;
+        if (sq > Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        return sqrt((int) sq);
+    }
+
+    // ================== ТРИГОНОМЕТРИЯ ==================
+
+    /** Синус угла в радианах (16.16). Ошибка ≤ 1e-4 (для больших углов растёт из-за округления PI). */
+    public static int sin(int angle) {
+        // приводим к [0, 2pi)
+        int a = angle % TWO_PI;
+        if (a < 0) a += TWO_PI;
+
+        int quadrant = 0;
+        while (a >= HALF_PI) {
+            a -= HALF_PI;
+            quadrant++;
+        }
+        if (quadrant == 1 || quadrant == 3) a = HALF_PI - a;
+
+        // индекс в таблице с линейной интерполяцией
+        long pos = ((long) a * SIN_SIZE << FRACTION_BITS) / HALF_PI;
+        int i = (int) (pos >> FRACTION_BITS);
+        int f = (int) (pos & (ONE - 1));
+        int v = i >= SIN_SIZE ? SIN_TABLE[SIN_SIZE] : SIN_TABLE[i] + mul(SIN_TABLE[i + 1] - SIN_TABLE[i], f);
+
+        return quadrant >= 2 ? -v : v;
+    }
+
+    public static int cos(int angle) {
+        return sin(angle + HALF_PI);
+    }
+
+    /** atan2(y, x) в радианах (16.16), CORDIC. Ошибка ≤ 4/65536. */
+    public static int atan2(int y, int x) {
+        if (x == 0 && y == 0) return 0;
+
+        // растягиваем вектор, чтобы сдвиги CORDIC не съедали точность на малых значениях
+        long cx = (long) x << 24;
+        long cy = (long) y << 24;
+        int angle = 0;
+
+        // поворачиваем в правую полуплоскость
+        if (cx < 0) {
+            long t = cx;
+            if (cy >= 0) {
+                cx = cy;
+                cy = -t;
+                angle = HALF_PI;
+            } else {
+                cx = -cy;
+                cy = t;
+                angle = -HALF_PI;
+            }
+        }
+
+        for (int i = 0; i < CORDIC_STEPS; i++) {
+            long nx, ny;
+            if (cy > 0) {
+                nx = cx + (cy >> i);
+                ny = cy - (cx >> i);
+                angle += CORDIC_ATAN[i];
+            } else {
+                nx = cx - (cy >> i);
+                ny = cy + (cx >> i);
+                angle -= CORDIC_ATAN[i];
+            }
+            cx = nx;
+            cy = ny;
+        }
+        return angle;
+    }
+}
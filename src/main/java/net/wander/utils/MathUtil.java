@@ -4,6 +4,29 @@ public final class MathUtil {
 
     private MathUtil() {} // утилитный класс
 
+    /**
+     * Режим для sin/cos/atan2 ниже (их использует GameObject: angleTo, lookAt и т.д.):
+     *  PRECISE — java.lang.Math (по умолчанию);
+     *  FAST    — табличные/полиномиальные приближения (fastSin/fastCos/fastAtan2);
+     *  STRICT  — StrictMath: одинаковый результат на любой JVM и архитектуре (для lockstep).
+     */
+    public enum Mode { PRECISE, FAST, STRICT }
+
+    private static volatile Mode mode = Mode.PRECISE;
+
+    // таблица синуса на полный оборот (+1 элемент для интерполяции)
+    private static final int SIN_BITS  = 12;
+    private static final int SIN_SIZE  = 1 << SIN_BITS;
+    private static final int SIN_MASK  = SIN_SIZE - 1;
+    private static final double SIN_SCALE = SIN_SIZE / (2.0 * Math.PI);
+    private static final double[] SIN_TABLE = new double[SIN_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= SIN_SIZE; i++) {
+            SIN_TABLE[i] = StrictMath.sin(i / SIN_SCALE);
+        }
+    }
+
     /**
      * Линейная интерполяция между a и b.
      * t в диапазоне [0..1]:
@@ -18,4 +41,88 @@ public final class MathUtil {
     public static float lerp(float a, float b, float t) {
         return a + (b - a) * t;
     }
+
+    // ================== РЕЖИМ ==================
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static void setMode(Mode m) {
+        mode = m == null ? Mode.PRECISE : m;
+    }
+
+    public static double sin(double a) {
+        switch (mode) {
+            case FAST:   return fastSin(a);
+            case STRICT: return StrictMath.sin(a);
+            default:     return Math.sin(a);
+        }
+    }
+
+    public static double cos(double a) {
+        switch (mode) {
+            case FAST:   return fastCos(a);
+            case STRICT: return StrictMath.cos(a);
+            default:     return Math.cos(a);
+        }
+    }
+
+    public static double atan2(double y, double x) {
+        switch (mode) {
+            case FAST:   return fastAtan2(y, x);
+            case STRICT: return StrictMath.atan2(y, x);
+            default:     return Math.atan2(y, x);
+        }
+    }
+
+    /**
+     * Корень. Math.sqrt — интринсик процессора и по IEEE 754 всегда округляется корректно,
+     * поэтому он и так быстрый и детерминированный — приближение тут не нужно.
+     */
+    public static double sqrt(double v) {
+        return Math.sqrt(v);
+    }
+
+    /** Длина вектора (dx, dy). Быстрее Math.hypot, который защищается от переполнения. */
+    public static double length(double dx, double dy) {
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // ================== БЫСТРЫЕ ПРИБЛИЖЕНИЯ ==================
+
+    /** Синус по таблице 4096 точек с линейной интерполяцией. Ошибка ≤ 3e-7. */
+    public static double fastSin(double a) {
+        double p = a * SIN_SCALE;
+        double fl = Math.floor(p);
+        double f = p - fl;
+        int i = (int) (long) fl & SIN_MASK;
+        double s0 = SIN_TABLE[i];
+        return s0 + (SIN_TABLE[i + 1] - s0) * f;
+    }
+
+    /** Косинус по той же таблице. Ошибка ≤ 3e-7. */
+    public static double fastCos(double a) {
+        return fastSin(a + Math.PI * 0.5);
+    }
+
+    /**
+     * atan2 через полином 11-й степени на [0..1] и симметрии.
+     * Ошибка ≤ 2e-6 рад (≈ 0.0001°).
+     */
+    public static double fastAtan2(double y, double x) {
+        double ax = Math.abs(x);
+        double ay = Math.abs(y);
+        if (ax == 0.0 && ay == 0.0) return 0.0;
+
+        boolean swap = ay > ax;
+        double z = swap ? ax / ay : ay / ax;
+        double z2 = z * z;
+        double r = z * (0.99997726 + z2 * (-0.33262347 + z2 * (0.19354346
+                + z2 * (-0.11643287 + z2 * (0.05265332 + z2 * -0.01172120)))));
+
+        if (swap) r = Math.PI * 0.5 - r;
+        if (x < 0) r = Math.PI - r;
+        return y < 0 ? -r : r;
+    }
 }
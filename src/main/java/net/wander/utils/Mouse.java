@@ -125,14 +125,10 @@ public class Mouse extends MouseAdapter implements MouseMotionListener {
         return dx * dx + dy * dy <= radius * radius;
     }
 
-    /** Наведена ли мышь на объект с хитбоксом MouseTarget? */
+    /** Наведена ли мышь на объект (MouseTarget.contains: дочерний GameObject — с учётом родителя)? */
     public static boolean isHover(MouseTarget target) {
         if (target == null) return false;
-        double x1 = target.getX();
-        double y1 = target.getY();
-        double x2 = x1 + target.getWidth();
-        double y2 = y1 + target.getHeight();
-        return isHoverRect(x1, y1, x2, y2);
+        return target.contains(getX(), getY());
     }
 
     // ====== Клик по области / объекту ======
@@ -9,4 +9,13 @@ public interface MouseTarget {
     abstract double getY();
     abstract double getWidth();
     abstract double getHeight();
+
+    /**
+     * Попадает ли точка (в координатах мыши) в цель. По умолчанию — прямоугольник
+     * getX/getY/getWidth/getHeight; переопредели для цели со своей системой координат.
+     */
+    default boolean contains(double px, double py) {
+        return px >= getX() && px <= getX() + getWidth()
+                && py >= getY() && py <= getY() + getHeight();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,544 @@
+package net.wander.utils;
+
+import net.wander.utils.asset.AssetPack;
+
+import javax.sound.sampled.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Потоковая музыка для длинных треков.
+ * В отличие от Sound не грузит весь файл в Clip, а читает его кусками
+ * в небольшой буфер и отдаёт в SourceDataLine из отдельного потока.
+ *
+ * Поддерживает:
+ *  - play() / pause() / stop()
+ *  - бесшовный луп (setLooping)
+ *  - громкость и плавные переходы (setVolume, fadeTo, crossfadeTo)
+ *  - перемотку seek(sec) без перезагрузки трека
+ *
+ * PCM WAV 16 бит отображается в память (FileChannel.map) и читается напрямую,
+ * остальные форматы декодируются через AudioSystem по ходу проигрывания.
+ * Из архива ассетов (AssetPack) — так же, срезом уже отображённого архива.
+ */
+public class Music {
+
+    // сколько кадров читаем за один раз
+    private static final int CHUNK_FRAMES = 2048;
+    // размер буфера линии в секундах (чем меньше, тем быстрее реакция на seek/fade)
+    private static final double LINE_BUFFER_SEC = 0.2;
+
+    // особые результаты nextChunk
+    static final int END = -1;         // трек кончился (без лупа)
+    static final int FADED_OUT = -2;   // fadeOut закончился, трек остановлен
+
+    /** Откуда брать аудиолинию (тесты подставляют линию без звукового устройства). */
+    interface LineOpener {
+        SourceDataLine open(AudioFormat format) throws LineUnavailableException;
+    }
+
+    private final String path;            // путь к файлу или имя в архиве
+    private final AssetPack pack;         // null — обычный файл
+    private final AudioFormat format;     // всегда PCM_SIGNED 16 бит little-endian
+    private final int frameSize;
+    private final ByteBuffer mapped;      // данные "data" из WAV (отображённые в память), либо null
+    private final long totalFrames;       // -1, если длина неизвестна
+    private final LineOpener lines;
+
+    private AudioInputStream stream;      // декодер, если файл не отображён в память
+    private long framePos = 0;            // текущая позиция (в кадрах)
+
+    private SourceDataLine line;
+    private Thread thread;
+
+    private volatile boolean playing   = false;
+    private volatile boolean paused    = false;
+    private volatile boolean looping   = false;
+    private volatile boolean destroyed = false;
+    private volatile long seekRequest  = -1;
+
+    // громкость и затухание (меняется под локом, читается потоком проигрывания);
+    // fadeOut глушит трек до нуля, а после остановки возвращает громкость restoreVolume
+    private double volume = 1.0;
+    private double fadeTarget = 1.0;
+    private long fadeFramesLeft = 0;
+    private boolean stopAfterFade = false;
+    private double restoreVolume = 1.0;
+
+    /**
+     * @param path путь до музыкального файла (лучше .wav PCM 16 бит)
+     */
+    public Music(String path) {
+        this(null, path);
+    }
+
+    /**
+     * Музыка из архива ассетов.
+     * @param pack архив (null — name считается путём к файлу)
+     * @param name имя внутри архива (например, "music/theme.wav")
+     */
+    public Music(AssetPack pack, String name) {
+        this(pack, name, AudioSystem::getSourceDataLine);
+    }
+
+    Music(AssetPack pack, String name, LineOpener lines) {
+        this.path = name;
+        this.pack = pack;
+        this.lines = lines;
+        try {
+            ByteBuffer wav = pack != null ? pack.getBuffer(name) : mapFile(new File(name));
+            ByteBuffer m = findPcmWavData(wav);
+
+            if (m != null) {
+                this.mapped = m;
+                this.format = readWavFormat(wav);
+                this.frameSize = format.getFrameSize();
+                this.totalFrames = m.capacity() / frameSize;
+            } else {
+                AudioInputStream in = openDecoded();
+                this.mapped = null;
+                this.stream = in;
+                this.format = in.getFormat();
+                this.frameSize = format.getFrameSize();
+                this.totalFrames = in.getFrameLength() == AudioSystem.NOT_SPECIFIED ? -1 : in.getFrameLength();
+            }
+        } catch (UnsupportedAudioFileException | IOException e) {
+            throw new RuntimeException("Не удалось загрузить музыку: " + path, e);
+        }
+    }
+
+    // ================== УПРАВЛЕНИЕ ==================
+
+    /** Начать (или продолжить после pause) проигрывание. */
+    public synchronized void play() {
+        if (destroyed) return;
+        if (playing) {
+            paused = false;
+            if (line != null) line.start();
+            return;
+        }
+        try {
+            line = lines.open(format);
+            int bufferBytes = (int) (format.getFrameRate() * LINE_BUFFER_SEC) * frameSize;
+            line.open(format, bufferBytes);
+            line.start();
+        } catch (LineUnavailableException e) {
+            throw new RuntimeException("Не удалось открыть аудиолинию для: " + path, e);
+        }
+        playing = true;
+        paused = false;
+        thread = new Thread(this::streamLoop, "Music-" + new File(path).getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Поставить на паузу (позиция сохраняется). */
+    public synchronized void pause() {
+        if (!playing) return;
+        paused = true;
+        if (line != null) line.stop();
+    }
+
+    /** Остановить и вернуться в начало трека. */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            if (stopAfterFade) finishFadeOut();
+            if (!playing) {
+                seekRequest = 0;
+                return;
+            }
+            playing = false;
+            paused = false;
+            t = thread;
+            if (line != null) {
+                line.stop();
+                line.flush();
+            }
+        }
+        joinQuietly(t);
+        synchronized (this) {
+            seekRequest = 0;
+        }
+    }
+
+    /** Играет ли сейчас музыка (пауза не считается). */
+    public boolean isPlaying() {
+        return playing && !paused;
+    }
+
+    public boolean isLooping() {
+        return looping;
+    }
+
+    /** Зациклить трек. Переход с конца на начало без паузы. */
+    public void setLooping(boolean looping) {
+        this.looping = looping;
+    }
+
+    /** Длина трека в секундах (или -1, если неизвестна). */
+    public double getDuration() {
+        if (totalFrames < 0) return -1;
+        return totalFrames / (double) format.getFrameRate();
+    }
+
+    /** Текущая позиция в секундах. */
+    public synchronized double getPosition() {
+        long pos = seekRequest >= 0 ? seekRequest : framePos;
+        return pos / (double) format.getFrameRate();
+    }
+
+    /** Перемотать на позицию в секундах. Трек не перезагружается. */
+    public synchronized void seek(double sec) {
+        long frame = (long) (Math.max(0.0, sec) * format.getFrameRate());
+        if (totalFrames > 0 && frame >= totalFrames) frame = totalFrames - 1;
+        seekRequest = frame;
+        if (line != null) line.flush();
+    }
+
+    // ================== ГРОМКОСТЬ ==================
+
+    public synchronized double getVolume() {
+        return volume;
+    }
+
+    /** Громкость, к которой идёт текущее затухание (у fadeOut — та, что вернётся после остановки). */
+    synchronized double getTargetVolume() {
+        if (stopAfterFade) return restoreVolume;
+        return fadeFramesLeft > 0 ? fadeTarget : volume;
+    }
+
+    /** Громкость в линейной шкале 0..1. Отменяет текущее затухание. */
+    public synchronized void setVolume(double volume) {
+        this.volume = clampVolume(volume);
+        this.fadeTarget = this.volume;
+        this.fadeFramesLeft = 0;
+        this.stopAfterFade = false;
+    }
+
+    /** Плавно изменить громкость до target за seconds секунд. */
+    public void fadeTo(double target, double seconds) {
+        fadeTo(target, seconds, false);
+    }
+
+    /**
+     * Плавно заглушить и остановить. Как и stop(), возвращает трек в начало;
+     * громкость после остановки — та, что была до затухания.
+     */
+    public void fadeOut(double seconds) {
+        fadeTo(0.0, seconds, true);
+    }
+
+    /**
+     * Кроссфейд: этот трек затухает и останавливается,
+     * next начинает играть с нуля громкости и выходит на свою громкость
+     * (если next сам недавно затух через fadeOut — на громкость до затухания).
+     */
+    public void crossfadeTo(Music next, double seconds) {
+        if (next == null || next == this) return;
+        double nextVolume = next.getTargetVolume();
+        next.setVolume(0.0);
+        next.play();
+        next.fadeTo(nextVolume, seconds);
+        fadeOut(seconds);
+    }
+
+    private synchronized void fadeTo(double target, double seconds, boolean stopAfter) {
+        if (stopAfter && !stopAfterFade) {
+            if (!playing) {
+                seekRequest = 0;   // глушить нечего — просто остановлен
+                return;
+            }
+            restoreVolume = getTargetVolume();
+        }
+        this.fadeTarget = clampVolume(target);
+        this.fadeFramesLeft = Math.max(1L, (long) (seconds * format.getFrameRate()));
+        this.stopAfterFade = stopAfter;
+    }
+
+    /**
+     * Освободить ресурсы. После destroy() использовать объект нельзя.
+     */
+    public void destroy() {
+        if (destroyed) return;
+        stop();
+        synchronized (this) {
+            destroyed = true;
+            closeQuietly(stream);
+            stream = null;
+        }
+    }
+
+    // ================== ПОТОК ПРОИГРЫВАНИЯ ==================
+
+    private void streamLoop() {
+        byte[] chunk = new byte[CHUNK_FRAMES * frameSize];
+        SourceDataLine l = line;
+        boolean finished = false;
+
+        try {
+            while (playing) {
+                if (paused) {
+                    Thread.sleep(10);
+                    continue;
+                }
+
+                int read = nextChunk(chunk);
+                if (read == END) {
+                    finished = true;
+                    break;
+                }
+                if (read == FADED_OUT) break;
+                l.write(chunk, 0, read);
+            }
+            if (finished) l.drain();
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения музыки " + path + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            l.stop();
+            l.flush();
+            l.close();
+            synchronized (this) {
+                if (line == l) line = null;
+                if (thread == Thread.currentThread()) {
+                    playing = false;
+                    paused = false;
+                    thread = null;
+                }
+                if (finished && seekRequest < 0) seekRequest = 0;
+            }
+        }
+    }
+
+    /**
+     * Следующий кусок для линии: перемотка, чтение, луп и громкость.
+     * @return число байт в chunk, END или FADED_OUT
+     */
+    int nextChunk(byte[] chunk) throws IOException {
+        while (true) {
+            long seek;
+            synchronized (this) {
+                seek = seekRequest;
+                seekRequest = -1;
+            }
+            if (seek >= 0) seekTo(seek);
+
+            int read = readFrames(chunk);
+            if (read <= 0) {
+                // пустой трек в лупе не крутим вхолостую
+                if (looping && framePos > 0) {
+                    seekTo(0);
+                    continue;
+                }
+                return END;
+            }
+            return applyGain(chunk, read) ? FADED_OUT : read;
+        }
+    }
+
+    /** Прочитать до chunk.length байт из текущей позиции. Возвращает число байт. */
+    private int readFrames(byte[] chunk) throws IOException {
+        if (mapped != null) {
+            long framesLeft = totalFrames - framePos;
+            if (framesLeft <= 0) return 0;
+            int frames = (int) Math.min(framesLeft, chunk.length / frameSize);
+            int bytes = frames * frameSize;
+            mapped.get((int) (framePos * frameSize), chunk, 0, bytes);
+            framePos += frames;
+            return bytes;
+        }
+
+        int total = 0;
+        while (total < chunk.length) {
+            int n = stream.read(chunk, total, chunk.length - total);
+            if (n < 0) break;
+            total += n;
+        }
+        total -= total % frameSize;
+        framePos += total / frameSize;
+        return total;
+    }
+
+    private void seekTo(long frame) throws IOException {
+        if (mapped != null) {
+            framePos = frame;
+            return;
+        }
+        // у декодера нет произвольного доступа: переоткрываем поток и пропускаем кадры
+        if (frame < framePos || stream == null) {
+            closeQuietly(stream);
+            try {
+                stream = openDecoded();
+            } catch (UnsupportedAudioFileException e) {
+                throw new IOException(e);
+            }
+            framePos = 0;
+        }
+        long toSkip = (frame - framePos) * frameSize;
+        while (toSkip > 0) {
+            long n = stream.skip(toSkip);
+            if (n <= 0) break;
+            toSkip -= n;
+        }
+        framePos = frame - toSkip / frameSize;
+    }
+
+    /**
+     * Применить громкость/затухание к PCM 16 бит LE.
+     * @return true, если затухание с остановкой закончилось
+     */
+    private boolean applyGain(byte[] buf, int bytes) {
+        double from, to;
+        long frames = bytes / frameSize;
+        boolean stopNow = false;
+
+        synchronized (this) {
+            from = volume;
+            if (fadeFramesLeft > 0) {
+                long step = Math.min(frames, fadeFramesLeft);
+                to = volume + (fadeTarget - volume) * step / fadeFramesLeft;
+                fadeFramesLeft -= step;
+                if (fadeFramesLeft == 0) {
+                    to = fadeTarget;
+                    stopNow = stopAfterFade;
+                }
+            } else {
+                to = volume;
+            }
+            volume = to;
+            if (stopNow) {
+                // кусок уже не прозвучит; playing снимаем под локом, чтобы play() сразу после
+                // затухания запустил трек заново, а не застал уходящий поток
+                finishFadeOut();
+                playing = false;
+                paused = false;
+            }
+        }
+
+        if (from == 1.0 && to == 1.0) return stopNow;
+
+        int channels = format.getChannels();
+        for (int f = 0; f < frames; f++) {
+            double gain = MathUtil.lerp(from, to, (double) f / frames);
+            int base = f * frameSize;
+            for (int c = 0; c < channels; c++) {
+                int i = base + c * 2;
+                int s = (short) ((buf[i + 1] << 8) | (buf[i] & 0xff));
+                s = (int) (s * gain);
+                if (s > Short.MAX_VALUE) s = Short.MAX_VALUE;
+                if (s < Short.MIN_VALUE) s = Short.MIN_VALUE;
+                buf[i]     = (byte) s;
+                buf[i + 1] = (byte) (s >> 8);
+            }
+        }
+        return stopNow;
+    }
+
+    // ====== Внутренние вспомогательные методы ======
+
+    /** fadeOut закончен (или прерван stop()): громкость как до затухания, позиция — начало. */
+    private void finishFadeOut() {
+        volume = restoreVolume;
+        fadeTarget = restoreVolume;
+        fadeFramesLeft = 0;
+        stopAfterFade = false;
+        seekRequest = 0;
+    }
+
+    /** Открыть файл (или ассет) и привести к PCM_SIGNED 16 бит little-endian. */
+    private AudioInputStream openDecoded() throws UnsupportedAudioFileException, IOException {
+        AudioInputStream in = pack != null ? pack.openAudio(path) : AudioSystem.getAudioInputStream(new File(path));
+        AudioFormat base = in.getFormat();
+        AudioFormat target = pcm16(base.getSampleRate(), base.getChannels());
+        if (base.matches(target)) return in;
+        return AudioSystem.getAudioInputStream(target, in);
+    }
+
+    private static AudioFormat pcm16(float sampleRate, int channels) {
+        return new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                sampleRate, 16, channels, channels * 2, sampleRate, false);
+    }
+
+    /** Отобразить файл в память целиком (страницы подгружаются по мере чтения). */
+    private static ByteBuffer mapFile(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) return ByteBuffer.allocate(0); // не WAV для нас — декодируем потоком
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    static AudioFormat readWavFormat(ByteBuffer wav) {
+        ByteBuffer b = wav.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int fmt = (int) findChunk(b, "fmt ")[0];
+        int channels = b.getShort(fmt + 2);
+        int sampleRate = b.getInt(fmt + 4);
+        return pcm16(sampleRate, channels);
+    }
+
+    /** Срез блока "data", если WAV — PCM 16 бит, иначе null. */
+    static ByteBuffer findPcmWavData(ByteBuffer wav) {
+        ByteBuffer b = wav.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (b.capacity() < 12) return null;
+        if (b.getInt(0) != 0x46464952) return null; // "RIFF"
+        if (b.getInt(8) != 0x45564157) return null; // "WAVE"
+
+        long[] fmtChunk = findChunk(b, "fmt ");
+        long[] dataChunk = findChunk(b, "data");
+        if (fmtChunk == null || dataChunk == null || fmtChunk[1] < 16) return null;
+        if (fmtChunk[0] + 16 > b.capacity()) return null;
+
+        int fmt = (int) fmtChunk[0];
+        int audioFormat = b.getShort(fmt);
+        int bits = b.getShort(fmt + 14);
+        if (audioFormat != 1 || bits != 16) return null;
+
+        int start = (int) dataChunk[0];
+        int length = (int) Math.min(dataChunk[1], b.capacity() - dataChunk[0]);
+        b.limit(start + length);
+        b.position(start);
+        return b.slice();
+    }
+
+    /** Найти RIFF-блок по id: {offset данных, длина} или null. */
+    static long[] findChunk(ByteBuffer b, String id) {
+        int want = id.charAt(0) | id.charAt(1) << 8 | id.charAt(2) << 16 | id.charAt(3) << 24;
+        long pos = 12;
+        long size = b.capacity();
+        while (pos + 8 <= size) {
+            int name = b.getInt((int) pos);
+            long len = b.getInt((int) pos + 4) & 0xffffffffL;
+            if (name == want) {
+                return new long[]{pos + 8, len};
+            }
+            pos += 8 + len + (len & 1); // блоки выровнены по 2 байта
+        }
+        return null;
+    }
+
+    private static double clampVolume(double v) {
+        if (v < 0.0) return 0.0;
+        return Math.min(v, 4.0);
+    }
+
+    private static void joinQuietly(Thread t) {
+        if (t == null || t == Thread.currentThread()) return;
+        try {
+            t.join(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(AudioInputStream in) {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException ignored) {}
+    }
+}
@@ -1,21 +1,69 @@
 package net.wander.utils;
 
 import net.wander.objects.GameObject;
+import net.wander.utils.camera.Viewport;
+import net.wander.utils.path.Pathfinder;
+import net.wander.utils.render.CommandRenderer;
+import net.wander.utils.render.FrameBuffer;
 
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Одна сцена (уровень/меню и т.п.).
  * Хранит список GameObject и умеет их апдейтить/рисовать.
+ *
+ * Дочерние объекты (GameObject.addChild) в списке сцены не лежат — их апдейтит и рисует корень.
+ *
+ * Апдейт идёт в порядке добавления, отрисовка — по слоям (GameObject.getLayer, больше — выше),
+ * внутри слоя — в порядке добавления. Объект, сменивший слой, встаёт на край нового слоя:
+ * поднятый — первым, опущенный — последним. Порядок отрисовки поддерживается инкрементально,
+ * без сортировки каждый кадр.
+ *
+ * Можно добавить несколько вьюпортов (сплит-скрин, мини-карта):
+ * тогда видимость объектов считается один раз за кадр для всех вьюпортов,
+ * а каждый вьюпорт рисует только свои объекты в своей области экрана.
  */
 public class Scene {
 
     private final String name;
     private final List<GameObject> objects = new ArrayList<>();
 
+    // те же объекты, отсортированные по слою (стабильно)
+    private final List<GameObject> renderOrder = new ArrayList<>();
+    private final List<GameObject> renderOrderView = Collections.unmodifiableList(renderOrder);
+    private boolean renderOrderDirty = false;
+    // кто-то из объектов вызвал destroy() — убрать в конце update()
+    private boolean hasDestroyed = false;
+
+    // таймеры сцены: тикают только пока сцену апдейтят
+    private final Scheduler scheduler = new Scheduler();
+    // твины сцены (UI, камера, фейды)
+    private final Tweens tweens = new Tweens();
+    // апдейты объектов с бюджетом кадра
+    private final UpdateScheduler updateScheduler = new UpdateScheduler();
+    // копия списка объектов на время update (переиспользуется, чтобы не мусорить)
+    private GameObject[] updating = new GameObject[64];
+    private long frameStart = 0;
+    // поиск пути (необязательно)
+    private Pathfinder pathfinder;
+    // отрисовка через записанные команды (необязательно)
+    private CommandRenderer commandRenderer;
+
+    // ===== ВЬЮПОРТЫ =====
+    private static final int MAX_VIEWPORTS = 32; // по биту на вьюпорт в маске
+    private final List<Viewport> viewports = new ArrayList<>();
+
+    // видимые в этом кадре объекты + маска "в каких вьюпортах виден" (переиспользуются)
+    private GameObject[] visible = new GameObject[64];
+    private int[] visibleMask = new int[64];
+    private int visibleCount = 0;
+
     // движок, которому эта сцена принадлежит
     private SimpleGame game;
 
@@ -37,14 +85,77 @@ public class Scene {
 
     /** Добавить объект на сцену. */
     public void addObject(GameObject obj) {
-        if (obj != null) {
-            objects.add(obj);
+        if (obj == null) return;
+        if (obj.getScene() == this && objects.contains(obj)) return;
+
+        objects.add(obj);
+        obj.setScene(this);
+        if (obj.isDestroyed()) hasDestroyed = true;
+
+        if (renderOrderDirty) {
+            renderOrder.add(obj);   // всё равно пересортируем
+        } else {
+            renderOrder.add(upperBound(obj.getLayer()), obj);
         }
     }
 
     /** Удалить объект со сцены. */
     public void removeObject(GameObject obj) {
-        objects.remove(obj);
+        if (obj == null) return;
+        if (objects.remove(obj)) {
+            renderOrder.remove(obj);
+            if (obj.getScene() == this) obj.setScene(null);
+        }
+    }
+
+    /** Вызывается объектом при смене слоя. */
+    public void invalidateRenderOrder() {
+        renderOrderDirty = true;
+    }
+
+    /** Вызывается объектом из destroy(). */
+    public void objectDestroyed() {
+        hasDestroyed = true;
+    }
+
+    /**
+     * Таймеры и отложенные вызовы этой сцены.
+     * Пока сцена не текущая (её не апдейтят), таймеры стоят.
+     */
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /** Твины этой сцены: обновляются одним проходом в update(). */
+    public Tweens getTweens() {
+        return tweens;
+    }
+
+    /** Планировщик апдейтов: интервалы, приоритеты, бюджет кадра. */
+    public UpdateScheduler getUpdateScheduler() {
+        return updateScheduler;
+    }
+
+    /** Поиск пути этой сцены (null, если не задан). */
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    /** Подключить поиск пути: сцена будет применять его фоновые результаты каждый кадр. */
+    public void setPathfinder(Pathfinder pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+
+    public CommandRenderer getCommandRenderer() {
+        return commandRenderer;
+    }
+
+    /**
+     * Рисовать сцену через записанные команды (параллельная запись, сортировка по слою).
+     * null — обычная отрисовка через render(g). Вьюпорты всегда рисуются обычным способом.
+     */
+    public void setCommandRenderer(CommandRenderer commandRenderer) {
+        this.commandRenderer = commandRenderer;
     }
 
     /** Прочитать список объектов (только для чтения). */
@@ -52,6 +163,35 @@ public class Scene {
         return Collections.unmodifiableList(objects);
     }
 
+    // ================== ВЬЮПОРТЫ ==================
+
+    /** Добавить вьюпорт. Если вьюпортов нет, сцена рисуется как раньше — напрямую. */
+    public void addViewport(Viewport viewport) {
+        if (viewport == null || viewports.contains(viewport)) return;
+        if (viewports.size() >= MAX_VIEWPORTS) {
+            throw new IllegalStateException("Scene supports at most " + MAX_VIEWPORTS + " viewports");
+        }
+        viewports.add(viewport);
+    }
+
+    public void removeViewport(Viewport viewport) {
+        viewports.remove(viewport);
+    }
+
+    /** Список вьюпортов (только для чтения). */
+    public List<Viewport> getViewports() {
+        return Collections.unmodifiableList(viewports);
+    }
+
+    /**
+     * Забыть начало незавершённого кадра (вызывает движок, когда сцена становится текущей):
+     * фоновые тики не рисуются, и без сброса первый render посчитал бы весь промежуток
+     * с последнего фонового тика одним огромным кадром.
+     */
+    void resetFrameTiming() {
+        frameStart = 0;
+    }
+
     /** Вызывается движком при входе на сцену. */
     public void onEnter() {
     }
@@ -62,18 +202,189 @@ public class Scene {
 
     /** Обновление логики всех объектов сцены. */
     public void update(double dt) {
+        frameStart = System.nanoTime();
+        scheduler.update(dt);
+        tweens.update(dt);
+        if (pathfinder != null) {
+            pathfinder.update();
+        }
+
         // Копия списка на случай, если внутри update кто‑то будет добавлять/удалять объекты
-        List<GameObject> snapshot = new ArrayList<>(objects);
-        for (GameObject obj : snapshot) {
-            obj.update(dt);
+        int count = objects.size();
+        updating = objects.toArray(updating);
+        updateScheduler.update(updating, count, dt);
+        Arrays.fill(updating, 0, count, null);
+
+        if (hasDestroyed) {
+            purgeDestroyed();
         }
     }
 
     /** Отрисовка всех объектов сцены. */
     public void render(Graphics2D g) {
-        for (GameObject obj : objects) {
-            obj.render(g);
+        if (updateScheduler.getQualityLevel() > 0) {
+            applyFastHints(g);
+        }
+
+        List<GameObject> ordered = getRenderOrder();
+        if (!viewports.isEmpty()) {
+            renderViewports(g, ordered);
+        } else if (commandRenderer != null) {
+            commandRenderer.render(g, ordered);
+        } else {
+            renderObjects(g, ordered);
+        }
+
+        if (frameStart != 0) {
+            updateScheduler.reportFrame(System.nanoTime() - frameStart);
+            frameStart = 0;
+        }
+    }
+
+    /**
+     * Отрисовка в программный кадр: render(FrameBuffer) всех видимых объектов по слоям.
+     * Вьюпорты и дети объектов здесь не учитываются.
+     */
+    public void render(FrameBuffer fb) {
+        List<GameObject> ordered = getRenderOrder();
+        for (int i = 0, n = ordered.size(); i < n; i++) {
+            GameObject obj = ordered.get(i);
+            if (obj.isVisible()) obj.render(fb);
+        }
+    }
+
+    /** Прямая отрисовка корней; трансформация g копируется один раз на кадр, только если есть иерархии. */
+    private static void renderObjects(Graphics2D g, List<GameObject> ordered) {
+        AffineTransform base = null;
+        for (int i = 0, n = ordered.size(); i < n; i++) {
+            GameObject obj = ordered.get(i);
+            if (!obj.isVisible()) continue;
+            if (obj.hasChildren()) {
+                if (base == null) base = g.getTransform();
+                obj.renderTree(g, base);
+            } else {
+                obj.render(g);
+            }
+        }
+    }
+
+    /** При перегрузке рисуем быстрее, но грубее. */
+    private static void applyFastHints(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
+    }
+
+    /** Объекты в порядке отрисовки (по слоям), только для чтения. */
+    public List<GameObject> getRenderOrder() {
+        if (renderOrderDirty) {
+            sortRenderOrder();
+        }
+        return renderOrderView;
+    }
+
+    // ================== ПОРЯДОК ОТРИСОВКИ ==================
+
+    /**
+     * Стабильная сортировка вставками по слою.
+     * Обычно меняют слой единицы объектов, список почти отсортирован — это O(n).
+     */
+    private void sortRenderOrder() {
+        for (int i = 1, n = renderOrder.size(); i < n; i++) {
+            GameObject obj = renderOrder.get(i);
+            int layer = obj.getLayer();
+            int j = i - 1;
+            while (j >= 0 && renderOrder.get(j).getLayer() > layer) {
+                renderOrder.set(j + 1, renderOrder.get(j));
+                j--;
+            }
+            renderOrder.set(j + 1, obj);
+        }
+        renderOrderDirty = false;
+    }
+
+    /** Позиция после последнего объекта со слоем <= layer. */
+    private int upperBound(int layer) {
+        int lo = 0, hi = renderOrder.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (renderOrder.get(mid).getLayer() <= layer) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void purgeDestroyed() {
+        hasDestroyed = false;
+        objects.removeIf(GameObject::isDestroyed);
+        renderOrder.removeIf(GameObject::isDestroyed);
+    }
+
+    /**
+     * Рисует сцену во все вьюпорты.
+     * Один проход по объектам строит общий видимый набор с маской вьюпортов,
+     * дальше каждый вьюпорт рисует только объекты со своим битом.
+     */
+    private void renderViewports(Graphics2D g, List<GameObject> ordered) {
+        int redrawMask = 0;
+        for (int i = 0; i < viewports.size(); i++) {
+            Viewport vp = viewports.get(i);
+            if (vp.isEnabled() && vp.beginFrame()) redrawMask |= 1 << i;
+        }
+
+        visibleCount = 0;
+        if (redrawMask != 0) {
+            for (int k = 0, n = ordered.size(); k < n; k++) {
+                GameObject obj = ordered.get(k);
+                if (!obj.isVisible()) continue;
+                int mask = 0;
+                for (int i = 0; i < viewports.size(); i++) {
+                    if ((redrawMask & (1 << i)) != 0 && viewports.get(i).isVisible(
+                            obj.getX(), obj.getY(), obj.getWidth(), obj.getHeight())) {
+                        mask |= 1 << i;
+                    }
+                }
+                if (mask != 0) addVisible(obj, mask);
+            }
+        }
+
+        for (int i = 0; i < viewports.size(); i++) {
+            Viewport vp = viewports.get(i);
+            if (!vp.isEnabled()) continue;
+            int bit = 1 << i;
+            if ((redrawMask & bit) == 0) {
+                vp.present(g);
+                continue;
+            }
+            Graphics2D vg = vp.begin(g);
+            AffineTransform base = null;
+            for (int k = 0; k < visibleCount; k++) {
+                if ((visibleMask[k] & bit) == 0) continue;
+                GameObject obj = visible[k];
+                if (obj.hasChildren()) {
+                    if (base == null) base = vg.getTransform();
+                    obj.renderTree(vg, base);
+                } else {
+                    obj.render(vg);
+                }
+            }
+            vp.end(g, vg);
+        }
+
+        // не держим ссылки на объекты между кадрами
+        Arrays.fill(visible, 0, visibleCount, null);
+    }
+
+    private void addVisible(GameObject obj, int mask) {
+        if (visibleCount == visible.length) {
+            visible = Arrays.copyOf(visible, visibleCount * 2);
+            visibleMask = Arrays.copyOf(visibleMask, visibleCount * 2);
         }
+        visible[visibleCount] = obj;
+        visibleMask[visibleCount] = mask;
+        visibleCount++;
     }
 
     /** Удобный метод: перейти на другую сцену по имени. */
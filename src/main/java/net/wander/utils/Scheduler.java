@@ -0,0 +1,231 @@
+package net.wander.utils;
+
+/**
+ * Планировщик таймеров и отложенных вызовов (иерархическое "колесо времени").
+ *
+ * Использование (обычно через scene.getScheduler()):
+ *   Scheduler.Timer t = scheduler.after(2.0, () -> spawnBoss());   // один раз через 2 сек
+ *   scheduler.every(0.5, () -> shoot());                           // каждые 0.5 сек
+ *   t.cancel();                                                    // отменить
+ *
+ * Точность — 1 мс. Постановка и отмена таймера — O(1), за тик обрабатываются
+ * только таймеры, которые сработали (плюс редкий перенос с верхних уровней колеса).
+ * Время идёт только пока вызывается update(dt): сцену не апдейтят — таймеры стоят.
+ */
+public class Scheduler {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS     = 1 << SLOT_BITS;   // 64 слота на уровень
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS    = 4;                // 64^4 мс ≈ 4.6 часа, дальше — перекладываем
+
+    // heads[level][slot] — голова двусвязного списка таймеров в слоте
+    private final Timer[][] heads = new Timer[LEVELS][SLOTS];
+
+    private long now = 0;          // текущее время в тиках (мс)
+    private double accMs = 0.0;    // накопленная дробная часть
+    private int size = 0;          // сколько таймеров запланировано
+    private boolean paused = false;
+
+    // ================== ПУБЛИЧНОЕ API ==================
+
+    /** Вызвать action один раз через seconds секунд. */
+    public Timer after(double seconds, Runnable action) {
+        return schedule(toTicks(seconds), 0, action);
+    }
+
+    /** Вызывать action каждые period секунд (первый раз — через period). */
+    public Timer every(double period, Runnable action) {
+        return every(period, period, action);
+    }
+
+    /** Вызывать action каждые period секунд, первый раз — через delay. */
+    public Timer every(double delay, double period, Runnable action) {
+        return schedule(toTicks(delay), Math.max(1L, toTicks(period)), action);
+    }
+
+    /** Продвинуть время на dt секунд и вызвать сработавшие таймеры. */
+    public void update(double dt) {
+        if (paused || dt <= 0) return;
+        accMs += dt * 1000.0;
+        long ticks = (long) accMs;
+        accMs -= ticks;
+
+        if (size == 0) {
+            // ничего не запланировано — просто сдвигаем время
+            now += ticks;
+            return;
+        }
+        for (long i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /** Поставить все таймеры на паузу / продолжить. */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /** Отменить все таймеры. */
+    public void cancelAll() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer t = heads[level][slot];
+                heads[level][slot] = null;
+                while (t != null) {
+                    Timer next = t.next;
+                    t.prev = t.next = null;
+                    t.owner = null;
+                    t = next;
+                }
+            }
+        }
+        size = 0;
+    }
+
+    /** Сколько таймеров сейчас запланировано. */
+    public int size() {
+        return size;
+    }
+
+    /** Время планировщика в секундах (сколько "натикало"). */
+    public double getTime() {
+        return (now + accMs) / 1000.0;
+    }
+
+    // ================== ТАЙМЕР ==================
+
+    /** Хэндл запланированного вызова. */
+    public static final class Timer {
+        private final Runnable action;
+        private final long period;   // 0 = одноразовый
+        private long due;            // тик срабатывания
+
+        private Scheduler owner;     // null, если не запланирован
+        private int level;
+        private int slot;
+        private Timer prev;
+        private Timer next;
+
+        private Timer(Runnable action, long period) {
+            this.action = action;
+            this.period = period;
+        }
+
+        /** Отменить. Повторный вызов ничего не делает. */
+        public void cancel() {
+            if (owner != null) {
+                owner.unlink(this);
+                owner.size--;
+                owner = null;
+            }
+        }
+
+        /** Таймер ещё ждёт срабатывания? */
+        public boolean isActive() {
+            return owner != null;
+        }
+
+        public boolean isRepeating() {
+            return period > 0;
+        }
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private Timer schedule(long delayTicks, long periodTicks, Runnable action) {
+        if (action == null) throw new IllegalArgumentException("action is null");
+        Timer t = new Timer(action, periodTicks);
+        // минимум 1 тик: текущий слот уже обработан
+        t.due = now + Math.max(1L, delayTicks);
+        t.owner = this;
+        size++;
+        place(t);
+        return t;
+    }
+
+    private static long toTicks(double seconds) {
+        return Math.round(seconds * 1000.0);
+    }
+
+    /** Положить таймер в нужный уровень/слот по оставшемуся времени. */
+    private void place(Timer t) {
+        long delta = t.due - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        long due = t.due;
+        if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // слишком далеко: кладём в самый дальний слот верхнего уровня, потом переложим
+            due = now + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int slot = (int) (due >>> (SLOT_BITS * level)) & SLOT_MASK;
+
+        t.level = level;
+        t.slot = slot;
+        t.prev = null;
+        t.next = heads[level][slot];
+        if (t.next != null) t.next.prev = t;
+        heads[level][slot] = t;
+    }
+
+    private void unlink(Timer t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            heads[t.level][t.slot] = t.next;
+        }
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = t.next = null;
+    }
+
+    /** Один тик (1 мс). */
+    private void tick() {
+        now++;
+
+        // на границах оборота переносим таймеры с верхних уровней вниз
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            long mask = (1L << (SLOT_BITS * level)) - 1;
+            if ((now & mask) == 0) {
+                cascade(level, (int) (now >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+        }
+
+        // снимаем по одному с головы: колбэк может отменить соседний таймер из этого же слота
+        int slot = (int) now & SLOT_MASK;
+        Timer t;
+        while ((t = heads[0][slot]) != null) {
+            unlink(t);
+            if (t.due <= now) {
+                fire(t);
+            } else {
+                place(t);
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Timer t;
+        while ((t = heads[level][slot]) != null) {
+            unlink(t);
+            place(t);
+        }
+    }
+
+    private void fire(Timer t) {
+        if (t.period > 0) {
+            // следующий раз от планового времени, а не от "сейчас" — без дрейфа
+            t.due += t.period;
+            place(t);
+        } else {
+            t.owner = null;
+            size--;
+        }
+        t.action.run();
+    }
+}
@@ -1,6 +1,8 @@
 package net.wander.utils;
 
 import javax.swing.*;
+import net.wander.utils.render.FrameBuffer;
+
 import java.awt.*;
 import java.awt.image.BufferStrategy;
 import java.io.IOException;
@@ -10,15 +12,29 @@ import java.util.Map;
 public abstract class SimpleGame extends Canvas implements Runnable {
 
     private JFrame frame;
-    private boolean running = false;
+    private volatile boolean running = false;
     private final String title;
     private final int width;
     private final int height;
-    private Thread gameThread;
+    private volatile Thread gameThread;
 
     // ===== СЦЕНЫ =====
     private final Map<String, Scene> scenes = new HashMap<>();
     private Scene currentScene;
+    // переход, запрошенный во время кадра: выполняется после update()
+    private Scene pendingScene;
+
+    // сцены, которые живут в фоне, пока они не текущие: тикрейт и запущенная симуляция
+    private final Map<Scene, Double> backgroundRates = new HashMap<>();
+    private final Map<Scene, BackgroundSimulation> backgroundSims = new HashMap<>();
+
+    // программный кадр (необязательно), рисуется под Graphics2D;
+    // frameBufferWanted — запрошенное состояние, игровой поток применяет его между кадрами
+    private volatile FrameBuffer frameBuffer;
+    private volatile boolean frameBufferWanted;
+
+    // замер выделений памяти по кадрам (необязательно)
+    private volatile AllocationTracker allocationTracker;
 
     public SimpleGame(String title, int width, int height) {
         this.title = title;
@@ -60,16 +76,162 @@ public abstract class SimpleGame extends Canvas implements Runnable {
         gotoScene(next);
     }
 
-    /** Переход на сцену по ссылке. */
+    /**
+     * Переход на сцену по ссылке.
+     * Только из игрового потока. Во время игры переход выполняется на границе кадра —
+     * после того как update() текущей сцены закончился, до отрисовки.
+     */
     public void gotoScene(Scene next) {
         if (next == null) return;
+        checkGameThread("gotoScene");
+        if (gameThread == null) {
+            switchScene(next);   // игра ещё не запущена — сразу
+        } else {
+            pendingScene = next;
+        }
+    }
+
+    /** Выполнить отложенный переход (игровой поток, между кадрами). */
+    private void applyPendingScene() {
+        Scene next = pendingScene;
+        if (next == null) return;
+        pendingScene = null;
+        switchScene(next);
+    }
+
+    private void switchScene(Scene next) {
         if (next == currentScene) return;
 
-        if (currentScene != null) {
-            currentScene.onExit();
+        // сцена из фона становится текущей как есть, без перезагрузки
+        stopBackground(next);
+        next.resetFrameTiming();
+
+        Scene previous = currentScene;
+        if (previous != null) {
+            previous.onExit();
         }
         currentScene = next;
         currentScene.onEnter();
+
+        if (previous != null) {
+            startBackground(previous);
+        }
+    }
+
+    // --- фоновая симуляция ---
+
+    /**
+     * Продолжать апдейтить сцену в фоне, пока она не текущая.
+     * Каждая такая сцена тикает в своём потоке с частотой tickRate (раз в секунду)
+     * и не рисуется. При gotoScene(scene) фоновый поток останавливается и сцена
+     * продолжает жить в игровом потоке с того же состояния.
+     *
+     * Фоновая сцена работает параллельно с текущей — объекты разных сцен
+     * не должны трогать друг друга (и общие статические данные) без синхронизации.
+     * Из фоновой сцены нельзя вызывать gotoScene и setBackgroundSimulation (IllegalStateException):
+     * они только для игрового потока.
+     *
+     * Если update фоновой сцены бросит исключение, симуляция останавливается,
+     * а причина доступна через getBackgroundFailure(scene).
+     *
+     * @param tickRate 0 или меньше — выключить фоновую симуляцию
+     */
+    public void setBackgroundSimulation(Scene scene, double tickRate) {
+        if (scene == null) return;
+        checkGameThread("setBackgroundSimulation");
+        if (scenes.get(scene.getName()) != scene) {
+            throw new IllegalArgumentException("Scene is not registered: " + scene.getName());
+        }
+
+        stopBackground(scene);
+        if (tickRate > 0) {
+            backgroundRates.put(scene, tickRate);
+            if (scene != currentScene) startBackground(scene);
+        } else {
+            backgroundRates.remove(scene);
+        }
+    }
+
+    /** Тикает ли сцена сейчас в фоне (false, если её симуляция упала). */
+    public boolean isSimulatedInBackground(Scene scene) {
+        BackgroundSimulation sim = backgroundSims.get(scene);
+        return sim != null && sim.getFailure() == null;
+    }
+
+    /**
+     * Исключение, на котором остановилась фоновая симуляция сцены (null — не падала).
+     * Сбрасывается, когда сцена снова запускается в фоне или становится текущей.
+     */
+    public RuntimeException getBackgroundFailure(Scene scene) {
+        BackgroundSimulation sim = backgroundSims.get(scene);
+        return sim == null ? null : sim.getFailure();
+    }
+
+    private void startBackground(Scene scene) {
+        Double rate = backgroundRates.get(scene);
+        if (rate == null || backgroundSims.containsKey(scene)) return;
+        backgroundSims.put(scene, new BackgroundSimulation(scene, rate));
+    }
+
+    private void stopBackground(Scene scene) {
+        BackgroundSimulation sim = backgroundSims.remove(scene);
+        if (sim != null) sim.stop();
+    }
+
+    private void checkGameThread(String method) {
+        Thread t = gameThread;
+        if (t != null && t != Thread.currentThread()) {
+            throw new IllegalStateException(method + " must be called from the game thread");
+        }
+    }
+
+    private void stopAllBackground() {
+        for (BackgroundSimulation sim : backgroundSims.values()) {
+            sim.stop();
+        }
+        backgroundSims.clear();
+    }
+
+    // --- программный кадр ---
+
+    /**
+     * Включить программный кадр: каждый кадр объекты сначала рисуют в него
+     * (GameObject.render(FrameBuffer), параллельно по тайлам), он выводится одним drawImage,
+     * а поверх — обычный render(Graphics2D).
+     * Можно звать из любого потока. Во время игры переключение выполняется на границе кадра,
+     * поэтому кадр никогда не рисуется в уже остановленный буфер.
+     */
+    public void setFrameBufferEnabled(boolean enabled) {
+        frameBufferWanted = enabled;
+        if (!running) applyFrameBufferToggle();
+    }
+
+    private void applyFrameBufferToggle() {
+        boolean wanted = frameBufferWanted;
+        FrameBuffer fb = frameBuffer;
+        if (wanted == (fb != null)) return;
+        if (wanted) {
+            frameBuffer = new FrameBuffer(width, height);
+        } else {
+            frameBuffer = null;
+            fb.shutdown();
+        }
+    }
+
+    /** Программный кадр (null, если выключен; во время игры меняется только между кадрами). */
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    // --- диагностика ---
+
+    /** Считать выделения памяти игрового потока по фазам кадра и сценам (null — выключить). */
+    public void setAllocationTracker(AllocationTracker tracker) {
+        this.allocationTracker = tracker;
+    }
+
+    public AllocationTracker getAllocationTracker() {
+        return allocationTracker;
     }
 
     // ==========================
@@ -109,7 +271,12 @@ public abstract class SimpleGame extends Canvas implements Runnable {
 
         long last = System.nanoTime();
 
+        // run() можно вызвать и напрямую, без start(): цикл без окна (headless, тесты)
+        running = true;
+        gameThread = Thread.currentThread();
         init();
+        applyPendingScene();
+        applyFrameBufferToggle();
 
         if (currentScene == null) {
             throw new IllegalStateException("Game must have at least one Scene. Call addScene() in init().");
@@ -120,10 +287,18 @@ public abstract class SimpleGame extends Canvas implements Runnable {
             double dt = (now - last) / 1_000_000_000.0;
             last = now;
 
+            AllocationTracker tracker = allocationTracker;
+            if (tracker != null) tracker.beginFrame(currentScene.getName());
+
             Mouse.nextFrame();   // сброс "нажато в этом кадре" перед логикой
 
+            if (tracker != null) tracker.phase(AllocationTracker.Phase.UPDATE);
             update(dt);
+            applyPendingScene();   // переходы — только между кадрами, не посреди update сцены
+            applyFrameBufferToggle();
+            if (tracker != null) tracker.phase(AllocationTracker.Phase.RENDER);
             renderFrame();
+            if (tracker != null) tracker.endFrame();
 
             long sleepTime = (long) (frameTime - (System.nanoTime() - now));
             if (sleepTime > 0) {
@@ -133,11 +308,16 @@ public abstract class SimpleGame extends Canvas implements Runnable {
             }
         }
 
+        stopAllBackground();
+        FrameBuffer fb = frameBuffer;
+        if (fb != null) fb.shutdown();
         cleanup();
         if (frame != null) frame.dispose();
     }
 
     private void renderFrame() {
+        if (!isDisplayable()) return;   // нет окна (цикл запущен без start(), headless) — рисовать некуда
+
         BufferStrategy bs = getBufferStrategy();
         if (bs == null) {
             createBufferStrategy(2);
@@ -146,8 +326,16 @@ public abstract class SimpleGame extends Canvas implements Runnable {
 
         Graphics2D g = (Graphics2D) bs.getDrawGraphics();
 
-        g.setColor(Color.BLACK);
-        g.fillRect(0, 0, width, height);
+        FrameBuffer fb = frameBuffer;
+        if (fb != null) {
+            fb.clear(0x000000);
+            render(fb);
+            fb.flush();
+            g.drawImage(fb.getImage(), 0, 0, null);
+        } else {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+        }
 
         render(g);
 
@@ -175,5 +363,12 @@ public abstract class SimpleGame extends Canvas implements Runnable {
         }
     }
 
+    /** Отрисовка в программный кадр. По умолчанию — текущая сцена. */
+    protected void render(FrameBuffer fb) {
+        if (currentScene != null) {
+            currentScene.render(fb);
+        }
+    }
+
     protected void cleanup() {}
 }
\ No newline at end of file
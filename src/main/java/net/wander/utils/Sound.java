@@ -1,44 +1,64 @@
 package net.wander.utils;
 
+import net.wander.utils.asset.AssetPack;
+
 import javax.sound.sampled.*;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Простой менеджер одного звукового ресурса.
  * Поддерживает:
  *  - play() / play(gain, pitch, offsetSec)
  *  - stop()
+ *  - setGain() / setPitch()
  *  - destroy()
  *  - статический stopAll() для остановки всех активных звуков.
  *
+ * Все обращения к Clip выполняются в отдельном AudioThread:
+ * play()/stop()/... только ставят команду в очередь и сразу возвращаются,
+ * поэтому игровой поток не ждёт аудиодрайвер.
+ *
  * ВНИМАНИЕ: Java Sound из коробки нормально работает с WAV (PCM).
  * MP3 не поддерживается без внешних библиотек.
  */
 public class Sound {
 
     // Глобальный список всех "живых" и потенциально играющих звуков.
-    private static final List<Sound> activeSounds =
-            Collections.synchronizedList(new ArrayList<>());
+    // Звуки создаются редко, а обходятся часто — поэтому copy-on-write.
+    private static final List<Sound> activeSounds = new CopyOnWriteArrayList<>();
 
     private final Clip clip;
     private final AudioFormat format;
     private final FloatControl gainControl;         // громкость (если доступна)
     private final FloatControl sampleRateControl;   // для pitch (если поддерживается микшером)
 
-    private boolean destroyed = false;
+    private volatile boolean destroyed = false;
+
+    // номер последнего запуска: выдаётся в play(), становится текущим в аудиопотоке
+    private final AtomicLong playSeq = new AtomicLong();
+    private volatile long currentPlay = 0;
 
     /**
      * @param path путь до звукового файла (желательно .wav)
      */
     public Sound(String path) {
-        try {
-            File file = new File(path);
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream(file);
+        this(openFile(path), path);
+    }
+
+    /**
+     * Звук из архива ассетов.
+     * @param name имя внутри архива (например, "sfx/jump.wav")
+     */
+    public Sound(AssetPack pack, String name) {
+        this(openPacked(pack, name), name);
+    }
 
+    private Sound(AudioInputStream audioIn, String name) {
+        try {
             Clip c = AudioSystem.getClip();
             c.open(audioIn);
 
@@ -60,14 +80,30 @@ public class Sound {
             this.sampleRateControl = src;
 
             activeSounds.add(this);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
+        } catch (IOException | LineUnavailableException e) {
+            throw new RuntimeException("Не удалось загрузить звук: " + name, e);
+        }
+    }
+
+    private static AudioInputStream openFile(String path) {
+        try {
+            return AudioSystem.getAudioInputStream(new File(path));
+        } catch (UnsupportedAudioFileException | IOException e) {
             throw new RuntimeException("Не удалось загрузить звук: " + path, e);
         }
     }
 
+    private static AudioInputStream openPacked(AssetPack pack, String name) {
+        try {
+            return pack.openAudio(name);
+        } catch (UnsupportedAudioFileException | IOException e) {
+            throw new RuntimeException("Не удалось загрузить звук: " + name, e);
+        }
+    }
+
     /** Проиграть звук с настройками по умолчанию: громкость=1, pitch=1, offset=0 сек. */
-    public void play() {
-        play(1.0, 1.0, 0.0);
+    public Handle play() {
+        return play(1.0, 1.0, 0.0);
     }
 
     /**
@@ -76,9 +112,67 @@ public class Sound {
      * @param gain        линейная громкость (0..1 обычно; >1 можно, но может быть искажение)
      * @param pitch       множитель высоты/скорости (1.0 = оригинал; 2.0 = в 2 раза быстрее/выше)
      * @param offsetSec   смещение старта в секундах от начала звука
+     * @return            хэндл этого запуска (можно игнорировать)
+     */
+    public Handle play(double gain, double pitch, double offsetSec) {
+        long id = playSeq.incrementAndGet();
+        if (!destroyed) {
+            AudioThread.post(() -> doPlay(id, gain, pitch, offsetSec));
+        }
+        return new Handle(this, id);
+    }
+
+    /** Остановить именно этот звук, если он сейчас играет. */
+    public void stop() {
+        if (destroyed) return;
+        AudioThread.post(this::doStop);
+    }
+
+    /** Изменить громкость уже играющего звука (линейная, 0..1). */
+    public void setGain(double gain) {
+        if (destroyed || gainControl == null) return;
+        AudioThread.post(() -> setGainLinear(gain));
+    }
+
+    /** Изменить pitch уже играющего звука (если поддерживается). */
+    public void setPitch(double pitch) {
+        if (destroyed || sampleRateControl == null) return;
+        AudioThread.post(() -> applyPitch(pitch));
+    }
+
+    /** Играет ли сейчас этот звук. */
+    public boolean isPlaying() {
+        return clip.isRunning() || clip.isActive();
+    }
+
+    /**
+     * "Уничтожить" звук: остановить, освободить ресурсы, убрать из глобального списка.
+     * После destroy() использовать объект нельзя.
      */
-    public synchronized void play(double gain, double pitch, double offsetSec) {
+    public void destroy() {
+        if (destroyed) return;
+        destroyed = true;
+        activeSounds.remove(this);
+        AudioThread.post(() -> {
+            doStop();
+            clip.close();
+        });
+    }
+
+    /** Статический метод: остановить ВСЕ звуки, которые сейчас играют. */
+    public static void stopAll() {
+        AudioThread.post(() -> {
+            for (Sound s : activeSounds) {
+                s.doStop();
+            }
+        });
+    }
+
+    // ====== Команды (выполняются в AudioThread) ======
+
+    private void doPlay(long id, double gain, double pitch, double offsetSec) {
         if (destroyed) return;
+        currentPlay = id;
 
         // Громкость
         if (gainControl != null) {
@@ -87,7 +181,7 @@ public class Sound {
 
         // Pitch (если поддерживается)
         if (sampleRateControl != null) {
-            setPitch(pitch);
+            applyPitch(pitch);
         }
 
         // Смещение по времени
@@ -104,9 +198,7 @@ public class Sound {
         clip.start();
     }
 
-    /** Остановить именно этот звук, если он сейчас играет. */
-    public synchronized void stop() {
-        if (destroyed) return;
+    private void doStop() {
         if (clip.isRunning() || clip.isActive()) {
             clip.stop();
             clip.flush();
@@ -114,32 +206,50 @@ public class Sound {
         }
     }
 
-    /** Играет ли сейчас этот звук. */
-    public boolean isPlaying() {
-        return clip.isRunning() || clip.isActive();
-    }
+    // ====== Хэндл запуска ======
 
     /**
-     * "Уничтожить" звук: остановить, освободить ресурсы, убрать из глобального списка.
-     * После destroy() использовать объект нельзя.
+     * Лёгкий хэндл одного запуска play().
+     * Действует, пока звук не перезапустили новым play():
+     * после этого stop()/setGain()/setPitch() через старый хэндл игнорируются.
      */
-    public synchronized void destroy() {
-        if (destroyed) return;
-        stop();
-        clip.close();
-        destroyed = true;
-        activeSounds.remove(this);
-    }
+    public static final class Handle {
+        private final Sound sound;
+        private final long id;
 
-    /** Статический метод: остановить ВСЕ звуки, которые сейчас играют. */
-    public static void stopAll() {
-        // Копию списка, чтобы избежать ConcurrentModification при stop()/destroy()
-        List<Sound> snapshot;
-        synchronized (activeSounds) {
-            snapshot = new ArrayList<>(activeSounds);
+        private Handle(Sound sound, long id) {
+            this.sound = sound;
+            this.id = id;
         }
-        for (Sound s : snapshot) {
-            s.stop();
+
+        public Sound getSound() {
+            return sound;
+        }
+
+        /** Играет ли ещё именно этот запуск. */
+        public boolean isPlaying() {
+            return sound.currentPlay == id && sound.isPlaying();
+        }
+
+        public void stop() {
+            if (sound.destroyed) return;
+            AudioThread.post(() -> {
+                if (sound.currentPlay == id) sound.doStop();
+            });
+        }
+
+        public void setGain(double gain) {
+            if (sound.destroyed || sound.gainControl == null) return;
+            AudioThread.post(() -> {
+                if (sound.currentPlay == id) sound.setGainLinear(gain);
+            });
+        }
+
+        public void setPitch(double pitch) {
+            if (sound.destroyed || sound.sampleRateControl == null) return;
+            AudioThread.post(() -> {
+                if (sound.currentPlay == id) sound.applyPitch(pitch);
+            });
         }
     }
 
@@ -164,7 +274,7 @@ public class Sound {
     }
 
     /** Установить pitch как множитель частоты дискретизации (если поддерживается). */
-    private void setPitch(double pitch) {
+    private void applyPitch(double pitch) {
         if (sampleRateControl == null) return;
         if (pitch <= 0) pitch = 0.01;
 
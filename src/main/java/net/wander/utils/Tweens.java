@@ -0,0 +1,323 @@
+package net.wander.utils;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Движок твинов (плавных анимаций значений).
+ *
+ * Использование (обычно через scene.getTweens()):
+ *   tweens.to(obj::setX, obj.getX(), 300, 0.5, Easing.OUT_QUAD);
+ *   tweens.sequence()
+ *         .then(panel::setY, -200, 0, 0.3, Easing.OUT_BACK)
+ *         .with(panel::setAlpha, 0, 1, 0.3, Easing.LINEAR)   // одновременно с предыдущим
+ *         .delay(1.0)
+ *         .then(panel::setY, 0, -200, 0.3, Easing.IN_QUAD);
+ *
+ * Все активные твины лежат в параллельных массивах и обновляются одним проходом за кадр.
+ * Закончившиеся твины удаляются перестановкой последнего на их место —
+ * массивы переиспользуются, в update() ничего не выделяется.
+ * Слот твина по id ищется в хэш-таблице на int-массивах, так что isActive/cancel — O(1),
+ * а id закончившегося твина не совпадёт с id нового, занявшего его слот.
+ */
+public class Tweens {
+
+    private static final int DEAD = -1; // отменён во время update()
+
+    private double[] from     = new double[64];
+    private double[] to       = new double[64];
+    private double[] duration = new double[64];
+    private double[] elapsed  = new double[64];   // < 0 — ещё идёт задержка
+    private int[] easing      = new int[64];
+    private int[] ids         = new int[64];
+    private int[] groups      = new int[64];
+    private DoubleConsumer[] setters = new DoubleConsumer[64];
+    private Runnable[] onComplete    = new Runnable[64];
+    private int count = 0;
+
+    // id -> слот: открытая адресация с линейным пробированием, ключ 0 — пусто.
+    // Таблица вдвое больше массивов твинов, так что заполнена не больше чем наполовину.
+    private int[] slotKeys   = new int[128];
+    private int[] slotValues = new int[128];
+
+    private int nextId = 1;
+    private boolean updating = false;
+    private double currentDt = 0.0;
+
+    // ================== ПУБЛИЧНОЕ API ==================
+
+    /** Анимировать значение from -> to за duration секунд. Возвращает id твина. */
+    public int to(DoubleConsumer setter, double from, double to, double duration, int easing) {
+        return add(setter, from, to, duration, 0.0, easing, 0, null);
+    }
+
+    /** То же, но с колбэком по завершении. */
+    public int to(DoubleConsumer setter, double from, double to, double duration, int easing,
+                  Runnable onComplete) {
+        return add(setter, from, to, duration, 0.0, easing, 0, onComplete);
+    }
+
+    /** С задержкой перед стартом. */
+    public int to(DoubleConsumer setter, double from, double to, double duration, double delay,
+                  int easing, Runnable onComplete) {
+        return add(setter, from, to, duration, delay, easing, 0, onComplete);
+    }
+
+    /** Начать последовательность/группу твинов. */
+    public Sequence sequence() {
+        return new Sequence(newId());
+    }
+
+    /** Отменить твин по id (значение остаётся там, где было). */
+    public boolean cancel(int id) {
+        int i = slotOf(id);
+        if (i < 0 || easing[i] == DEAD) return false;
+        kill(i);
+        return true;
+    }
+
+    /** Отменить все твины последовательности/группы. */
+    public void cancelGroup(int group) {
+        if (group == 0) return;
+        for (int i = 0; i < count; i++) {
+            if (groups[i] == group && easing[i] != DEAD) {
+                if (kill(i)) i--;
+            }
+        }
+    }
+
+    /** Отменить все твины. */
+    public void cancelAll() {
+        for (int i = count - 1; i >= 0; i--) {
+            if (easing[i] != DEAD) kill(i);
+        }
+    }
+
+    /** Твин с таким id ещё идёт? */
+    public boolean isActive(int id) {
+        int i = slotOf(id);
+        return i >= 0 && easing[i] != DEAD;
+    }
+
+    /** Сколько твинов сейчас активно. */
+    public int size() {
+        return count;
+    }
+
+    /** Продвинуть все твины на dt секунд. */
+    public void update(double dt) {
+        updating = true;
+        currentDt = dt;
+        try {
+            int i = 0;
+            while (i < count) {
+                if (easing[i] == DEAD) {
+                    removeAt(i);
+                    continue;
+                }
+
+                double e = elapsed[i] + dt;
+                elapsed[i] = e;
+                if (e < 0.0) {
+                    i++;
+                    continue;
+                }
+
+                double d = duration[i];
+                double t = d > 0.0 ? e / d : 1.0;
+                if (t >= 1.0) {
+                    setters[i].accept(to[i]);
+                    Runnable done = onComplete[i];
+                    removeAt(i);
+                    if (done != null) done.run();
+                    continue;
+                }
+                setters[i].accept(MathUtil.lerp(from[i], to[i], Easing.apply(easing[i], t)));
+                i++;
+            }
+        } finally {
+            updating = false;
+        }
+    }
+
+    // ================== ПОСЛЕДОВАТЕЛЬНОСТИ ==================
+
+    /**
+     * Последовательность твинов.
+     * then(...) стартует после всего, что уже добавлено; with(...) — одновременно с предыдущим шагом.
+     * Всё раскладывается в обычные твины с задержками, так что стоит столько же.
+     */
+    public final class Sequence {
+        private final int group;
+        private double lastStart = 0.0;
+        private double end = 0.0;
+
+        private Sequence(int group) {
+            this.group = group;
+        }
+
+        /** Следующий шаг — после окончания всех предыдущих. */
+        public Sequence then(DoubleConsumer setter, double from, double to, double duration, int easing) {
+            return step(end, setter, from, to, duration, easing);
+        }
+
+        /** Параллельно с предыдущим шагом. */
+        public Sequence with(DoubleConsumer setter, double from, double to, double duration, int easing) {
+            return step(lastStart, setter, from, to, duration, easing);
+        }
+
+        /** Пауза перед следующим шагом. */
+        public Sequence delay(double seconds) {
+            end += Math.max(0.0, seconds);
+            lastStart = end;
+            return this;
+        }
+
+        /** Вызвать action, когда всё добавленное до этого закончится. */
+        public Sequence call(Runnable action) {
+            add(v -> {}, 0, 0, 0, end, Easing.LINEAR, group, action);
+            return this;
+        }
+
+        /** id группы — для Tweens.cancelGroup(). */
+        public int getGroup() {
+            return group;
+        }
+
+        /** Сколько длится вся последовательность (сек). */
+        public double getDuration() {
+            return end;
+        }
+
+        private Sequence step(double start, DoubleConsumer setter, double from, double to,
+                              double duration, int easing) {
+            add(setter, from, to, duration, start, easing, group, null);
+            lastStart = start;
+            end = Math.max(end, start + Math.max(0.0, duration));
+            return this;
+        }
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private int add(DoubleConsumer setter, double a, double b, double dur, double delay,
+                    int ease, int group, Runnable done) {
+        if (setter == null) throw new IllegalArgumentException("setter is null");
+        if (count == ids.length) grow();
+
+        int i = count++;
+        int id = newId();
+        from[i] = a;
+        to[i] = b;
+        duration[i] = Math.max(0.0, dur);
+        // добавлен из колбэка во время update(): этот кадр для него не считается
+        elapsed[i] = -Math.max(0.0, delay) - (updating ? currentDt : 0.0);
+        easing[i] = ease < 0 ? Easing.LINEAR : ease;
+        ids[i] = id;
+        groups[i] = group;
+        setters[i] = setter;
+        onComplete[i] = done;
+        index(id, i);
+        return id;
+    }
+
+    /** id твинов и групп: положительные, 0 не выдаётся никогда (0 — «без группы» и пустой ключ таблицы). */
+    private int newId() {
+        int id = nextId;
+        nextId = id == Integer.MAX_VALUE ? 1 : id + 1;
+        return id;
+    }
+
+    /** @return true, если элемент удалён сразу (а не помечен) */
+    private boolean kill(int i) {
+        if (updating) {
+            easing[i] = DEAD;
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    private void removeAt(int i) {
+        unindex(ids[i]);
+        int last = --count;
+        if (i != last) {
+            index(ids[last], i);
+            from[i] = from[last];
+            to[i] = to[last];
+            duration[i] = duration[last];
+            elapsed[i] = elapsed[last];
+            easing[i] = easing[last];
+            ids[i] = ids[last];
+            groups[i] = groups[last];
+            setters[i] = setters[last];
+            onComplete[i] = onComplete[last];
+        }
+        setters[last] = null;
+        onComplete[last] = null;
+    }
+
+    private void grow() {
+        int n = ids.length * 2;
+        from = Arrays.copyOf(from, n);
+        to = Arrays.copyOf(to, n);
+        duration = Arrays.copyOf(duration, n);
+        elapsed = Arrays.copyOf(elapsed, n);
+        easing = Arrays.copyOf(easing, n);
+        ids = Arrays.copyOf(ids, n);
+        groups = Arrays.copyOf(groups, n);
+        setters = Arrays.copyOf(setters, n);
+        onComplete = Arrays.copyOf(onComplete, n);
+
+        slotKeys = new int[n * 2];
+        slotValues = new int[n * 2];
+        for (int i = 0; i < count; i++) index(ids[i], i);
+    }
+
+    // --- таблица id -> слот ---
+
+    private static int home(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /** Слот твина или -1. */
+    private int slotOf(int id) {
+        if (id <= 0) return -1;
+        int mask = slotKeys.length - 1;
+        for (int h = home(id, mask); ; h = (h + 1) & mask) {
+            int k = slotKeys[h];
+            if (k == id) return slotValues[h];
+            if (k == 0) return -1;
+        }
+    }
+
+    /** Записать (или переписать) слот для id. */
+    private void index(int id, int slot) {
+        int mask = slotKeys.length - 1;
+        int h = home(id, mask);
+        while (slotKeys[h] != 0 && slotKeys[h] != id) h = (h + 1) & mask;
+        slotKeys[h] = id;
+        slotValues[h] = slot;
+    }
+
+    /** Удалить id; хвост цепочки сдвигается назад, чтобы поиск не обрывался на дыре. */
+    private void unindex(int id) {
+        int mask = slotKeys.length - 1;
+        int hole = home(id, mask);
+        while (slotKeys[hole] != id) {
+            if (slotKeys[hole] == 0) return;
+            hole = (hole + 1) & mask;
+        }
+        for (int j = (hole + 1) & mask; slotKeys[j] != 0; j = (j + 1) & mask) {
+            // элемент j можно перенести в дыру, если она между его домашней ячейкой и j
+            int h = home(slotKeys[j], mask);
+            if (((j - h) & mask) >= ((j - hole) & mask)) {
+                slotKeys[hole] = slotKeys[j];
+                slotValues[hole] = slotValues[j];
+                hole = j;
+            }
+        }
+        slotKeys[hole] = 0;
+    }
+}
@@ -0,0 +1,115 @@
+package net.wander.utils;
+
+import net.wander.objects.GameObject;
+
+/**
+ * Планировщик апдейтов сцены с бюджетом кадра.
+ *
+ * Объекты с updateInterval > 1 обновляются раз в N кадров, а объекты с lowPriority
+ * (дальний ИИ, декорации) при перегрузке обновляются ещё реже. Кадры, в которые объект
+ * пропускается, разнесены по объектам (у каждого своя фаза), а в update приходит
+ * накопленный dt — движение не замедляется, только реже считается.
+ *
+ * Время работы сцены за кадр (update + render) сглаживается. Если оно дольше бюджета,
+ * уровень разгрузки растёт: низкоприоритетные объекты обновляются раз в 2/4/8 кадров,
+ * а сцена рисует с подсказками "скорость вместо качества". Когда запас появляется — уровень снижается.
+ *
+ *   scene.getUpdateScheduler().setBudgetMs(12);
+ *   decoration.setLowPriority(true);
+ *   farEnemy.setUpdateInterval(3);
+ */
+public class UpdateScheduler {
+
+    private static final int[] THROTTLE = {1, 2, 4, 8};
+
+    // сглаживание времени кадра и гистерезис, чтобы уровень не дёргался
+    private static final double SMOOTHING = 0.1;
+    private static final int RAISE_AFTER_FRAMES = 15;
+    private static final int LOWER_AFTER_FRAMES = 60;
+    private static final double LOWER_BELOW = 0.6;   // доля бюджета
+
+    private double budgetMs = 1000.0 / 60.0;
+    private boolean adaptive = true;
+
+    private double frameMs = 0.0;
+    private boolean measured = false;
+    private int level = 0;
+    private int framesAtLevel = 0;
+    private long frame = 0;
+
+    /** Обновить объекты за этот кадр (вызывает сцена). */
+    public void update(GameObject[] objects, int count, double dt) {
+        frame++;
+        int throttle = THROTTLE[level];
+        for (int i = 0; i < count; i++) {
+            objects[i].scheduledUpdate(dt, frame, throttle);
+        }
+    }
+
+    /** Сколько времени (нс) сцена потратила на кадр (вызывает сцена после render). */
+    public void reportFrame(long nanos) {
+        double ms = nanos / 1_000_000.0;
+        if (!measured) {
+            frameMs = ms;
+            measured = true;
+        } else {
+            frameMs += (ms - frameMs) * SMOOTHING;
+        }
+
+        framesAtLevel++;
+        if (!adaptive) return;
+        if (frameMs > budgetMs && level < THROTTLE.length - 1 && framesAtLevel >= RAISE_AFTER_FRAMES) {
+            level++;
+            framesAtLevel = 0;
+        } else if (frameMs < budgetMs * LOWER_BELOW && level > 0 && framesAtLevel >= LOWER_AFTER_FRAMES) {
+            level--;
+            framesAtLevel = 0;
+        }
+    }
+
+    // ================== НАСТРОЙКИ ==================
+
+    public double getBudgetMs() {
+        return budgetMs;
+    }
+
+    /** Бюджет на update + render сцены, мс. */
+    public void setBudgetMs(double budgetMs) {
+        if (budgetMs <= 0) throw new IllegalArgumentException("budgetMs must be > 0");
+        this.budgetMs = budgetMs;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /** Выключить авторазгрузку (уровень сбрасывается в 0). */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        if (!adaptive) {
+            level = 0;
+            framesAtLevel = 0;
+        }
+    }
+
+    // ================== СОСТОЯНИЕ ==================
+
+    /** Сглаженное время кадра сцены, мс. */
+    public double getFrameTimeMs() {
+        return frameMs;
+    }
+
+    /** Уровень разгрузки: 0 — полное качество, 3 — максимальная экономия. */
+    public int getQualityLevel() {
+        return level;
+    }
+
+    /** Во сколько раз реже сейчас обновляются низкоприоритетные объекты. */
+    public int getThrottle() {
+        return THROTTLE[level];
+    }
+
+    public long getFrame() {
+        return frame;
+    }
+}
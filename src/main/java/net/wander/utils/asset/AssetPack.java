@@ -0,0 +1,198 @@
+package net.wander.utils.asset;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Архив ассетов: один файл вместо сотен мелких (собирается AssetPacker).
+ *
+ *   AssetPack pack = AssetPack.open(Paths.get("assets.pak"));
+ *   Sound jump = new Sound(pack, "sfx/jump.wav");
+ *   Music theme = new Music(pack, "music/theme.wav");
+ *   BufferedImage hero = pack.readImage("img/hero.png");
+ *
+ * Файл целиком отображается в память (FileChannel.map) — при старте это один вызов,
+ * страницы подгружаются ОС по мере обращения. Поиск по имени — HashMap,
+ * данные отдаются срезами отображённого буфера без копирования.
+ *
+ * Формат (big-endian):
+ *   "WPAK", версия (int), число записей (int),
+ *   записи: длина имени (short), имя UTF-8, смещение (long), длина (long),
+ *   затем данные, каждый блок выровнен по 16 байт.
+ * Имена — относительные пути с '/'.
+ *
+ * Объект можно читать из нескольких потоков. Памяти unmap делает сборщик мусора,
+ * когда на архив и его срезы не осталось ссылок.
+ */
+public final class AssetPack {
+
+    static final int MAGIC = 0x5750414B;   // "WPAK"
+    static final int VERSION = 1;
+    static final int ALIGN = 16;
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final Map<String, long[]> index;   // имя -> {смещение, длина}
+
+    private AssetPack(Path file, MappedByteBuffer data, Map<String, long[]> index) {
+        this.file = file;
+        this.data = data;
+        this.index = index;
+    }
+
+    /** Открыть архив. */
+    public static AssetPack open(Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Asset pack is larger than 2 GB: " + file);
+            data = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        ByteBuffer in = data.duplicate();
+        try {
+            if (in.getInt() != MAGIC) throw new IOException("Not an asset pack: " + file);
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("Unsupported asset pack version " + version + ": " + file);
+            int count = in.getInt();
+            if (count < 0) throw new IOException("Corrupt asset pack index: " + file);
+
+            Map<String, long[]> index = new HashMap<>(Math.max(16, count * 2));
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[in.getShort() & 0xffff];
+                in.get(name);
+                long offset = in.getLong();
+                long length = in.getLong();
+                if (offset < 0 || length < 0 || length > data.capacity() - offset) {   // без переполнения offset + length
+                    throw new IOException("Corrupt asset pack entry in " + file);
+                }
+                index.put(new String(name, StandardCharsets.UTF_8), new long[]{offset, length});
+            }
+            return new AssetPack(file, data, index);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated asset pack: " + file, e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean contains(String name) {
+        return index.containsKey(name);
+    }
+
+    /** Все имена в архиве. */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /** Размер ассета в байтах или -1, если его нет. */
+    public long size(String name) {
+        long[] e = index.get(name);
+        return e == null ? -1 : e[1];
+    }
+
+    // ================== ДОСТУП ==================
+
+    /** Данные ассета: новый read-only срез отображённого файла (без копирования). */
+    public ByteBuffer getBuffer(String name) throws IOException {
+        long[] e = entry(name);
+        ByteBuffer b = data.duplicate();
+        b.limit((int) (e[0] + e[1]));
+        b.position((int) e[0]);
+        return b.slice().asReadOnlyBuffer();
+    }
+
+    /** Поток по данным ассета (поддерживает mark/reset — нужно AudioSystem и ImageIO). */
+    public InputStream openStream(String name) throws IOException {
+        return new ByteBufferInputStream(getBuffer(name));
+    }
+
+    /** Звук из архива (формат определяется по содержимому, как у AudioSystem для файла). */
+    public AudioInputStream openAudio(String name) throws IOException, UnsupportedAudioFileException {
+        return AudioSystem.getAudioInputStream(openStream(name));
+    }
+
+    /** Картинка из архива. */
+    public BufferedImage readImage(String name) throws IOException {
+        try (InputStream in = openStream(name)) {
+            BufferedImage img = ImageIO.read(in);
+            if (img == null) throw new IOException("Unsupported image format: " + name);
+            return img;
+        }
+    }
+
+    private long[] entry(String name) throws IOException {
+        long[] e = index.get(name);
+        if (e == null) throw new IOException("Asset not found in " + file + ": " + name);
+        return e;
+    }
+
+    /** InputStream поверх ByteBuffer. */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+        private int mark = 0;
+
+        ByteBufferInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buf.hasRemaining()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int k = (int) Math.max(0, Math.min(n, buf.remaining()));
+            buf.position(buf.position() + k);
+            return k;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = buf.position();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buf.position(mark);
+        }
+    }
+}
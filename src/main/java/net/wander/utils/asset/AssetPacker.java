@@ -0,0 +1,116 @@
+package net.wander.utils.asset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Сборка архива ассетов (формат — см. AssetPack). Запускается при сборке игры:
+ *
+ *   java net.wander.utils.asset.AssetPacker assets/ build/assets.pak
+ *
+ * Имена в архиве — пути относительно папки, через '/'.
+ */
+public final class AssetPacker {
+
+    private AssetPacker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPacker <assets-dir> <output.pak>");
+            System.exit(2);
+        }
+        Path dir = Paths.get(args[0]);
+        Path out = Paths.get(args[1]);
+        int count = pack(dir, out);
+        System.out.println("Packed " + count + " assets into " + out + " (" + Files.size(out) + " bytes)");
+    }
+
+    /** Упаковать все файлы папки (рекурсивно). Возвращает число ассетов. */
+    public static int pack(Path dir, Path out) throws IOException {
+        Map<String, Path> files = new TreeMap<>();
+        Path outAbs = out.toAbsolutePath().normalize();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(p -> !p.toAbsolutePath().normalize().equals(outAbs))
+                    .forEach(p -> files.put(dir.relativize(p).toString().replace('\\', '/'), p));
+        }
+        pack(files, out);
+        return files.size();
+    }
+
+    /** Упаковать заданные файлы под заданными именами. */
+    public static void pack(Map<String, Path> files, Path out) throws IOException {
+        List<byte[]> names = new ArrayList<>(files.size());
+        List<Path> paths = new ArrayList<>(files.size());
+        long headerSize = 12;
+        for (Map.Entry<String, Path> e : files.entrySet()) {
+            byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xffff) throw new IOException("Asset name too long: " + e.getKey());
+            names.add(name);
+            paths.add(e.getValue());
+            headerSize += 2 + name.length + 16;
+        }
+
+        // раскладка данных
+        long[] offsets = new long[paths.size()];
+        long[] lengths = new long[paths.size()];
+        long pos = align(headerSize);
+        for (int i = 0; i < paths.size(); i++) {
+            lengths[i] = Files.size(paths.get(i));
+            offsets[i] = pos;
+            pos = align(pos + lengths[i]);
+        }
+        if (pos > Integer.MAX_VALUE) throw new IOException("Asset pack would be larger than 2 GB");
+
+        ByteBuffer header = ByteBuffer.allocate((int) headerSize);
+        header.putInt(AssetPack.MAGIC);
+        header.putInt(AssetPack.VERSION);
+        header.putInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            header.putShort((short) names.get(i).length);
+            header.put(names.get(i));
+            header.putLong(offsets[i]);
+            header.putLong(lengths[i]);
+        }
+        header.flip();
+
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(ch, header, 0);
+            for (int i = 0; i < paths.size(); i++) {
+                try (FileChannel src = FileChannel.open(paths.get(i), StandardOpenOption.READ)) {
+                    long done = 0;
+                    while (done < lengths[i]) {
+                        long n = src.transferTo(done, lengths[i] - done, ch.position(offsets[i] + done));
+                        if (n <= 0) throw new IOException("Failed to copy " + paths.get(i));
+                        done += n;
+                    }
+                }
+            }
+            // хвостовое выравнивание, чтобы размер файла совпадал с раскладкой
+            if (ch.size() < pos) writeFully(ch, ByteBuffer.allocate((int) (pos - ch.size())), ch.size());
+        }
+    }
+
+    private static long align(long v) {
+        return (v + AssetPack.ALIGN - 1) & -AssetPack.ALIGN;
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += ch.write(buf, position);
+        }
+    }
+}
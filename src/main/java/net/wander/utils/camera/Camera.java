@@ -1,4 +1,6 @@
 package net.wander.utils.camera;
+import net.wander.utils.MathUtil;
+
 import java.awt.Graphics2D;
 
 public class Camera {
@@ -16,6 +18,7 @@ public class Camera {
     private final int screenHeight;
 
     private CameraTarget target; // то, к чему прикреплена камера (может быть null)
+    private double followSmoothing = 0.1; // доля пути к цели за 1/60 сек
     private boolean destroyed = false; // флаг "камера уничтожена"
 
     public Camera(int screenWidth, int screenHeight, double initialFov) {
@@ -29,6 +32,18 @@ public class Camera {
         this.target = target;
     }
 
+    /**
+     * Насколько "жёстко" камера липнет к цели: доля оставшегося пути за 1/60 сек (0..1].
+     * Не зависит от FPS: при 30 или 144 кадрах камера движется одинаково.
+     */
+    public void setFollowSmoothing(double smoothing) {
+        this.followSmoothing = Math.max(0.0, Math.min(smoothing, 1.0));
+    }
+
+    public double getFollowSmoothing() {
+        return followSmoothing;
+    }
+
     // Отвязать камеру (свободная)
     public void unfollow() {
         this.target = null;
@@ -57,15 +72,26 @@ public class Camera {
     public double getX() { return x; }
     public double getY() { return y; }
 
+    // Видимая область в мировых координатах (для отсечения невидимых объектов)
+
+    public double getViewWidth()  { return screenWidth / zoom; }
+    public double getViewHeight() { return screenHeight / zoom; }
+
+    public double getViewLeft() { return x - getViewWidth() * 0.5; }
+    public double getViewTop()  { return y - getViewHeight() * 0.5; }
+
+    public int getScreenWidth()  { return screenWidth; }
+    public int getScreenHeight() { return screenHeight; }
+
     // Обновление камеры каждый кадр
     public void update(double dt) {
         if (destroyed) return;
 
         if (target != null) {
-            // можно сделать плавное следование (lerp)
-            double lerp = 0.1; // 0..1, чем больше — тем "жёстче" камера липнет
-            x += (target.getX() - x) * lerp;
-            y += (target.getY() - y) * lerp;
+            // плавное следование: followSmoothing задан на 1/60 сек, пересчитываем под dt
+            double t = 1.0 - Math.pow(1.0 - followSmoothing, dt * 60.0);
+            x = MathUtil.lerp(x, target.getX(), t);
+            y = MathUtil.lerp(y, target.getY(), t);
         }
     }
 
@@ -0,0 +1,179 @@
+package net.wander.utils.camera;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Прямоугольная область экрана, в которую рисует своя камера.
+ * Нужна для сплит-скрина, мини-карт и "картинки в картинке".
+ *
+ * Камеру создавай с размерами вьюпорта: new Camera(width, height, fov).
+ *
+ * Для "дешёвых" вьюпортов (мини-карта) можно:
+ *  - setRenderInterval(n)    — перерисовывать раз в n кадров (между ними показывается прошлый кадр);
+ *  - setResolutionScale(s)   — рисовать в уменьшенном буфере (s = 0.5 -> в 4 раза меньше пикселей).
+ */
+public class Viewport {
+
+    private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+
+    private int x;
+    private int y;
+    private int width;
+    private int height;
+
+    private final Camera camera;
+
+    private int renderInterval = 1;
+    private double resolutionScale = 1.0;
+    private boolean enabled = true;
+
+    // офскрин-буфер (только если interval > 1 или scale < 1)
+    private BufferedImage buffer;
+    private int frameCounter = 0;
+
+    // границы видимой области в мире на текущий кадр
+    private double viewLeft;
+    private double viewTop;
+    private double viewRight;
+    private double viewBottom;
+
+    public Viewport(int x, int y, int width, int height, Camera camera) {
+        if (camera == null) throw new IllegalArgumentException("Viewport needs a camera");
+        this.camera = camera;
+        setBounds(x, y, width, height);
+    }
+
+    // ================== ГЕОМЕТРИЯ ==================
+
+    /** Положение и размер на экране (в пикселях). */
+    public void setBounds(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        this.buffer = null;
+    }
+
+    public int getX()      { return x; }
+    public int getY()      { return y; }
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+
+    public Camera getCamera() {
+        return camera;
+    }
+
+    public boolean isEnabled() {
+        return enabled && !camera.isDestroyed();
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // ================== КАЧЕСТВО ==================
+
+    public int getRenderInterval() {
+        return renderInterval;
+    }
+
+    /** Перерисовывать раз в n кадров (1 = каждый кадр). */
+    public void setRenderInterval(int frames) {
+        this.renderInterval = Math.max(1, frames);
+    }
+
+    public double getResolutionScale() {
+        return resolutionScale;
+    }
+
+    /** Масштаб внутреннего буфера (0..1]. 1 = полное разрешение. */
+    public void setResolutionScale(double scale) {
+        double s = Math.max(0.05, Math.min(scale, 1.0));
+        if (s != resolutionScale) {
+            resolutionScale = s;
+            buffer = null;
+        }
+    }
+
+    // ================== КАДР (вызывается сценой) ==================
+
+    /**
+     * Начало кадра: считает видимую область камеры в мире.
+     * @return true, если в этом кадре вьюпорт надо перерисовать
+     */
+    public boolean beginFrame() {
+        boolean redraw = frameCounter % renderInterval == 0 || buffer == null && usesBuffer();
+        frameCounter++;
+        if (!redraw) return false;
+
+        viewLeft   = camera.getViewLeft();
+        viewTop    = camera.getViewTop();
+        viewRight  = viewLeft + camera.getViewWidth();
+        viewBottom = viewTop + camera.getViewHeight();
+        return true;
+    }
+
+    /** Пересекает ли мировой прямоугольник видимую область (после beginFrame). */
+    public boolean isVisible(double wx, double wy, double ww, double wh) {
+        return wx <= viewRight && wx + ww >= viewLeft &&
+                wy <= viewBottom && wy + wh >= viewTop;
+    }
+
+    /**
+     * Подготовить Graphics2D для рисования мира в этот вьюпорт
+     * (клип, сдвиг, камера). Его надо закрыть через {@link #end(Graphics2D, Graphics2D)}.
+     */
+    public Graphics2D begin(Graphics2D screen) {
+        Graphics2D vg;
+        if (usesBuffer()) {
+            ensureBuffer(screen);
+            vg = buffer.createGraphics();
+            vg.setBackground(TRANSPARENT);
+            vg.clearRect(0, 0, buffer.getWidth(), buffer.getHeight());
+            vg.scale(resolutionScale, resolutionScale);
+        } else {
+            vg = (Graphics2D) screen.create();
+            vg.translate(x, y);
+            vg.clipRect(0, 0, width, height);
+        }
+        camera.apply(vg);
+        return vg;
+    }
+
+    /** Закончить рисование: освободить Graphics и вывести буфер (если есть). */
+    public void end(Graphics2D screen, Graphics2D vg) {
+        vg.dispose();
+        if (usesBuffer()) {
+            present(screen);
+        }
+    }
+
+    /**
+     * Показать прошлый кадр (когда в этом кадре вьюпорт не перерисовывался).
+     * Подсказка интерполяции экрана после вызова прежняя
+     * (если её не было — NEAREST_NEIGHBOR, как по умолчанию в Java2D).
+     */
+    public void present(Graphics2D screen) {
+        if (buffer == null) return;
+        Object old = screen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        screen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        screen.drawImage(buffer, x, y, width, height, null);
+        screen.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                old != null ? old : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+
+    public boolean usesBuffer() {
+        return renderInterval > 1 || resolutionScale < 1.0;
+    }
+
+    private void ensureBuffer(Graphics2D screen) {
+        int bw = Math.max(1, (int) Math.ceil(width * resolutionScale));
+        int bh = Math.max(1, (int) Math.ceil(height * resolutionScale));
+        if (buffer != null && buffer.getWidth() == bw && buffer.getHeight() == bh) return;
+        buffer = screen.getDeviceConfiguration().createCompatibleImage(bw, bh, Transparency.TRANSLUCENT);
+    }
+}
@@ -0,0 +1,73 @@
+package net.wander.utils.light;
+
+import java.awt.Color;
+
+/**
+ * Точечный источник света для LightMap.
+ * Яркость спадает от центра к краю радиуса плавно: (1 - d²/r²)².
+ */
+public class Light {
+
+    private double x;
+    private double y;
+    private double radius;
+    private float red = 1f;
+    private float green = 1f;
+    private float blue = 1f;
+    private float intensity = 1f;
+    private boolean enabled = true;
+    private boolean castsShadows = true;
+
+    public Light(double x, double y, double radius) {
+        this.x = x;
+        this.y = y;
+        this.radius = Math.max(0.0, radius);
+    }
+
+    public Light(double x, double y, double radius, Color color, float intensity) {
+        this(x, y, radius);
+        setColor(color);
+        setIntensity(intensity);
+    }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public double getRadius() { return radius; }
+
+    public void setRadius(double radius) {
+        this.radius = Math.max(0.0, radius);
+    }
+
+    public void setColor(Color color) {
+        red = color.getRed() / 255f;
+        green = color.getGreen() / 255f;
+        blue = color.getBlue() / 255f;
+    }
+
+    public float getRed()   { return red; }
+    public float getGreen() { return green; }
+    public float getBlue()  { return blue; }
+
+    public float getIntensity() { return intensity; }
+
+    /** Множитель яркости (вспышке можно больше 1 — свет сложится и обрежется на белом). */
+    public void setIntensity(float intensity) {
+        this.intensity = Math.max(0f, intensity);
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isCastingShadows() { return castsShadows; }
+
+    /** Учитывать ли препятствия (если тени в LightMap включены). */
+    public void setCastingShadows(boolean castsShadows) {
+        this.castsShadows = castsShadows;
+    }
+}
@@ -0,0 +1,488 @@
+package net.wander.utils.light;
+
+import net.wander.objects.GameObject;
+import net.wander.utils.camera.Camera;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Программное 2D-освещение в карте пониженного разрешения.
+ *
+ *   LightMap lights = new LightMap(320, 180);          // для экрана 1280x720 — клетка 4x4 пикселя
+ *   lights.setAmbient(new Color(20, 20, 40));
+ *   lights.addLight(torch);
+ *   lights.addOccluder(wall);                          // тени от прямоугольника объекта
+ *   ...
+ *   // после отрисовки сцены:
+ *   lights.update(camera);
+ *   lights.render(g, 0, 0, 1280, 720);
+ *
+ * Вклад всех источников считается в float-карту по тайлам параллельно в пуле потоков,
+ * затем карта растягивается на экран билинейно одной картинкой.
+ *
+ * В Java2D нет режима "умножение", поэтому render() накладывает затемнение:
+ * чёрный с прозрачностью 1 - max(r, g, b). Для белого/серого света это точно умножение,
+ * цвет же только подмешивается поверх (setTint) — приближение. Точное умножение
+ * по пикселям — applyTo(int[] ...), если кадр рисуется в int[] буфер.
+ */
+public class LightMap {
+
+    private static final int TILE = 32;   // клеток карты в тайле по стороне
+
+    private static final AtomicInteger poolCounter = new AtomicInteger();
+
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int tilesX;
+    private final int tileCount;
+
+    // ---- карта света (0..1 по каналам) ----
+    private final float[] red;
+    private final float[] green;
+    private final float[] blue;
+
+    // ---- картинка-затемнение ----
+    private final BufferedImage overlay;
+    private final int[] overlayPixels;
+
+    // ---- что освещаем ----
+    private final List<Light> lights = new ArrayList<>();
+    private final List<GameObject> occluders = new ArrayList<>();
+    private boolean shadows = true;
+    private float ambientR = 0f, ambientG = 0f, ambientB = 0f;
+    private float tint = 0.3f;
+
+    // ---- снимок кадра для рабочих потоков (переиспользуется) ----
+    private int lightCount;
+    private float[] lx = new float[16], ly = new float[16], lr2 = new float[16];
+    private float[] lcr = new float[16], lcg = new float[16], lcb = new float[16];
+    private int[] lOccStart = new int[17];      // препятствия света i: occIndex[lOccStart[i] .. lOccStart[i+1])
+    private int[] occIndex = new int[64];
+    private float[] ox = new float[16], oy = new float[16], ox2 = new float[16], oy2 = new float[16];
+    private double viewLeft, viewTop, cellW, cellH;
+
+    // ---- потоки ----
+    private final int threads;
+    private final ExecutorService pool;
+    private final Future<?>[] futures;
+    private final AtomicInteger nextTile = new AtomicInteger();
+
+    public LightMap(int mapWidth, int mapHeight) {
+        this(mapWidth, mapHeight, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param mapWidth  ширина карты в клетках (обычно экран / 2..8)
+     * @param mapHeight высота карты в клетках
+     * @param threads   сколько потоков считают тайлы (включая вызывающий)
+     */
+    public LightMap(int mapWidth, int mapHeight, int threads) {
+        if (mapWidth <= 0 || mapHeight <= 0) throw new IllegalArgumentException("Light map size must be > 0");
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.tilesX = (mapWidth + TILE - 1) / TILE;
+        this.tileCount = tilesX * ((mapHeight + TILE - 1) / TILE);
+
+        int n = mapWidth * mapHeight;
+        red = new float[n];
+        green = new float[n];
+        blue = new float[n];
+        overlay = new BufferedImage(mapWidth, mapHeight, BufferedImage.TYPE_INT_ARGB);
+        overlayPixels = ((DataBufferInt) overlay.getRaster().getDataBuffer()).getData();
+
+        this.threads = Math.max(1, threads);
+        this.futures = new Future<?>[this.threads];
+        if (this.threads > 1) {
+            int id = poolCounter.incrementAndGet();
+            AtomicInteger k = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(this.threads - 1, r -> {
+                Thread t = new Thread(r, "LightMap-" + id + "-" + k.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    // ================== НАСТРОЙКА ==================
+
+    public void addLight(Light light) {
+        if (light != null && !lights.contains(light)) lights.add(light);
+    }
+
+    public void removeLight(Light light) {
+        lights.remove(light);
+    }
+
+    public void clearLights() {
+        lights.clear();
+    }
+
+    public List<Light> getLights() {
+        return Collections.unmodifiableList(lights);
+    }
+
+    /** Объект, отбрасывающий тень (по своему прямоугольнику). Уничтоженные убираются сами. */
+    public void addOccluder(GameObject obj) {
+        if (obj != null && !occluders.contains(obj)) occluders.add(obj);
+    }
+
+    public void removeOccluder(GameObject obj) {
+        occluders.remove(obj);
+    }
+
+    public void clearOccluders() {
+        occluders.clear();
+    }
+
+    public boolean isShadows() {
+        return shadows;
+    }
+
+    /** Считать тени от препятствий (дороже: для каждой клетки — проверка луча). */
+    public void setShadows(boolean shadows) {
+        this.shadows = shadows;
+    }
+
+    /** Освещённость там, куда не достаёт ни один источник. */
+    public void setAmbient(Color color) {
+        ambientR = color.getRed() / 255f;
+        ambientG = color.getGreen() / 255f;
+        ambientB = color.getBlue() / 255f;
+    }
+
+    public float getTint() {
+        return tint;
+    }
+
+    /** Сколько цвета света подмешивать в render() (0 — только затемнение, 1 — сильно). */
+    public void setTint(float tint) {
+        this.tint = Math.max(0f, Math.min(tint, 1f));
+    }
+
+    public int getMapWidth()  { return mapWidth; }
+    public int getMapHeight() { return mapHeight; }
+
+    // ================== РАСЧЁТ ==================
+
+    /** Пересчитать карту для видимой области камеры. */
+    public void update(Camera camera) {
+        update(camera.getViewLeft(), camera.getViewTop(), camera.getViewWidth(), camera.getViewHeight());
+    }
+
+    /**
+     * Пересчитать карту для прямоугольника мира (левый верх + размер).
+     * Возвращается только когда все потоки закончили — даже если поток прервали
+     * (флаг прерывания восстанавливается).
+     */
+    public void update(double viewLeft, double viewTop, double viewWidth, double viewHeight) {
+        this.viewLeft = viewLeft;
+        this.viewTop = viewTop;
+        this.cellW = viewWidth / mapWidth;
+        this.cellH = viewHeight / mapHeight;
+
+        snapshot(viewLeft, viewTop, viewLeft + viewWidth, viewTop + viewHeight);
+
+        nextTile.set(0);
+        int workers = pool == null ? 1 : Math.min(threads, tileCount);
+        for (int i = 1; i < workers; i++) {
+            futures[i] = pool.submit(this::work);
+        }
+
+        boolean interrupted = false;
+        Throwable failure = null;
+        try {
+            work();
+        } finally {
+            // render/applyTo читают карту — пока хоть один поток её пишет, выходить нельзя
+            for (int i = 1; i < workers; i++) {
+                while (true) {
+                    try {
+                        futures[i].get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) failure = e.getCause();
+                        break;
+                    }
+                }
+                futures[i] = null;
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw new RuntimeException("Light map tile failed", failure);
+    }
+
+    // ================== ВЫВОД ==================
+
+    /**
+     * Наложить свет на уже нарисованную сцену: карта растягивается на (x, y, w, h) экрана
+     * с билинейной фильтрацией, одним drawImage. Подсказка интерполяции g после вызова
+     * прежняя (если её не было — NEAREST_NEIGHBOR, как по умолчанию в Java2D).
+     */
+    public void render(Graphics2D g, int x, int y, int w, int h) {
+        Object oldInterpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(overlay, x, y, w, h, null);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                oldInterpolation != null ? oldInterpolation : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+
+    /**
+     * Точное умножение кадра на свет (пиксели 0xAARRGGBB, карта растягивается билинейно).
+     * Для кадров в int[] — см. FrameBuffer.
+     */
+    public void applyTo(int[] pixels, int width, int height) {
+        float sx = (float) mapWidth / width, sy = (float) mapHeight / height;
+        for (int py = 0; py < height; py++) {
+            float my = (py + 0.5f) * sy - 0.5f;
+            int y0 = Math.max(0, Math.min((int) Math.floor(my), mapHeight - 1));
+            int y1 = Math.min(y0 + 1, mapHeight - 1);
+            float fy = Math.max(0f, Math.min(my - y0, 1f));
+            int row = py * width;
+            for (int px = 0; px < width; px++) {
+                float mx = (px + 0.5f) * sx - 0.5f;
+                int x0 = Math.max(0, Math.min((int) Math.floor(mx), mapWidth - 1));
+                int x1 = Math.min(x0 + 1, mapWidth - 1);
+                float fx = Math.max(0f, Math.min(mx - x0, 1f));
+
+                int a = y0 * mapWidth + x0, b = y0 * mapWidth + x1;
+                int c = y1 * mapWidth + x0, d = y1 * mapWidth + x1;
+                float r = bilerp(red, a, b, c, d, fx, fy);
+                float gr = bilerp(green, a, b, c, d, fx, fy);
+                float bl = bilerp(blue, a, b, c, d, fx, fy);
+
+                int p = pixels[row + px];
+                int pr = (int) (((p >> 16) & 0xff) * r);
+                int pg = (int) (((p >> 8) & 0xff) * gr);
+                int pb = (int) ((p & 0xff) * bl);
+                pixels[row + px] = (p & 0xff000000) | (pr << 16) | (pg << 8) | pb;
+            }
+        }
+    }
+
+    /** Освещённость клетки (0..1) по каналу: 0 — красный, 1 — зелёный, 2 — синий. */
+    public float getLight(int cellX, int cellY, int channel) {
+        int i = cellY * mapWidth + cellX;
+        return channel == 0 ? red[i] : channel == 1 ? green[i] : blue[i];
+    }
+
+    /** Остановить потоки. Не вызывай одновременно с update() из другого потока. */
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    /** Снимок источников и препятствий (игровой поток) — дальше потоки только читают. */
+    private void snapshot(double left, double top, double right, double bottom) {
+        occluders.removeIf(GameObject::isDestroyed);
+        int occCount = occluders.size();
+        if (ox.length < occCount) {
+            int n = Math.max(occCount, ox.length * 2);
+            ox = new float[n];
+            oy = new float[n];
+            ox2 = new float[n];
+            oy2 = new float[n];
+        }
+        for (int i = 0; i < occCount; i++) {
+            GameObject o = occluders.get(i);
+            ox[i] = (float) o.getX();
+            oy[i] = (float) o.getY();
+            ox2[i] = (float) (o.getX() + o.getWidth());
+            oy2[i] = (float) (o.getY() + o.getHeight());
+        }
+
+        lightCount = 0;
+        int occUsed = 0;
+        for (int k = 0, n = lights.size(); k < n; k++) {
+            Light l = lights.get(k);
+            double r = l.getRadius();
+            if (!l.isEnabled() || r <= 0 || l.getIntensity() <= 0) continue;
+            double x = l.getX(), y = l.getY();
+            if (x + r < left || x - r > right || y + r < top || y - r > bottom) continue;
+
+            int i = lightCount++;
+            if (lx.length <= i) growLights();
+            lx[i] = (float) x;
+            ly[i] = (float) y;
+            lr2[i] = (float) (r * r);
+            lcr[i] = l.getRed() * l.getIntensity();
+            lcg[i] = l.getGreen() * l.getIntensity();
+            lcb[i] = l.getBlue() * l.getIntensity();
+
+            lOccStart[i] = occUsed;
+            if (shadows && l.isCastingShadows()) {
+                for (int o = 0; o < occCount; o++) {
+                    // далёкие не трогают свет; в котором стоит сам источник — тоже (факел в руке игрока)
+                    if (ox2[o] < x - r || ox[o] > x + r || oy2[o] < y - r || oy[o] > y + r) continue;
+                    if (x >= ox[o] && x <= ox2[o] && y >= oy[o] && y <= oy2[o]) continue;
+                    if (occUsed == occIndex.length) occIndex = Arrays.copyOf(occIndex, occUsed * 2);
+                    occIndex[occUsed++] = o;
+                }
+            }
+        }
+        lOccStart[lightCount] = occUsed;
+    }
+
+    private void growLights() {
+        int n = lx.length * 2;
+        lx = Arrays.copyOf(lx, n);
+        ly = Arrays.copyOf(ly, n);
+        lr2 = Arrays.copyOf(lr2, n);
+        lcr = Arrays.copyOf(lcr, n);
+        lcg = Arrays.copyOf(lcg, n);
+        lcb = Arrays.copyOf(lcb, n);
+        lOccStart = Arrays.copyOf(lOccStart, n + 1);
+    }
+
+    /** Берём тайлы, пока не кончатся. */
+    private void work() {
+        int t;
+        while ((t = nextTile.getAndIncrement()) < tileCount) {
+            computeTile(t);
+        }
+    }
+
+    private void computeTile(int tile) {
+        int cx0 = (tile % tilesX) * TILE, cy0 = (tile / tilesX) * TILE;
+        int cx1 = Math.min(cx0 + TILE, mapWidth), cy1 = Math.min(cy0 + TILE, mapHeight);
+        final float[] red = this.red, green = this.green, blue = this.blue;
+
+        for (int cy = cy0; cy < cy1; cy++) {
+            int row = cy * mapWidth;
+            Arrays.fill(red, row + cx0, row + cx1, ambientR);
+            Arrays.fill(green, row + cx0, row + cx1, ambientG);
+            Arrays.fill(blue, row + cx0, row + cx1, ambientB);
+        }
+
+        // мировые границы тайла
+        double tl = viewLeft + cx0 * cellW, tr = viewLeft + cx1 * cellW;
+        double tt = viewTop + cy0 * cellH, tb = viewTop + cy1 * cellH;
+
+        for (int i = 0; i < lightCount; i++) {
+            float x = lx[i], y = ly[i], r2 = lr2[i];
+            float r = (float) Math.sqrt(r2);
+            if (x + r < tl || x - r > tr || y + r < tt || y - r > tb) continue;
+
+            // клетки тайла под кругом света
+            int ax = Math.max(cx0, (int) Math.floor((x - r - viewLeft) / cellW));
+            int bx = Math.min(cx1 - 1, (int) Math.ceil((x + r - viewLeft) / cellW));
+            int ay = Math.max(cy0, (int) Math.floor((y - r - viewTop) / cellH));
+            int by = Math.min(cy1 - 1, (int) Math.ceil((y + r - viewTop) / cellH));
+            int occFrom = lOccStart[i], occTo = lOccStart[i + 1];
+            float inv = 1f / r2;
+            float cr = lcr[i], cg = lcg[i], cb = lcb[i];
+
+            float stepX = (float) cellW;
+            boolean occluded = occFrom != occTo;
+            for (int cy = ay; cy <= by; cy++) {
+                float wy = (float) (viewTop + (cy + 0.5) * cellH);
+                float dy = wy - y;
+                float dy2 = dy * dy;
+                if (dy2 >= r2) continue;
+
+                // только клетки внутри круга в этой строке
+                float half = (float) Math.sqrt(r2 - dy2);
+                int sx = Math.max(ax, (int) Math.floor((x - half - viewLeft) / cellW - 0.5));
+                int ex = Math.min(bx, (int) Math.ceil((x + half - viewLeft) / cellW - 0.5));
+                float wx = (float) (viewLeft + (sx + 0.5) * cellW);
+                int c = cy * mapWidth + sx;
+                for (int cx = sx; cx <= ex; cx++, c++, wx += stepX) {
+                    float dx = wx - x;
+                    float d2 = dx * dx + dy2;
+                    if (d2 >= r2) continue;
+                    if (occluded && blocked(x, y, wx, wy, occFrom, occTo)) continue;
+                    float f = 1f - d2 * inv;
+                    f *= f;
+                    red[c] += cr * f;
+                    green[c] += cg * f;
+                    blue[c] += cb * f;
+                }
+            }
+        }
+
+        // картинка-затемнение для render()
+        float tintScale = 255f * tint;
+        for (int cy = cy0; cy < cy1; cy++) {
+            int row = cy * mapWidth;
+            for (int c = row + cx0; c < row + cx1; c++) {
+                float r = Math.min(red[c], 1f), g = Math.min(green[c], 1f), b = Math.min(blue[c], 1f);
+                red[c] = r;
+                green[c] = g;
+                blue[c] = b;
+                float max = Math.max(r, Math.max(g, b));
+                int alpha = (int) ((1f - max) * 255f + 0.5f);
+                if (max <= 0f || tintScale == 0f) {
+                    overlayPixels[c] = alpha << 24;
+                } else {
+                    // оттенок: цвет света, нормированный к его яркости
+                    float k = tintScale / max;
+                    overlayPixels[c] = (alpha << 24) | ((int) (r * k) << 16) | ((int) (g * k) << 8) | (int) (b * k);
+                }
+            }
+        }
+    }
+
+    /** Перекрыт ли отрезок (x0,y0)-(x1,y1) каким-нибудь препятствием (Лианг–Барски). */
+    private boolean blocked(float x0, float y0, float x1, float y1, int from, int to) {
+        final float[] ox = this.ox, oy = this.oy, ox2 = this.ox2, oy2 = this.oy2;
+        final int[] occIndex = this.occIndex;
+        float dx = x1 - x0, dy = y1 - y0;
+        float minX = Math.min(x0, x1), maxX = Math.max(x0, x1);
+        float minY = Math.min(y0, y1), maxY = Math.max(y0, y1);
+        for (int k = from; k < to; k++) {
+            int o = occIndex[k];
+            // быстрый отсев: препятствие вне рамки отрезка
+            if (ox[o] > maxX || ox2[o] < minX || oy[o] > maxY || oy2[o] < minY) continue;
+            float t0 = 0f, t1 = 1f;
+            // по X
+            if (dx == 0f) {
+                if (x0 < ox[o] || x0 > ox2[o]) continue;
+            } else {
+                float a = (ox[o] - x0) / dx, b = (ox2[o] - x0) / dx;
+                if (a > b) { float s = a; a = b; b = s; }
+                t0 = Math.max(t0, a);
+                t1 = Math.min(t1, b);
+                if (t0 > t1) continue;
+            }
+            // по Y
+            if (dy == 0f) {
+                if (y0 < oy[o] || y0 > oy2[o]) continue;
+            } else {
+                float a = (oy[o] - y0) / dy, b = (oy2[o] - y0) / dy;
+                if (a > b) { float s = a; a = b; b = s; }
+                t0 = Math.max(t0, a);
+                t1 = Math.min(t1, b);
+                if (t0 > t1) continue;
+            }
+            // клетка внутри препятствия сама освещается — стены не чёрные
+            if (t0 < 1f) {
+                if (x1 >= ox[o] && x1 <= ox2[o] && y1 >= oy[o] && y1 <= oy2[o]) continue;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float bilerp(float[] m, int a, int b, int c, int d, float fx, float fy) {
+        float top = m[a] + (m[b] - m[a]) * fx;
+        float bottom = m[c] + (m[d] - m[c]) * fx;
+        return top + (bottom - top) * fy;
+    }
+}
@@ -0,0 +1,63 @@
+package net.wander.utils.net;
+
+/**
+ * Чтение значений, записанных BitWriter.
+ * При выходе за конец пакета кидает IllegalStateException (пакет битый — его надо выбросить).
+ */
+public final class BitReader {
+
+    private byte[] buf;
+    private int limit;
+    private int bytePos;
+    private long acc;
+    private int accBits;
+
+    public BitReader() {
+    }
+
+    public BitReader(byte[] buf, int length) {
+        reset(buf, length);
+    }
+
+    public void reset(byte[] buf, int length) {
+        this.buf = buf;
+        this.limit = length;
+        this.bytePos = 0;
+        this.acc = 0;
+        this.accBits = 0;
+    }
+
+    /** Прочитать bits бит (от 1 до 32) как беззнаковое. */
+    public long readBits(int bits) {
+        while (accBits < bits) {
+            if (bytePos >= limit) throw new IllegalStateException("Packet underflow");
+            acc |= (long) (buf[bytePos++] & 0xff) << accBits;
+            accBits += 8;
+        }
+        long v = acc & ((1L << bits) - 1);
+        acc >>>= bits;
+        accBits -= bits;
+        return v;
+    }
+
+    /** Сколько бит ещё не прочитано. */
+    public long remainingBits() {
+        return (long) (limit - bytePos) * 8 + accBits;
+    }
+
+    public boolean readBool() {
+        return readBits(1) != 0;
+    }
+
+    public long readUnsigned() {
+        if (readBits(1) == 0) return readBits(6);
+        if (readBits(1) == 0) return readBits(14);
+        if (readBits(1) == 0) return readBits(22);
+        return readBits(32);
+    }
+
+    public int readSigned() {
+        int u = (int) readUnsigned();
+        return (u >>> 1) ^ -(u & 1);
+    }
+}
@@ -0,0 +1,83 @@
+package net.wander.utils.net;
+
+import java.util.Arrays;
+
+/**
+ * Запись значений по битам (младшие биты первыми).
+ * Буфер переиспользуется: reset() перед каждым новым пакетом.
+ */
+public final class BitWriter {
+
+    private byte[] buf;
+    private int bytePos = 0;
+    private long acc = 0;     // ещё не записанные биты
+    private int accBits = 0;
+
+    public BitWriter() {
+        this(256);
+    }
+
+    public BitWriter(int capacity) {
+        this.buf = new byte[Math.max(16, capacity)];
+    }
+
+    public void reset() {
+        bytePos = 0;
+        acc = 0;
+        accBits = 0;
+    }
+
+    /** Записать младшие bits бит значения (bits от 1 до 32). */
+    public void writeBits(long value, int bits) {
+        acc |= (value & ((1L << bits) - 1)) << accBits;
+        accBits += bits;
+        while (accBits >= 8) {
+            if (bytePos == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            buf[bytePos++] = (byte) acc;
+            acc >>>= 8;
+            accBits -= 8;
+        }
+    }
+
+    public void writeBool(boolean v) {
+        writeBits(v ? 1 : 0, 1);
+    }
+
+    /**
+     * Беззнаковое число 0..2^32-1 переменной длины:
+     * 0+6 бит, 10+14 бит, 110+22 бита, 111+32 бита.
+     */
+    public void writeUnsigned(long v) {
+        if (v < (1L << 6)) {
+            writeBits(0b0, 1);
+            writeBits(v, 6);
+        } else if (v < (1L << 14)) {
+            writeBits(0b01, 2);
+            writeBits(v, 14);
+        } else if (v < (1L << 22)) {
+            writeBits(0b011, 3);
+            writeBits(v, 22);
+        } else {
+            writeBits(0b111, 3);
+            writeBits(v, 32);
+        }
+    }
+
+    /** Знаковое число переменной длины (zigzag: маленькие по модулю — короткие). */
+    public void writeSigned(int v) {
+        writeUnsigned(((v << 1) ^ (v >> 31)) & 0xffffffffL);
+    }
+
+    /** Дописать неполный байт. Возвращает длину пакета в байтах. */
+    public int finish() {
+        if (accBits > 0) {
+            writeBits(0, 8 - accBits);
+        }
+        return bytePos;
+    }
+
+    /** Внутренний буфер (валидны первые finish() байт). */
+    public byte[] buffer() {
+        return buf;
+    }
+}
@@ -0,0 +1,34 @@
+package net.wander.utils.net;
+
+/**
+ * Имитация плохой сети для тестов по loopback: потери, задержка, джиттер.
+ * Применяется к исходящим пакетам той стороны, которой задана.
+ */
+public final class NetConditions {
+
+    /** Идеальная сеть (по умолчанию). */
+    public static final NetConditions NONE = new NetConditions(0.0, 0, 0);
+
+    private final double loss;
+    private final int latencyMs;
+    private final int jitterMs;
+
+    /**
+     * @param loss      доля потерянных пакетов 0..1
+     * @param latencyMs задержка в одну сторону, мс
+     * @param jitterMs  случайная добавка к задержке 0..jitterMs, мс
+     */
+    public NetConditions(double loss, int latencyMs, int jitterMs) {
+        this.loss = Math.max(0.0, Math.min(loss, 1.0));
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+    }
+
+    public double getLoss()   { return loss; }
+    public int getLatencyMs() { return latencyMs; }
+    public int getJitterMs()  { return jitterMs; }
+
+    boolean isPerfect() {
+        return loss == 0.0 && latencyMs == 0 && jitterMs == 0;
+    }
+}
@@ -0,0 +1,99 @@
+package net.wander.utils.net;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Отправка датаграмм через неблокирующий канал с учётом NetConditions.
+ * Используется только из одного (сетевого) потока.
+ */
+final class PacketLink {
+
+    private final DatagramChannel channel;
+    private final Random random = new Random();
+    private volatile NetConditions conditions = NetConditions.NONE;
+
+    // отложенные пакеты (имитация задержки), по времени отправки
+    private final PriorityQueue<Delayed> delayed = new PriorityQueue<>();
+    private long sequence = 0;
+
+    private volatile long bytesSent = 0;
+    private volatile long packetsSent = 0;
+
+    PacketLink(DatagramChannel channel) {
+        this.channel = channel;
+    }
+
+    void setConditions(NetConditions c) {
+        this.conditions = c == null ? NetConditions.NONE : c;
+    }
+
+    NetConditions getConditions() {
+        return conditions;
+    }
+
+    /** Отправить (или отложить/потерять) пакет. data копируется, если нужно отложить. */
+    void send(byte[] data, int length, SocketAddress to) throws IOException {
+        bytesSent += length;
+        packetsSent++;
+
+        NetConditions c = conditions;
+        if (c.isPerfect()) {
+            channel.send(ByteBuffer.wrap(data, 0, length), to);
+            return;
+        }
+        if (random.nextDouble() < c.getLoss()) return;
+
+        long delayNs = (c.getLatencyMs() + (c.getJitterMs() > 0 ? random.nextInt(c.getJitterMs() + 1) : 0)) * 1_000_000L;
+        if (delayNs == 0) {
+            channel.send(ByteBuffer.wrap(data, 0, length), to);
+            return;
+        }
+        byte[] copy = new byte[length];
+        System.arraycopy(data, 0, copy, 0, length);
+        delayed.add(new Delayed(System.nanoTime() + delayNs, sequence++, copy, to));
+    }
+
+    /** Отправить пакеты, время которых пришло. */
+    void flush() throws IOException {
+        long now = System.nanoTime();
+        while (!delayed.isEmpty() && delayed.peek().due <= now) {
+            Delayed d = delayed.poll();
+            channel.send(ByteBuffer.wrap(d.data), d.to);
+        }
+    }
+
+    /** Через сколько мс нужен следующий flush (0 — ждать нечего). */
+    long nextFlushMs() {
+        if (delayed.isEmpty()) return 0;
+        long ms = (delayed.peek().due - System.nanoTime()) / 1_000_000L;
+        return Math.max(1, ms);
+    }
+
+    long getBytesSent()   { return bytesSent; }
+    long getPacketsSent() { return packetsSent; }
+
+    private static final class Delayed implements Comparable<Delayed> {
+        final long due;
+        final long seq;
+        final byte[] data;
+        final SocketAddress to;
+
+        Delayed(long due, long seq, byte[] data, SocketAddress to) {
+            this.due = due;
+            this.seq = seq;
+            this.data = data;
+            this.to = to;
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            if (due != o.due) return Long.compare(due, o.due);
+            return Long.compare(seq, o.seq);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.wander.utils.net;
+
+/** Константы протокола репликации. */
+final class Protocol {
+
+    static final int HELLO    = 1;  // клиент -> сервер: "я тут"
+    static final int ACK      = 2;  // клиент -> сервер: получил снимок tick
+    static final int SNAPSHOT = 3;  // сервер -> клиент: снимок (возможно дельта)
+    static final int BYE      = 4;  // клиент -> сервер: отключаюсь
+
+    static final int TYPE_BITS = 8;
+    static final int NO_BASELINE = -1;
+
+    /** Максимальный размер UDP-пакета (фрагментации нет — на loopback и в LAN хватает). */
+    static final int MAX_PACKET = 65507;
+
+    /** Сколько последних снимков хранится для дельт (степень двойки). */
+    static final int HISTORY = 64;
+
+    private Protocol() {}
+}
@@ -0,0 +1,297 @@
+package net.wander.utils.net;
+
+import net.wander.objects.GameObject;
+import net.wander.utils.MathUtil;
+import net.wander.utils.Scene;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntFunction;
+
+/**
+ * Клиент репликации: принимает снимки от ReplicationServer и показывает их в своей сцене.
+ *
+ *   ReplicationClient client = new ReplicationClient(type -> type == TYPE_PLAYER ? new Player() : new Enemy(), 20);
+ *   client.connect(new InetSocketAddress("localhost", 7777));
+ *   ...
+ *   // каждый кадр, перед scene.update/render:
+ *   client.apply(scene);
+ *
+ * Объекты показываются с небольшой задержкой (getInterpolationDelay) и плавно
+ * интерполируются между двумя снимками — так потери и неровная доставка не видны.
+ */
+public class ReplicationClient {
+
+    private static final long HELLO_INTERVAL_NS = 250_000_000L;
+
+    private final IntFunction<GameObject> factory;
+    private final double tickRate;
+    private volatile double interpolationDelay;
+
+    // ---- сетевой поток ----
+    private DatagramChannel channel;
+    private Selector selector;
+    private PacketLink link;
+    private Thread ioThread;
+    private volatile boolean running = false;
+    private final Snapshot[] history = new Snapshot[Protocol.HISTORY]; // базы для дельт
+    private int newestTick = Protocol.NO_BASELINE;
+    private final BitReader reader = new BitReader();
+    private final BitWriter writer = new BitWriter(16);
+    private final ByteBuffer recv = ByteBuffer.allocate(Protocol.MAX_PACKET);
+    private volatile long bytesReceived = 0;
+    private volatile long snapshotsReceived = 0;
+    private NetConditions pendingConditions = NetConditions.NONE;
+
+    // ---- передача в игровой поток ----
+    private final Queue<Snapshot> received = new ConcurrentLinkedQueue<>();
+
+    // ---- игровой поток ----
+    private final ArrayDeque<Snapshot> buffer = new ArrayDeque<>();
+    private final Map<Integer, Replica> replicas = new HashMap<>();
+    private int applyStamp = 0;
+
+    /**
+     * @param factory  создаёт объект по "типу", который сервер передал в track()
+     * @param tickRate сколько раз в секунду сервер вызывает publish()
+     */
+    public ReplicationClient(IntFunction<GameObject> factory, double tickRate) {
+        if (factory == null) throw new IllegalArgumentException("factory is null");
+        if (tickRate <= 0) throw new IllegalArgumentException("tickRate must be > 0");
+        this.factory = factory;
+        this.tickRate = tickRate;
+        this.interpolationDelay = 2.0 / tickRate;
+    }
+
+    // ================== ПОДКЛЮЧЕНИЕ ==================
+
+    public synchronized void connect(InetSocketAddress server) throws IOException {
+        if (running) return;
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(server);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        link = new PacketLink(channel);
+        link.setConditions(pendingConditions);
+
+        running = true;
+        ioThread = new Thread(this::ioLoop, "ReplicationClient");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    public synchronized void disconnect() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    /** Имитация потерь/задержки для исходящих пакетов клиента (ACK). */
+    public synchronized void setConditions(NetConditions conditions) {
+        pendingConditions = conditions;
+        if (link != null) link.setConditions(conditions);
+    }
+
+    public double getInterpolationDelay() {
+        return interpolationDelay;
+    }
+
+    /** Насколько показ отстаёт от сервера (сек). Больше — плавнее при потерях, но больше задержка. */
+    public void setInterpolationDelay(double seconds) {
+        this.interpolationDelay = Math.max(0.0, seconds);
+    }
+
+    public long getBytesReceived()     { return bytesReceived; }
+    public long getSnapshotsReceived() { return snapshotsReceived; }
+
+    // ================== ПРИМЕНЕНИЕ К СЦЕНЕ (игровой поток) ==================
+
+    /**
+     * Обновить объекты сцены по принятым снимкам: создать новые, убрать исчезнувшие,
+     * выставить интерполированные позиции.
+     */
+    public void apply(Scene scene) {
+        Snapshot s;
+        while ((s = received.poll()) != null) {
+            if (buffer.isEmpty() || s.tick - buffer.peekLast().tick > 0) buffer.addLast(s);
+        }
+        if (buffer.isEmpty()) return;
+
+        Snapshot newest = buffer.peekLast();
+        double serverTick = newest.tick + (System.nanoTime() - newest.receivedAt) / 1e9 * tickRate;
+        double renderTick = serverTick - interpolationDelay * tickRate;
+
+        // выкидываем снимки, которые уже целиком в прошлом
+        while (buffer.size() > 2) {
+            Iterator<Snapshot> it = buffer.iterator();
+            it.next();
+            if (it.next().tick <= renderTick) buffer.pollFirst();
+            else break;
+        }
+
+        Snapshot a = buffer.peekFirst();
+        Snapshot b = a;
+        if (buffer.size() > 1) {
+            Iterator<Snapshot> it = buffer.iterator();
+            it.next();
+            b = it.next();
+        }
+        double alpha = 0.0;
+        if (b != a) {
+            alpha = (renderTick - a.tick) / (b.tick - a.tick);
+            alpha = Math.max(0.0, Math.min(alpha, 1.0));
+        }
+
+        applyStamp++;
+        for (int i = 0; i < b.count; i++) {
+            int id = b.ids[i];
+            Replica r = replicas.get(id);
+            if (r == null || r.type != b.types[i]) {
+                if (r != null) remove(scene, r);
+                GameObject obj = factory.apply(b.types[i]);
+                if (obj == null) continue;
+                r = new Replica(obj, b.types[i]);
+                replicas.put(id, r);
+                scene.addObject(obj);
+            }
+            r.stamp = applyStamp;
+
+            int ai = a == b ? i : a.indexOf(id);
+            double x, y, rot;
+            if (ai < 0) {
+                x = Snapshot.position(b.xs[i]);
+                y = Snapshot.position(b.ys[i]);
+                rot = Snapshot.rotation(b.rots[i]);
+            } else {
+                x = MathUtil.lerp(Snapshot.position(a.xs[ai]), Snapshot.position(b.xs[i]), alpha);
+                y = MathUtil.lerp(Snapshot.position(a.ys[ai]), Snapshot.position(b.ys[i]), alpha);
+                // по кратчайшей дуге
+                int dr = (short) (b.rots[i] - a.rots[ai]);
+                rot = Snapshot.rotation(a.rots[ai]) + dr * alpha * (2.0 * Math.PI) / Snapshot.ROTATION_STEPS;
+            }
+            GameObject o = r.obj;
+            o.setPosition(x, y);
+            o.setRotation(rot);
+            o.setVisible((b.flags[i] & Snapshot.FLAG_VISIBLE) != 0);
+            o.setActive((b.flags[i] & Snapshot.FLAG_ACTIVE) != 0);
+        }
+
+        // объекты, которых больше нет на сервере
+        Iterator<Replica> it = replicas.values().iterator();
+        while (it.hasNext()) {
+            Replica r = it.next();
+            if (r.stamp != applyStamp) {
+                it.remove();
+                remove(scene, r);
+            }
+        }
+    }
+
+    private static void remove(Scene scene, Replica r) {
+        r.obj.destroy();
+        scene.removeObject(r.obj);
+    }
+
+    // ================== СЕТЕВОЙ ПОТОК ==================
+
+    private void ioLoop() {
+        long lastHello = 0;
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                if (newestTick == Protocol.NO_BASELINE && now - lastHello > HELLO_INTERVAL_NS) {
+                    sendSimple(Protocol.HELLO, 0, false);
+                    lastHello = now;
+                }
+
+                long flushMs = link.nextFlushMs();
+                long timeout = newestTick == Protocol.NO_BASELINE ? HELLO_INTERVAL_NS / 1_000_000L : 0;
+                if (flushMs > 0) timeout = timeout == 0 ? flushMs : Math.min(timeout, flushMs);
+                selector.select(timeout);
+                selector.selectedKeys().clear();
+
+                receiveAll();
+                link.flush();
+            }
+            sendSimple(Protocol.BYE, 0, false);
+        } catch (IOException e) {
+            if (running) System.err.println("ReplicationClient: " + e.getMessage());
+        }
+    }
+
+    private void receiveAll() throws IOException {
+        while (true) {
+            recv.clear();
+            if (channel.receive(recv) == null) break;
+            recv.flip();
+            bytesReceived += recv.limit();
+            reader.reset(recv.array(), recv.limit());
+            try {
+                if (reader.readBits(Protocol.TYPE_BITS) == Protocol.SNAPSHOT) handleSnapshot();
+            } catch (RuntimeException badPacket) {
+                // битый пакет — игнорируем, сетевой поток продолжает работать
+            }
+        }
+    }
+
+    private void handleSnapshot() throws IOException {
+        int tick = (int) reader.readBits(32);
+        int baseTick = (int) reader.readBits(32);
+
+        Snapshot base = null;
+        if (baseTick != Protocol.NO_BASELINE) {
+            base = history[baseTick & (Protocol.HISTORY - 1)];
+            if (base == null || base.tick != baseTick) return; // базы нет — ждём следующий
+        }
+
+        Snapshot s = Snapshot.readDelta(reader, tick, base);
+        s.receivedAt = System.nanoTime();
+        history[tick & (Protocol.HISTORY - 1)] = s;
+        snapshotsReceived++;
+        sendSimple(Protocol.ACK, tick, true);
+
+        if (newestTick == Protocol.NO_BASELINE || tick - newestTick > 0) {
+            newestTick = tick;
+            received.offer(s);
+        }
+    }
+
+    private void sendSimple(int type, int value, boolean withValue) throws IOException {
+        writer.reset();
+        writer.writeBits(type, Protocol.TYPE_BITS);
+        if (withValue) writer.writeBits(value, 32);
+        int length = writer.finish();
+        link.send(writer.buffer(), length, channel.getRemoteAddress());
+    }
+
+    private static final class Replica {
+        final GameObject obj;
+        final int type;
+        int stamp;
+
+        Replica(GameObject obj, int type) {
+            this.obj = obj;
+            this.type = type;
+        }
+    }
+}
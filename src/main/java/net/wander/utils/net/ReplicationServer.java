@@ -0,0 +1,310 @@
+package net.wander.utils.net;
+
+import net.wander.objects.GameObject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Сервер репликации: рассылает клиентам состояние объектов сцены.
+ *
+ *   ReplicationServer server = new ReplicationServer();
+ *   server.start(7777);
+ *   server.track(player, TYPE_PLAYER);     // какие объекты реплицировать и их "тип" для клиента
+ *   ...
+ *   // в игровом цикле, N раз в секунду (например, через scene.getScheduler().every(1/20.0, ...)):
+ *   server.publish();
+ *
+ * Каждый тик снимается компактный снимок (позиция, поворот, флаги).
+ * Каждому клиенту уходит дельта к последнему подтверждённому им снимку, упакованная по битам.
+ * Вся сеть — один поток с Selector и неблокирующим DatagramChannel.
+ */
+public class ReplicationServer {
+
+    private static final long CLIENT_TIMEOUT_NS = 5_000_000_000L;
+
+    // ---- игровой поток ----
+    private final List<Entry> tracked = new ArrayList<>();   // по возрастанию id
+    private int nextId = 1;
+    private int tick = 0;
+
+    // ---- общее ----
+    private final AtomicReferenceArray<Snapshot> history = new AtomicReferenceArray<>(Protocol.HISTORY);
+    private final Queue<Snapshot> outbox = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = false;
+    private volatile int clientCount = 0;
+    private volatile long encodeNanos = 0;
+    private volatile long snapshotsSent = 0;
+
+    // ---- сетевой поток ----
+    private DatagramChannel channel;
+    private Selector selector;
+    private PacketLink link;
+    private Thread ioThread;
+    private final Map<SocketAddress, Client> clients = new HashMap<>();
+    private final BitWriter writer = new BitWriter(4096);
+    private final BitReader reader = new BitReader();
+    private final ByteBuffer recv = ByteBuffer.allocate(Protocol.MAX_PACKET);
+
+    private NetConditions pendingConditions = NetConditions.NONE;
+
+    // ================== ЗАПУСК ==================
+
+    /** Слушать порт на всех интерфейсах (0 — любой свободный). */
+    public void start(int port) throws IOException {
+        start(new InetSocketAddress(port));
+    }
+
+    public synchronized void start(InetSocketAddress bindAddress) throws IOException {
+        if (running) return;
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(bindAddress);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        link = new PacketLink(channel);
+        link.setConditions(pendingConditions);
+
+        running = true;
+        ioThread = new Thread(this::ioLoop, "ReplicationServer");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    /** Адрес, на котором реально слушаем (полезно при порте 0). */
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /** Имитация потерь/задержки для исходящих пакетов. */
+    public synchronized void setConditions(NetConditions conditions) {
+        pendingConditions = conditions;
+        if (link != null) link.setConditions(conditions);
+    }
+
+    // ================== ОБЪЕКТЫ (игровой поток) ==================
+
+    /**
+     * Начать реплицировать объект.
+     * @param type число, по которому клиент поймёт, какой объект создать (см. ReplicationClient)
+     * @return сетевой id объекта
+     */
+    public int track(GameObject obj, int type) {
+        for (Entry e : tracked) {
+            if (e.obj == obj) return e.id;
+        }
+        Entry e = new Entry(obj, nextId++, type);
+        tracked.add(e);
+        return e.id;
+    }
+
+    /** Перестать реплицировать (у клиентов объект исчезнет). Уничтоженные объекты убираются сами. */
+    public void untrack(GameObject obj) {
+        tracked.removeIf(e -> e.obj == obj);
+    }
+
+    /**
+     * Снять снимок всех отслеживаемых объектов и отправить клиентам.
+     * Вызывай с частотой сетевого тика.
+     * @return номер тика
+     */
+    public int publish() {
+        tick++;
+        Snapshot s = new Snapshot(tick, tracked.size());
+        Iterator<Entry> it = tracked.iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            GameObject o = e.obj;
+            if (o.isDestroyed()) {
+                it.remove();
+                continue;
+            }
+            int flags = (o.isVisible() ? Snapshot.FLAG_VISIBLE : 0) | (o.isActive() ? Snapshot.FLAG_ACTIVE : 0);
+            s.add(e.id, e.type,
+                    Snapshot.quantizePosition(o.getX()),
+                    Snapshot.quantizePosition(o.getY()),
+                    Snapshot.quantizeRotation(o.getRotation()),
+                    flags);
+        }
+        history.set(tick & (Protocol.HISTORY - 1), s);
+        if (running) {
+            outbox.offer(s);
+            selector.wakeup();
+        }
+        return tick;
+    }
+
+    // ================== СТАТИСТИКА ==================
+
+    public int getClientCount() {
+        return clientCount;
+    }
+
+    /** Всего отправлено байт (включая потерянные имитацией). */
+    public long getBytesSent() {
+        return link == null ? 0 : link.getBytesSent();
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    /** Суммарное время кодирования снимков (нс) — цена сервера на клиентов. */
+    public long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    // ================== СЕТЕВОЙ ПОТОК ==================
+
+    private void ioLoop() {
+        try {
+            while (running) {
+                selector.select(link.nextFlushMs());
+                selector.selectedKeys().clear();
+
+                receiveAll();
+
+                // если накопилось несколько тиков — шлём только последний
+                Snapshot latest = null;
+                Snapshot s;
+                while ((s = outbox.poll()) != null) latest = s;
+                if (latest != null) {
+                    for (Map.Entry<SocketAddress, Client> e : clients.entrySet()) {
+                        sendSnapshot(e.getKey(), e.getValue(), latest);
+                    }
+                }
+
+                link.flush();
+                dropSilentClients();
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("ReplicationServer: " + e.getMessage());
+        }
+    }
+
+    private void receiveAll() throws IOException {
+        SocketAddress from;
+        while (true) {
+            recv.clear();
+            from = channel.receive(recv);
+            if (from == null) break;
+            recv.flip();
+            reader.reset(recv.array(), recv.limit());
+            try {
+                handlePacket(from);
+            } catch (IllegalStateException badPacket) {
+                // битый пакет — игнорируем
+            }
+        }
+    }
+
+    private void handlePacket(SocketAddress from) {
+        int type = (int) reader.readBits(Protocol.TYPE_BITS);
+        Client c = clients.get(from);
+        switch (type) {
+            case Protocol.HELLO:
+                if (c == null) {
+                    clients.put(from, new Client());
+                    clientCount = clients.size();
+                } else {
+                    // клиент переподключился — начнём с полного снимка
+                    c.lastAck = Protocol.NO_BASELINE;
+                    c.lastSeen = System.nanoTime();
+                }
+                break;
+            case Protocol.ACK:
+                if (c == null) return;
+                int acked = (int) reader.readBits(32);
+                if (c.lastAck == Protocol.NO_BASELINE || acked - c.lastAck > 0) c.lastAck = acked;
+                c.lastSeen = System.nanoTime();
+                break;
+            case Protocol.BYE:
+                if (c != null) {
+                    clients.remove(from);
+                    clientCount = clients.size();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void sendSnapshot(SocketAddress to, Client c, Snapshot s) throws IOException {
+        long t0 = System.nanoTime();
+
+        Snapshot base = null;
+        if (c.lastAck != Protocol.NO_BASELINE) {
+            base = history.get(c.lastAck & (Protocol.HISTORY - 1));
+            if (base != null && base.tick != c.lastAck) base = null; // уже вытеснен — шлём полный
+        }
+
+        writer.reset();
+        writer.writeBits(Protocol.SNAPSHOT, Protocol.TYPE_BITS);
+        writer.writeBits(s.tick, 32);
+        writer.writeBits(base == null ? Protocol.NO_BASELINE : base.tick, 32);
+        Snapshot.writeDelta(writer, s, base);
+        int length = writer.finish();
+
+        encodeNanos += System.nanoTime() - t0;
+        if (length > Protocol.MAX_PACKET) {
+            System.err.println("ReplicationServer: snapshot too large (" + length + " bytes)");
+            return;
+        }
+        link.send(writer.buffer(), length, to);
+        snapshotsSent++;
+    }
+
+    private void dropSilentClients() {
+        long now = System.nanoTime();
+        if (clients.values().removeIf(c -> now - c.lastSeen > CLIENT_TIMEOUT_NS)) {
+            clientCount = clients.size();
+        }
+    }
+
+    // ================== ВНУТРЕННИЕ ТИПЫ ==================
+
+    private static final class Entry {
+        final GameObject obj;
+        final int id;
+        final int type;
+
+        Entry(GameObject obj, int id, int type) {
+            this.obj = obj;
+            this.id = id;
+            this.type = type;
+        }
+    }
+
+    private static final class Client {
+        int lastAck = Protocol.NO_BASELINE;
+        long lastSeen = System.nanoTime();
+    }
+}
@@ -0,0 +1,228 @@
+package net.wander.utils.net;
+
+import java.util.Arrays;
+
+/**
+ * Состояние всех реплицируемых объектов на один тик.
+ * Объекты упорядочены по id (по возрастанию) — так дельты считаются слиянием двух списков.
+ * Значения уже квантованы: позиция — в 1/16 пикселя, поворот — в 1/65536 оборота.
+ */
+final class Snapshot {
+
+    static final int POSITION_SCALE = 16;
+    static final int ROTATION_STEPS = 1 << 16;
+
+    static final int FLAG_VISIBLE = 1;
+    static final int FLAG_ACTIVE  = 2;
+
+    // какие поля изменились (маска в пакете)
+    static final int FIELD_X     = 1;
+    static final int FIELD_Y     = 2;
+    static final int FIELD_ROT   = 4;
+    static final int FIELD_FLAGS = 8;
+    static final int FIELD_BITS  = 4;
+
+    // минимальный размер записи в пакете (бит): изменённый объект — id + флаг "новый" + маска, удалённый — id
+    private static final int MIN_CHANGED_BITS = 7 + 1 + FIELD_BITS;
+    private static final int MIN_REMOVED_BITS = 7;
+
+    final int tick;
+    long receivedAt;   // System.nanoTime() приёма (только на клиенте)
+    int count = 0;
+    int[] ids;
+    int[] types;
+    int[] xs;
+    int[] ys;
+    int[] rots;
+    int[] flags;
+
+    Snapshot(int tick, int capacity) {
+        this.tick = tick;
+        int c = Math.max(4, capacity);
+        ids = new int[c];
+        types = new int[c];
+        xs = new int[c];
+        ys = new int[c];
+        rots = new int[c];
+        flags = new int[c];
+    }
+
+    void add(int id, int type, int x, int y, int rot, int flag) {
+        if (count == ids.length) {
+            int n = count * 2;
+            ids = Arrays.copyOf(ids, n);
+            types = Arrays.copyOf(types, n);
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+            rots = Arrays.copyOf(rots, n);
+            flags = Arrays.copyOf(flags, n);
+        }
+        ids[count] = id;
+        types[count] = type;
+        xs[count] = x;
+        ys[count] = y;
+        rots[count] = rot;
+        flags[count] = flag;
+        count++;
+    }
+
+    /** Индекс объекта с таким id или -1. */
+    int indexOf(int id) {
+        int i = Arrays.binarySearch(ids, 0, count, id);
+        return i >= 0 ? i : -1;
+    }
+
+    static int quantizePosition(double v) {
+        return (int) Math.round(v * POSITION_SCALE);
+    }
+
+    static double position(int q) {
+        return q / (double) POSITION_SCALE;
+    }
+
+    static int quantizeRotation(double radians) {
+        return (int) Math.round(radians / (2.0 * Math.PI) * ROTATION_STEPS) & (ROTATION_STEPS - 1);
+    }
+
+    static double rotation(int q) {
+        return q * (2.0 * Math.PI) / ROTATION_STEPS;
+    }
+
+    // ================== КОДИРОВАНИЕ ==================
+
+    /**
+     * Записать snapshot как дельту к baseline (null — полный снимок).
+     * Неизменившиеся объекты не пишутся совсем, у изменившихся — только изменившиеся поля.
+     */
+    static void writeDelta(BitWriter out, Snapshot cur, Snapshot base) {
+        // 1) изменённые и новые
+        int changed = 0;
+        for (int i = 0; i < cur.count; i++) {
+            int b = base == null ? -1 : base.indexOf(cur.ids[i]);
+            if (b < 0 || fieldMask(cur, i, base, b) != 0) changed++;
+        }
+        out.writeUnsigned(changed);
+
+        int prevId = 0;
+        for (int i = 0; i < cur.count; i++) {
+            int b = base == null ? -1 : base.indexOf(cur.ids[i]);
+            boolean isNew = b < 0 || base.types[b] != cur.types[i];
+            int mask = isNew ? (FIELD_X | FIELD_Y | FIELD_ROT | FIELD_FLAGS) : fieldMask(cur, i, base, b);
+            if (mask == 0) continue;
+
+            out.writeUnsigned(cur.ids[i] - prevId);
+            prevId = cur.ids[i];
+            out.writeBool(isNew);
+            if (isNew) {
+                out.writeUnsigned(cur.types[i]);
+                b = -1;
+            }
+            out.writeBits(mask, FIELD_BITS);
+            if ((mask & FIELD_X) != 0)     out.writeSigned(cur.xs[i] - (b < 0 ? 0 : base.xs[b]));
+            if ((mask & FIELD_Y) != 0)     out.writeSigned(cur.ys[i] - (b < 0 ? 0 : base.ys[b]));
+            if ((mask & FIELD_ROT) != 0)   out.writeSigned((short) (cur.rots[i] - (b < 0 ? 0 : base.rots[b])));
+            if ((mask & FIELD_FLAGS) != 0) out.writeBits(cur.flags[i], 2);
+        }
+
+        // 2) удалённые (были в baseline, нет сейчас)
+        if (base == null) {
+            out.writeUnsigned(0);
+            return;
+        }
+        int removed = 0;
+        for (int b = 0; b < base.count; b++) {
+            if (cur.indexOf(base.ids[b]) < 0) removed++;
+        }
+        out.writeUnsigned(removed);
+        prevId = 0;
+        for (int b = 0; b < base.count; b++) {
+            if (cur.indexOf(base.ids[b]) >= 0) continue;
+            out.writeUnsigned(base.ids[b] - prevId);
+            prevId = base.ids[b];
+        }
+    }
+
+    /**
+     * Прочитать дельту и собрать полный снимок тика tick на основе base (null — полный).
+     * Счётчики из пакета проверяются по оставшимся битам: битый или чужой пакет даёт
+     * IllegalStateException, а не огромный массив.
+     */
+    static Snapshot readDelta(BitReader in, int tick, Snapshot base) {
+        int changed = readCount(in, MIN_CHANGED_BITS);
+        int[] cIds = new int[changed], cTypes = new int[changed], cMask = new int[changed];
+        int[] cx = new int[changed], cy = new int[changed], cr = new int[changed], cf = new int[changed];
+        boolean[] cNew = new boolean[changed];
+
+        int prevId = 0;
+        for (int k = 0; k < changed; k++) {
+            prevId += (int) in.readUnsigned();
+            cIds[k] = prevId;
+            cNew[k] = in.readBool();
+            if (cNew[k]) cTypes[k] = (int) in.readUnsigned();
+            cMask[k] = (int) in.readBits(FIELD_BITS);
+            if ((cMask[k] & FIELD_X) != 0)     cx[k] = in.readSigned();
+            if ((cMask[k] & FIELD_Y) != 0)     cy[k] = in.readSigned();
+            if ((cMask[k] & FIELD_ROT) != 0)   cr[k] = in.readSigned();
+            if ((cMask[k] & FIELD_FLAGS) != 0) cf[k] = (int) in.readBits(2);
+        }
+
+        int removedCount = readCount(in, MIN_REMOVED_BITS);
+        int[] removed = new int[removedCount];
+        prevId = 0;
+        for (int k = 0; k < removedCount; k++) {
+            prevId += (int) in.readUnsigned();
+            removed[k] = prevId;
+        }
+
+        // слияние baseline и изменений (оба списка по возрастанию id)
+        int baseCount = base == null ? 0 : base.count;
+        Snapshot out = new Snapshot(tick, baseCount + changed);
+        int b = 0, k = 0, r = 0;
+        while (b < baseCount || k < changed) {
+            int bid = b < baseCount ? base.ids[b] : Integer.MAX_VALUE;
+            int kid = k < changed ? cIds[k] : Integer.MAX_VALUE;
+
+            if (bid < kid) {
+                while (r < removedCount && removed[r] < bid) r++;
+                if (r >= removedCount || removed[r] != bid) {
+                    out.add(bid, base.types[b], base.xs[b], base.ys[b], base.rots[b], base.flags[b]);
+                }
+                b++;
+                continue;
+            }
+
+            boolean fromBase = bid == kid && !cNew[k];
+            int type = fromBase ? base.types[b] : cTypes[k];
+            int x = fromBase ? base.xs[b] : 0;
+            int y = fromBase ? base.ys[b] : 0;
+            int rot = fromBase ? base.rots[b] : 0;
+            int flag = fromBase ? base.flags[b] : 0;
+            int m = cMask[k];
+            if ((m & FIELD_X) != 0)     x += cx[k];
+            if ((m & FIELD_Y) != 0)     y += cy[k];
+            if ((m & FIELD_ROT) != 0)   rot = (rot + cr[k]) & (ROTATION_STEPS - 1);
+            if ((m & FIELD_FLAGS) != 0) flag = cf[k];
+            out.add(kid, type, x, y, rot, flag);
+
+            if (bid == kid) b++;
+            k++;
+        }
+        return out;
+    }
+
+    private static int readCount(BitReader in, int minBitsPerEntry) {
+        long n = in.readUnsigned();
+        if (n > in.remainingBits() / minBitsPerEntry) throw new IllegalStateException("Bad entry count: " + n);
+        return (int) n;
+    }
+
+    private static int fieldMask(Snapshot cur, int i, Snapshot base, int b) {
+        int mask = 0;
+        if (cur.xs[i] != base.xs[b])       mask |= FIELD_X;
+        if (cur.ys[i] != base.ys[b])       mask |= FIELD_Y;
+        if (cur.rots[i] != base.rots[b])   mask |= FIELD_ROT;
+        if (cur.flags[i] != base.flags[b]) mask |= FIELD_FLAGS;
+        if (cur.types[i] != base.types[b]) mask |= FIELD_X | FIELD_Y | FIELD_ROT | FIELD_FLAGS;
+        return mask;
+    }
+}
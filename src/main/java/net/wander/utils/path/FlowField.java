@@ -0,0 +1,98 @@
+package net.wander.utils.path;
+
+/**
+ * Поле потоков к одной цели: для каждой клетки — куда шагать, чтобы дойти до цели.
+ * Одно поле обслуживает сколько угодно агентов с той же целью.
+ *
+ * Считается в фоне; пока первый расчёт не пришёл, isReady() == false.
+ * При изменении сетки поле пересчитывается, а до прихода нового результата
+ * агенты продолжают ходить по старому.
+ */
+public final class FlowField {
+
+    private static final double DIAG = Math.sqrt(0.5);
+
+    private final NavGrid grid;
+    private final int goalCell;
+
+    private int[] dist;      // стоимость до цели, -1 = недостижимо
+    private byte[] dir;      // направление шага, -1 = некуда
+
+    // служебное для Pathfinder (только игровой поток)
+    int computedVersion = -1;
+    int pendingVersion = -1;
+    long lastUsedFrame;
+
+    FlowField(NavGrid grid, int goalCell) {
+        this.grid = grid;
+        this.goalCell = goalCell;
+    }
+
+    /** Первый расчёт уже готов? */
+    public boolean isReady() {
+        return dir != null;
+    }
+
+    /** Посчитано по актуальной версии сетки? */
+    public boolean isUpToDate() {
+        return computedVersion == grid.getVersion();
+    }
+
+    public double getGoalX() {
+        return grid.toWorldX(goalCell % grid.getWidth());
+    }
+
+    public double getGoalY() {
+        return grid.toWorldY(goalCell / grid.getWidth());
+    }
+
+    /** X-составляющая единичного направления к цели из мировой точки (0, если некуда/не готово). */
+    public double getDirX(double wx, double wy) {
+        int d = direction(wx, wy);
+        if (d < 0) return 0.0;
+        return GridSearch.DX[d] * ((d & 1) == 1 ? DIAG : 1.0);
+    }
+
+    /** Y-составляющая единичного направления к цели. */
+    public double getDirY(double wx, double wy) {
+        int d = direction(wx, wy);
+        if (d < 0) return 0.0;
+        return GridSearch.DY[d] * ((d & 1) == 1 ? DIAG : 1.0);
+    }
+
+    /** Можно ли дойти до цели из мировой точки. */
+    public boolean isReachable(double wx, double wy) {
+        int i = cellIndex(wx, wy);
+        return i >= 0 && dist != null && dist[i] >= 0;
+    }
+
+    /** Стоимость пути до цели (10 за прямой шаг по обычной клетке), -1 — недостижимо. */
+    public int getDistance(double wx, double wy) {
+        int i = cellIndex(wx, wy);
+        if (i < 0 || dist == null) return -1;
+        return dist[i];
+    }
+
+    /** Подменить данные свежим расчётом (игровой поток). */
+    void publish(int version, int[] dist, byte[] dir) {
+        this.dist = dist;
+        this.dir = dir;
+        this.computedVersion = version;
+    }
+
+    int getGoalCell() {
+        return goalCell;
+    }
+
+    private int direction(double wx, double wy) {
+        int i = cellIndex(wx, wy);
+        if (i < 0 || dir == null) return -1;
+        return dir[i];
+    }
+
+    private int cellIndex(double wx, double wy) {
+        int cx = grid.toCellX(wx), cy = grid.toCellY(wy);
+        if (!grid.inBounds(cx, cy)) return -1;
+        return cy * grid.getWidth() + cx;
+    }
+}
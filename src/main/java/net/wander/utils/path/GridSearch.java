@@ -0,0 +1,189 @@
+package net.wander.utils.path;
+
+import java.util.Arrays;
+
+/**
+ * Сами алгоритмы поиска по сетке (A* и Дейкстра для поля потоков).
+ * Держит рабочие массивы, чтобы не выделять их на каждый запрос:
+ * один экземпляр на поток.
+ */
+final class GridSearch {
+
+    // 8 направлений: →, ↘, ↓, ↙, ←, ↖, ↑, ↗
+    static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    static final int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private static final int STRAIGHT = 10;
+    private static final int DIAGONAL = 14;
+
+    private int[] g = new int[0];
+    private int[] parent = new int[0];
+    private int[] stamp = new int[0];   // "клетка посещена в поиске номер stamp"
+    private int generation = 0;
+
+    private long[] heap = new long[256];
+    private int heapSize = 0;
+
+    /**
+     * A* от start до goal (индексы клеток). Диагонали без срезания углов.
+     * @return клетки пути (включая старт и цель) или null, если пути нет
+     */
+    int[] astar(byte[] cost, int w, int h, int start, int goal) {
+        if (cost[start] == NavGrid.BLOCKED || cost[goal] == NavGrid.BLOCKED) return null;
+        prepare(w * h);
+
+        int gx = goal % w, gy = goal / w;
+        visit(start, 0, -1);
+        push(heuristic(start % w, start / w, gx, gy), start);
+
+        while (heapSize > 0) {
+            long top = pop();
+            int cur = (int) top;
+            if (cur == goal) return reconstruct(goal);
+            int cx = cur % w, cy = cur / w;
+            // устаревшая запись в куче
+            if ((int) (top >>> 32) - heuristic(cx, cy, gx, gy) > g[cur]) continue;
+
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (!canStep(cost, w, h, cx, cy, d)) continue;
+                int n = ny * w + nx;
+                int ng = g[cur] + stepCost(cost[n], d);
+                if (stamp[n] != generation || ng < g[n]) {
+                    visit(n, ng, cur);
+                    push(ng + heuristic(nx, ny, gx, gy), n);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Дейкстра от цели по всей сетке: dist — стоимость дойти до цели (-1 = недостижимо),
+     * dir — куда шагать из клетки (индекс в DX/DY, -1 = некуда).
+     */
+    void flowField(byte[] cost, int w, int h, int goal, int[] dist, byte[] dir) {
+        Arrays.fill(dist, -1);
+        Arrays.fill(dir, (byte) -1);
+        if (cost[goal] == NavGrid.BLOCKED) return;
+        prepare(w * h);
+
+        visit(goal, 0, -1);
+        push(0, goal);
+        while (heapSize > 0) {
+            long top = pop();
+            int cur = (int) top;
+            if ((int) (top >>> 32) > g[cur]) continue;
+            int cx = cur % w, cy = cur / w;
+
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (!canStep(cost, w, h, cx, cy, d)) continue;
+                int n = ny * w + nx;
+                // агент из n шагает в cur и платит за вход в cur
+                int ng = g[cur] + stepCost(cost[cur], d);
+                if (stamp[n] != generation || ng < g[n]) {
+                    visit(n, ng, cur);
+                    push(ng, n);
+                }
+            }
+        }
+
+        for (int i = 0; i < dist.length; i++) {
+            if (stamp[i] != generation) continue;
+            dist[i] = g[i];
+            int p = parent[i];
+            if (p < 0) continue;
+            int dx = p % w - i % w, dy = p / w - i / w;
+            for (int d = 0; d < 8; d++) {
+                if (DX[d] == dx && DY[d] == dy) {
+                    dir[i] = (byte) d;
+                    break;
+                }
+            }
+        }
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private static boolean canStep(byte[] cost, int w, int h, int cx, int cy, int d) {
+        int nx = cx + DX[d], ny = cy + DY[d];
+        if (nx < 0 || ny < 0 || nx >= w || ny >= h) return false;
+        if (cost[ny * w + nx] == NavGrid.BLOCKED) return false;
+        if ((d & 1) == 1) {
+            // диагональ: обе соседние клетки должны быть проходимы (не режем углы стен)
+            if (cost[cy * w + nx] == NavGrid.BLOCKED || cost[ny * w + cx] == NavGrid.BLOCKED) return false;
+        }
+        return true;
+    }
+
+    private static int stepCost(byte cellCost, int d) {
+        return ((d & 1) == 1 ? DIAGONAL : STRAIGHT) * (cellCost & 0xff);
+    }
+
+    /** Октильная эвристика (допустима при минимальной стоимости клетки 1). */
+    private static int heuristic(int x, int y, int gx, int gy) {
+        int dx = Math.abs(x - gx), dy = Math.abs(y - gy);
+        return STRAIGHT * Math.max(dx, dy) + (DIAGONAL - STRAIGHT) * Math.min(dx, dy);
+    }
+
+    private void prepare(int cells) {
+        if (g.length < cells) {
+            g = new int[cells];
+            parent = new int[cells];
+            stamp = new int[cells];
+            generation = 0;
+        }
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+    }
+
+    private void visit(int cell, int cost, int from) {
+        stamp[cell] = generation;
+        g[cell] = cost;
+        parent[cell] = from;
+    }
+
+    private int[] reconstruct(int goal) {
+        int len = 0;
+        for (int c = goal; c >= 0; c = parent[c]) len++;
+        int[] path = new int[len];
+        for (int c = goal, i = len - 1; c >= 0; c = parent[c], i--) path[i] = c;
+        return path;
+    }
+
+    // --- бинарная куча по long: старшие 32 бита — приоритет, младшие — клетка ---
+
+    private void push(int priority, int cell) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        long v = ((long) priority << 32) | (cell & 0xffffffffL);
+        int i = heapSize++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heap[p] <= v) break;
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = v;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= heapSize) break;
+            if (c + 1 < heapSize && heap[c + 1] < heap[c]) c++;
+            if (heap[c] >= last) break;
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,108 @@
+package net.wander.utils.path;
+
+import java.util.Arrays;
+
+/**
+ * Сетка проходимости для поиска пути.
+ * Каждая клетка имеет стоимость прохода: 0 — стена, 1 — обычная клетка, больше — "дорогая" (болото, песок).
+ *
+ * Координаты мира переводятся в клетки через cellSize (сетка начинается в (0,0)).
+ * Любое изменение сетки увеличивает версию — Pathfinder по ней сбрасывает кэши.
+ */
+public class NavGrid {
+
+    public static final int BLOCKED = 0;
+
+    private final int width;      // в клетках
+    private final int height;     // в клетках
+    private final double cellSize;
+    private final byte[] cost;
+
+    private volatile int version = 0;
+
+    public NavGrid(int width, int height, double cellSize) {
+        if (width <= 0 || height <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException("Invalid grid size");
+        }
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.cost = new byte[width * height];
+        Arrays.fill(cost, (byte) 1);
+    }
+
+    public int getWidth()       { return width; }
+    public int getHeight()      { return height; }
+    public double getCellSize() { return cellSize; }
+
+    /** Версия сетки (растёт при каждом изменении). */
+    public int getVersion() {
+        return version;
+    }
+
+    // ================== КЛЕТКИ ==================
+
+    public boolean inBounds(int cx, int cy) {
+        return cx >= 0 && cy >= 0 && cx < width && cy < height;
+    }
+
+    public boolean isWalkable(int cx, int cy) {
+        return inBounds(cx, cy) && cost[cy * width + cx] != BLOCKED;
+    }
+
+    /** Стоимость клетки (0 = стена). За пределами сетки — стена. */
+    public int getCost(int cx, int cy) {
+        if (!inBounds(cx, cy)) return BLOCKED;
+        return cost[cy * width + cx] & 0xff;
+    }
+
+    /** Установить стоимость клетки 0..255 (0 = стена). */
+    public void setCost(int cx, int cy, int value) {
+        if (!inBounds(cx, cy)) return;
+        byte v = (byte) Math.max(0, Math.min(value, 255));
+        int i = cy * width + cx;
+        if (cost[i] != v) {
+            cost[i] = v;
+            version++;
+        }
+    }
+
+    public void setBlocked(int cx, int cy, boolean blocked) {
+        setCost(cx, cy, blocked ? BLOCKED : 1);
+    }
+
+    /** Заблокировать все клетки, которые задевает мировой прямоугольник (например, bounds стены). */
+    public void blockRect(double x, double y, double w, double h) {
+        int x0 = toCellX(x), y0 = toCellY(y);
+        int x1 = toCellX(x + w - 1e-9), y1 = toCellY(y + h - 1e-9);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                setBlocked(cx, cy, true);
+            }
+        }
+    }
+
+    // ================== МИР <-> КЛЕТКИ ==================
+
+    public int toCellX(double wx) {
+        return (int) Math.floor(wx / cellSize);
+    }
+
+    public int toCellY(double wy) {
+        return (int) Math.floor(wy / cellSize);
+    }
+
+    /** Центр клетки в мировых координатах. */
+    public double toWorldX(int cx) {
+        return (cx + 0.5) * cellSize;
+    }
+
+    public double toWorldY(int cy) {
+        return (cy + 0.5) * cellSize;
+    }
+
+    /** Копия стоимостей — неизменяемый снимок для фоновых потоков. */
+    byte[] snapshot() {
+        return cost.clone();
+    }
+}
@@ -0,0 +1,43 @@
+package net.wander.utils.path;
+
+/**
+ * Найденный путь: список клеток от старта до цели.
+ * Неизменяемый — один и тот же Path может отдаваться из кэша разным агентам.
+ */
+public final class Path {
+
+    private final NavGrid grid;
+    private final int[] cells; // индексы клеток: cy * width + cx
+
+    Path(NavGrid grid, int[] cells) {
+        this.grid = grid;
+        this.cells = cells;
+    }
+
+    /** Количество точек пути. */
+    public int size() {
+        return cells.length;
+    }
+
+    public boolean isEmpty() {
+        return cells.length == 0;
+    }
+
+    public int getCellX(int i) {
+        return cells[i] % grid.getWidth();
+    }
+
+    public int getCellY(int i) {
+        return cells[i] / grid.getWidth();
+    }
+
+    /** Мировая X центра i-й клетки пути. */
+    public double getX(int i) {
+        return grid.toWorldX(getCellX(i));
+    }
+
+    /** Мировая Y центра i-й клетки пути. */
+    public double getY(int i) {
+        return grid.toWorldY(getCellY(i));
+    }
+}
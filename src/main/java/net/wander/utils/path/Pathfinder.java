@@ -0,0 +1,219 @@
+package net.wander.utils.path;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Сервис поиска пути для сцены.
+ *
+ *   Pathfinder pf = new Pathfinder(grid);
+ *   scene.setPathfinder(pf);                  // сцена будет вызывать pf.update() каждый кадр
+ *
+ *   Path p = pf.findPath(x, y, tx, ty);       // A* сразу, с кэшем
+ *   pf.requestPath(x, y, tx, ty, path -> ...);// A* в фоне, колбэк — в игровом потоке
+ *
+ *   FlowField f = pf.getFlowField(player.getCenterX(), player.getCenterY());
+ *   if (f.isReady()) enemy.setVelocity(f.getDirX(ex, ey) * speed, f.getDirY(ex, ey) * speed);
+ *
+ * Тяжёлые расчёты идут в пуле фоновых потоков на неизменяемом снимке сетки,
+ * результаты применяются в update() — на границе кадра. Для толпы с одной целью
+ * считается одно поле потоков, так что цена растёт с числом целей, а не агентов.
+ * Кэши сбрасываются при изменении сетки (NavGrid.getVersion()).
+ */
+public class Pathfinder {
+
+    // сколько кадров поле потоков живёт без обращений
+    private static final int FIELD_TTL_FRAMES = 300;
+    private static final int MAX_CACHED_PATHS = 4096;
+
+    private static final AtomicInteger poolCounter = new AtomicInteger();
+    private static final ThreadLocal<GridSearch> workerSearch = ThreadLocal.withInitial(GridSearch::new);
+
+    private final NavGrid grid;
+    private final ExecutorService workers;
+
+    // готовые результаты из фоновых потоков, применяются в update()
+    private final Queue<Runnable> completed = new ConcurrentLinkedQueue<>();
+
+    private final Map<Long, Path> pathCache = new HashMap<>();
+    private final Map<Integer, FlowField> fields = new HashMap<>();
+    private final GridSearch search = new GridSearch();
+
+    private int knownVersion;
+    private byte[] snapshot;   // снимок сетки текущей версии для фоновых задач
+    private long frame = 0;
+
+    public Pathfinder(NavGrid grid) {
+        this(grid, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public Pathfinder(NavGrid grid, int threads) {
+        if (grid == null) throw new IllegalArgumentException("grid is null");
+        this.grid = grid;
+        this.knownVersion = grid.getVersion();
+        int id = poolCounter.incrementAndGet();
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "Pathfinder-" + id + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public NavGrid getGrid() {
+        return grid;
+    }
+
+    // ================== ПУТИ ==================
+
+    /** Найти путь сразу (в текущем потоке). null — пути нет. */
+    public Path findPath(double fromX, double fromY, double toX, double toY) {
+        int start = cell(fromX, fromY), goal = cell(toX, toY);
+        if (start < 0 || goal < 0) return null;
+
+        checkVersion();
+        long key = ((long) start << 32) | (goal & 0xffffffffL);
+        Path cached = pathCache.get(key);
+        if (cached != null || pathCache.containsKey(key)) return cached;
+
+        int[] cells = search.astar(snapshot(), grid.getWidth(), grid.getHeight(), start, goal);
+        Path path = cells == null ? null : new Path(grid, cells);
+        cachePath(key, path);
+        return path;
+    }
+
+    /**
+     * Найти путь в фоне. callback вызывается в игровом потоке из update()
+     * (с null, если пути нет). Если путь есть в кэше — callback вызывается сразу.
+     */
+    public void requestPath(double fromX, double fromY, double toX, double toY, Consumer<Path> callback) {
+        int start = cell(fromX, fromY), goal = cell(toX, toY);
+        if (start < 0 || goal < 0) {
+            callback.accept(null);
+            return;
+        }
+
+        checkVersion();
+        long key = ((long) start << 32) | (goal & 0xffffffffL);
+        if (pathCache.containsKey(key)) {
+            callback.accept(pathCache.get(key));
+            return;
+        }
+
+        byte[] snap = snapshot();
+        int version = knownVersion;
+        int w = grid.getWidth(), h = grid.getHeight();
+        workers.execute(() -> {
+            int[] cells = workerSearch.get().astar(snap, w, h, start, goal);
+            Path path = cells == null ? null : new Path(grid, cells);
+            completed.offer(() -> {
+                if (version == knownVersion) cachePath(key, path);
+                callback.accept(path);
+            });
+        });
+    }
+
+    // ================== ПОЛЯ ПОТОКОВ ==================
+
+    /**
+     * Поле потоков к цели (мировые координаты). Одна цель — одно поле на всех агентов.
+     * Поле создаётся и считается в фоне; проверяй isReady().
+     * Пока к полю обращаются, оно пересчитывается при изменении сетки.
+     */
+    public FlowField getFlowField(double goalX, double goalY) {
+        int goal = cell(goalX, goalY);
+        if (goal < 0) return null;
+
+        checkVersion();
+        FlowField f = fields.get(goal);
+        if (f == null) {
+            f = new FlowField(grid, goal);
+            fields.put(goal, f);
+        }
+        f.lastUsedFrame = frame;
+        if (f.computedVersion != knownVersion && f.pendingVersion != knownVersion) {
+            submit(f);
+        }
+        return f;
+    }
+
+    // ================== КАДР ==================
+
+    /** Вызывается сценой раз в кадр: применяет готовые результаты, чистит кэши. */
+    public void update() {
+        frame++;
+        checkVersion();
+
+        Runnable r;
+        while ((r = completed.poll()) != null) {
+            r.run();
+        }
+
+        // раз в секунду выкидываем поля, к которым давно не обращались
+        if (frame % 60 == 0) {
+            Iterator<FlowField> it = fields.values().iterator();
+            while (it.hasNext()) {
+                if (frame - it.next().lastUsedFrame > FIELD_TTL_FRAMES) it.remove();
+            }
+        }
+    }
+
+    /** Остановить фоновые потоки. */
+    public void shutdown() {
+        workers.shutdownNow();
+        completed.clear();
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private void submit(FlowField f) {
+        byte[] snap = snapshot();
+        int version = knownVersion;
+        int w = grid.getWidth(), h = grid.getHeight();
+        f.pendingVersion = version;
+        workers.execute(() -> {
+            int[] dist = new int[w * h];
+            byte[] dir = new byte[w * h];
+            workerSearch.get().flowField(snap, w, h, f.getGoalCell(), dist, dir);
+            completed.offer(() -> {
+                // более старый результат не затирает более новый
+                if (version >= f.computedVersion) f.publish(version, dist, dir);
+            });
+        });
+    }
+
+    /** Сетка поменялась? Сбросить кэш путей и пересчитать используемые поля. */
+    private void checkVersion() {
+        int v = grid.getVersion();
+        if (v == knownVersion) return;
+        knownVersion = v;
+        snapshot = null;
+        pathCache.clear();
+        for (FlowField f : fields.values()) {
+            if (frame - f.lastUsedFrame <= FIELD_TTL_FRAMES) submit(f);
+        }
+    }
+
+    private byte[] snapshot() {
+        if (snapshot == null) snapshot = grid.snapshot();
+        return snapshot;
+    }
+
+    private void cachePath(long key, Path path) {
+        if (pathCache.size() >= MAX_CACHED_PATHS) pathCache.clear();
+        pathCache.put(key, path);
+    }
+
+    private int cell(double wx, double wy) {
+        int cx = grid.toCellX(wx), cy = grid.toCellY(wy);
+        if (!grid.inBounds(cx, cy)) return -1;
+        return cy * grid.getWidth() + cx;
+    }
+}
@@ -0,0 +1,142 @@
+package net.wander.utils.render;
+
+import net.wander.objects.GameObject;
+
+import java.awt.Graphics2D;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отрисовка через записанные команды.
+ *
+ *   scene.setCommandRenderer(new CommandRenderer());
+ *
+ * Каждый кадр объекты записывают команды (GameObject.record) в свои буферы —
+ * большие сцены записываются параллельно кусками в нескольких потоках.
+ * Затем буферы склеиваются, сортируются по слою (внутри слоя — порядок записи) и воспроизводятся
+ * в Graphics2D за один проход — с тем же перекрытием, что у обычной отрисовки сцены.
+ *
+ * Важно: record() вызывается из разных потоков одновременно — в нём нельзя менять общее состояние.
+ * Объекты с детьми (GameObject.addChild) не записываются, а рисуются целиком через renderTree(g)
+ * в момент воспроизведения: команды не умеют вложенные трансформации.
+ *
+ * Списки двойные: результат record() остаётся валидным, пока идёт запись следующего кадра,
+ * так что готовый список можно отдать отдельному потоку рендера.
+ */
+public class CommandRenderer {
+
+    // меньше объектов — пишем в текущем потоке, параллельность не окупится
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private static final AtomicInteger poolCounter = new AtomicInteger();
+
+    private final int threads;
+    private final ExecutorService pool;
+    private final RenderCommands[] buffers;
+    private final Future<?>[] futures;
+
+    private final RenderList[] lists = {new RenderList(), new RenderList()};
+    private int current = 0;
+
+    public CommandRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public CommandRenderer(int threads) {
+        this.threads = Math.max(1, threads);
+        this.buffers = new RenderCommands[this.threads];
+        for (int i = 0; i < buffers.length; i++) buffers[i] = new RenderCommands();
+        this.futures = new Future<?>[this.threads];
+
+        if (this.threads > 1) {
+            int id = poolCounter.incrementAndGet();
+            AtomicInteger n = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(this.threads - 1, r -> {
+                Thread t = new Thread(r, "RenderRecorder-" + id + "-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    /** Записать и сразу нарисовать. */
+    public void render(Graphics2D g, List<GameObject> objects) {
+        record(objects).replay(g);
+    }
+
+    /**
+     * Записать команды всех видимых объектов и собрать отсортированный список.
+     * Список валиден до следующего-после-следующего вызова record().
+     * Возвращается только когда все потоки записи закончили — даже если поток прервали
+     * (флаг прерывания восстанавливается).
+     */
+    public RenderList record(List<GameObject> objects) {
+        int n = objects.size();
+        int chunks = 1;
+        if (pool != null && n >= PARALLEL_THRESHOLD) {
+            chunks = Math.min(threads, n / (PARALLEL_THRESHOLD / 2));
+        }
+
+        int per = (n + chunks - 1) / Math.max(1, chunks);
+        for (int c = 1; c < chunks; c++) {
+            int from = c * per, to = Math.min(n, from + per);
+            RenderCommands buf = buffers[c];
+            futures[c] = pool.submit(() -> recordRange(objects, from, to, buf));
+        }
+
+        boolean interrupted = false;
+        Throwable failure = null;
+        try {
+            recordRange(objects, 0, Math.min(n, per), buffers[0]);
+        } finally {
+            // склеивать буферы можно только когда в них никто не пишет — ждём всех, даже при прерывании
+            for (int c = 1; c < chunks; c++) {
+                while (true) {
+                    try {
+                        futures[c].get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) failure = e.getCause();
+                        break;
+                    }
+                }
+                futures[c] = null;
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw new RuntimeException("Render recording failed", failure);
+
+        current ^= 1;
+        RenderList list = lists[current];
+        list.build(buffers, chunks);
+        return list;
+    }
+
+    /** Остановить потоки записи. Не вызывай одновременно с record() из другого потока. */
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    private static void recordRange(List<GameObject> objects, int from, int to, RenderCommands out) {
+        out.clear();
+        for (int i = from; i < to; i++) {
+            GameObject obj = objects.get(i);
+            if (!obj.isVisible()) continue;
+            out.setLayer(obj.getLayer());
+            out.resetTransform();
+            if (obj.hasChildren()) {
+                out.custom(obj);
+            } else {
+                obj.record(out);
+            }
+        }
+    }
+}
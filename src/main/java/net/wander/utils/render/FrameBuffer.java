@@ -0,0 +1,366 @@
+package net.wander.utils.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Программный кадр в int[]: для огромного количества мелких примитивов (частицы, тайлы, пули).
+ *
+ *   game.setFrameBufferEnabled(true);
+ *   ...
+ *   // в объекте:
+ *   public void render(FrameBuffer fb) { fb.fillCircle((int) x, (int) y, 3, 0xFFFFCC00); }
+ *
+ * Примитивы сначала записываются, а в flush() экран режется на тайлы, и тайлы
+ * растеризуются параллельно. Каждый пиксель пишет ровно один поток в порядке записи команд,
+ * так что результат попиксельно одинаков при любом числе потоков.
+ *
+ * Цвета — 0xAARRGGBB. Альфа меньше 255 смешивается с тем, что уже нарисовано
+ * (целочисленно, с округлением: (src·a + dst·(255 - a) + 127) / 255).
+ * Координаты целые, пиксель (x, y) — квадрат [x, x+1)×[y, y+1).
+ */
+public class FrameBuffer {
+
+    private static final int TILE = 64;
+
+    private static final int CLEAR  = 1;
+    private static final int RECT   = 2;
+    private static final int CIRCLE = 3;
+    private static final int LINE   = 4;
+    private static final int BLIT   = 5;
+
+    private static final AtomicInteger poolCounter = new AtomicInteger();
+
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int tilesX;
+    private final int tileCount;
+
+    // ---- записанные команды ----
+    private int count = 0;
+    private int[] kinds = new int[256];
+    private int[] params = new int[256 * 4];   // x, y, w/x1/r, h/y1
+    private int[] colors = new int[256];       // цвет или общая альфа спрайта
+    private int[] boxes = new int[256 * 4];    // рамка команды: x0, y0, x1, y1 (x1/y1 не включительно)
+    private Sprite[] sprites = new Sprite[256];
+
+    // ---- потоки ----
+    private final int threads;
+    private final ExecutorService pool;
+    private final Future<?>[] futures;
+    private final AtomicInteger nextTile = new AtomicInteger();
+
+    public FrameBuffer(int width, int height) {
+        this(width, height, Runtime.getRuntime().availableProcessors());
+    }
+
+    public FrameBuffer(int width, int height, int threads) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Frame buffer size must be > 0");
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.tilesX = (width + TILE - 1) / TILE;
+        this.tileCount = tilesX * ((height + TILE - 1) / TILE);
+
+        this.threads = Math.max(1, threads);
+        this.futures = new Future<?>[this.threads];
+        if (this.threads > 1) {
+            int id = poolCounter.incrementAndGet();
+            AtomicInteger n = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(this.threads - 1, r -> {
+                Thread t = new Thread(r, "FrameBuffer-" + id + "-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+
+    /** Картинка кадра (для drawImage). Актуальна после flush(). */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /** Пиксели кадра 0x??RRGGBB (старший байт игнорируется). Актуальны после flush(). */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    // ================== ПРИМИТИВЫ ==================
+
+    /** Залить весь кадр цветом (альфа игнорируется). */
+    public void clear(int rgb) {
+        add(CLEAR, 0, 0, 0, 0, rgb | 0xff000000, null, 0, 0, width, height);
+    }
+
+    public void fillRect(int x, int y, int w, int h, int argb) {
+        if (w <= 0 || h <= 0 || (argb >>> 24) == 0) return;
+        add(RECT, x, y, w, h, argb, null, x, y, x + w, y + h);
+    }
+
+    /** Круг: пиксели, у которых (px - cx)² + (py - cy)² <= r². */
+    public void fillCircle(int cx, int cy, int r, int argb) {
+        if (r < 0 || (argb >>> 24) == 0) return;
+        add(CIRCLE, cx, cy, r, 0, argb, null, cx - r, cy - r, cx + r + 1, cy + r + 1);
+    }
+
+    /** Линия в 1 пиксель, оба конца включительно. */
+    public void drawLine(int x0, int y0, int x1, int y1, int argb) {
+        if ((argb >>> 24) == 0) return;
+        add(LINE, x0, y0, x1, y1, argb, null,
+                Math.min(x0, x1), Math.min(y0, y1), Math.max(x0, x1) + 1, Math.max(y0, y1) + 1);
+    }
+
+    /** Спрайт левым верхним углом в (x, y), с попиксельной альфой. */
+    public void blit(Sprite sprite, int x, int y) {
+        blit(sprite, x, y, 255);
+    }
+
+    /** Спрайт с дополнительной общей прозрачностью alpha (0..255). */
+    public void blit(Sprite sprite, int x, int y, int alpha) {
+        if (sprite == null || alpha <= 0) return;
+        add(BLIT, x, y, 0, 0, Math.min(alpha, 255), sprite, x, y, x + sprite.width, y + sprite.height);
+    }
+
+    /** Сколько команд записано с прошлого flush(). */
+    public int size() {
+        return count;
+    }
+
+    // ================== РАСТЕРИЗАЦИЯ ==================
+
+    /**
+     * Нарисовать записанные команды в пиксели (параллельно по тайлам) и очистить список.
+     * Возвращается только когда все потоки закончили — даже если поток прервали
+     * (флаг прерывания восстанавливается).
+     */
+    public void flush() {
+        if (count == 0) return;
+        nextTile.set(0);
+        int workers = pool == null ? 1 : Math.min(threads, tileCount);
+        for (int i = 1; i < workers; i++) {
+            futures[i] = pool.submit(this::work);
+        }
+
+        boolean interrupted = false;
+        Throwable failure = null;
+        try {
+            work();
+        } finally {
+            // команды нельзя трогать, пока хоть один поток их читает
+            for (int i = 1; i < workers; i++) {
+                while (true) {
+                    try {
+                        futures[i].get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) failure = e.getCause();
+                        break;
+                    }
+                }
+                futures[i] = null;
+            }
+            Arrays.fill(sprites, 0, count, null);
+            count = 0;
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw new RuntimeException("Frame buffer tile failed", failure);
+    }
+
+    /** Остановить потоки. Не вызывай одновременно с flush() из другого потока. */
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    private void work() {
+        int t;
+        while ((t = nextTile.getAndIncrement()) < tileCount) {
+            int tx0 = (t % tilesX) * TILE, ty0 = (t / tilesX) * TILE;
+            rasterize(tx0, ty0, Math.min(tx0 + TILE, width), Math.min(ty0 + TILE, height));
+        }
+    }
+
+    /** Все команды по порядку, обрезанные по прямоугольнику [cx0, cx1)×[cy0, cy1). */
+    private void rasterize(int cx0, int cy0, int cx1, int cy1) {
+        for (int i = 0; i < count; i++) {
+            int b = i * 4;
+            int x0 = Math.max(cx0, boxes[b]), y0 = Math.max(cy0, boxes[b + 1]);
+            int x1 = Math.min(cx1, boxes[b + 2]), y1 = Math.min(cy1, boxes[b + 3]);
+            if (x0 >= x1 || y0 >= y1) continue;
+
+            int p = i * 4;
+            int color = colors[i];
+            switch (kinds[i]) {
+                case CLEAR:
+                case RECT:
+                    fill(x0, y0, x1, y1, color);
+                    break;
+                case CIRCLE:
+                    circle(params[p], params[p + 1], params[p + 2], color, x0, y0, x1, y1);
+                    break;
+                case LINE:
+                    line(params[p], params[p + 1], params[p + 2], params[p + 3], color, x0, y0, x1, y1);
+                    break;
+                case BLIT:
+                    blitClipped(sprites[i], params[p], params[p + 1], color, x0, y0, x1, y1);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void fill(int x0, int y0, int x1, int y1, int argb) {
+        int a = argb >>> 24;
+        if (a == 255) {
+            for (int y = y0; y < y1; y++) {
+                Arrays.fill(pixels, y * width + x0, y * width + x1, argb);
+            }
+        } else {
+            for (int y = y0; y < y1; y++) {
+                for (int i = y * width + x0, e = y * width + x1; i < e; i++) {
+                    pixels[i] = blend(pixels[i], argb, a);
+                }
+            }
+        }
+    }
+
+    private void circle(int cx, int cy, int r, int argb, int x0, int y0, int x1, int y1) {
+        int a = argb >>> 24;
+        long r2 = (long) r * r;
+        for (int y = y0; y < y1; y++) {
+            long dy = y - cy;
+            long rest = r2 - dy * dy;
+            if (rest < 0) continue;
+            // полуширина строки: наибольшее h, что h² <= rest
+            int h = (int) Math.sqrt((double) rest);
+            while ((long) (h + 1) * (h + 1) <= rest) h++;
+            while ((long) h * h > rest) h--;
+            int sx = Math.max(x0, cx - h), ex = Math.min(x1, cx + h + 1);
+            if (sx >= ex) continue;
+            if (a == 255) {
+                Arrays.fill(pixels, y * width + sx, y * width + ex, argb);
+            } else {
+                for (int i = y * width + sx, e = y * width + ex; i < e; i++) {
+                    pixels[i] = blend(pixels[i], argb, a);
+                }
+            }
+        }
+    }
+
+    /**
+     * Линия по главной оси: на шаге k вторая координата = округлённое k·d_minor/d_major.
+     * Формула позволяет сразу начать с нужного места, поэтому тайл обходит только свой кусок линии.
+     */
+    private void line(int ax, int ay, int bx, int by, int argb, int x0, int y0, int x1, int y1) {
+        int a = argb >>> 24;
+        int adx = Math.abs(bx - ax), ady = Math.abs(by - ay);
+        int sx = ax < bx ? 1 : -1, sy = ay < by ? 1 : -1;
+
+        if (adx >= ady) {
+            if (adx == 0) {
+                plot(ax, ay, argb, a);   // точка; в тайл уже попала по рамке
+                return;
+            }
+            // шаги k, при которых x попадает в [x0, x1)
+            int k0 = sx > 0 ? x0 - ax : ax - (x1 - 1);
+            int k1 = sx > 0 ? x1 - 1 - ax : ax - x0;
+            k0 = Math.max(k0, 0);
+            k1 = Math.min(k1, adx);
+            long twoMajor = 2L * adx;
+            for (int k = k0; k <= k1; k++) {
+                int y = ay + sy * (int) ((2L * k * ady + adx) / twoMajor);
+                if (y >= y0 && y < y1) plot(ax + sx * k, y, argb, a);
+            }
+        } else {
+            int k0 = sy > 0 ? y0 - ay : ay - (y1 - 1);
+            int k1 = sy > 0 ? y1 - 1 - ay : ay - y0;
+            k0 = Math.max(k0, 0);
+            k1 = Math.min(k1, ady);
+            long twoMajor = 2L * ady;
+            for (int k = k0; k <= k1; k++) {
+                int x = ax + sx * (int) ((2L * k * adx + ady) / twoMajor);
+                if (x >= x0 && x < x1) plot(x, ay + sy * k, argb, a);
+            }
+        }
+    }
+
+    private void plot(int x, int y, int argb, int a) {
+        int i = y * width + x;
+        pixels[i] = a == 255 ? argb : blend(pixels[i], argb, a);
+    }
+
+    private void blitClipped(Sprite s, int sx, int sy, int alpha, int x0, int y0, int x1, int y1) {
+        int[] src = s.pixels;
+        for (int y = y0; y < y1; y++) {
+            int srow = (y - sy) * s.width - sx;
+            int drow = y * width;
+            if (s.opaque && alpha == 255) {
+                System.arraycopy(src, srow + x0, pixels, drow + x0, x1 - x0);
+                continue;
+            }
+            for (int x = x0; x < x1; x++) {
+                int c = src[srow + x];
+                int a = c >>> 24;
+                if (alpha != 255) a = div255(a * alpha);
+                if (a == 0) continue;
+                pixels[drow + x] = a == 255 ? c : blend(pixels[drow + x], c, a);
+            }
+        }
+    }
+
+    /** dst·(255 - a) + src·a по каналам, с округлением. */
+    private static int blend(int dst, int src, int a) {
+        int na = 255 - a;
+        int r = div255(((src >> 16) & 0xff) * a + ((dst >> 16) & 0xff) * na);
+        int g = div255(((src >> 8) & 0xff) * a + ((dst >> 8) & 0xff) * na);
+        int b = div255((src & 0xff) * a + (dst & 0xff) * na);
+        return 0xff000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /** (v + 127) / 255 без деления; точно для v в [0, 255·255]. */
+    private static int div255(int v) {
+        v += 128;
+        return (v + (v >> 8)) >> 8;
+    }
+
+    private void add(int kind, int p0, int p1, int p2, int p3, int color, Sprite sprite,
+                     int bx0, int by0, int bx1, int by1) {
+        if (count == kinds.length) {
+            int n = count * 2;
+            kinds = Arrays.copyOf(kinds, n);
+            params = Arrays.copyOf(params, n * 4);
+            colors = Arrays.copyOf(colors, n);
+            boxes = Arrays.copyOf(boxes, n * 4);
+            sprites = Arrays.copyOf(sprites, n);
+        }
+        int i = count++;
+        kinds[i] = kind;
+        int p = i * 4;
+        params[p] = p0;
+        params[p + 1] = p1;
+        params[p + 2] = p2;
+        params[p + 3] = p3;
+        colors[i] = color;
+        sprites[i] = sprite;
+        boxes[p] = bx0;
+        boxes[p + 1] = by0;
+        boxes[p + 2] = bx1;
+        boxes[p + 3] = by1;
+    }
+}
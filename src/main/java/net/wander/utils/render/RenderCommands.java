@@ -0,0 +1,169 @@
+package net.wander.utils.render;
+
+import net.wander.objects.GameObject;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+import java.util.Arrays;
+
+/**
+ * Буфер команд отрисовки.
+ * Вместо того чтобы сразу рисовать в Graphics2D, объект записывает сюда лёгкие команды
+ * (спрайт, прямоугольник, текст) — см. GameObject.record(RenderCommands).
+ *
+ * Команды хранятся в параллельных массивах, буфер переиспользуется между кадрами (clear()).
+ * Один буфер — один поток записи.
+ */
+public final class RenderCommands {
+
+    static final int SPRITE    = 1;
+    static final int FILL_RECT = 2;
+    static final int DRAW_RECT = 3;
+    static final int FILL_OVAL = 4;
+    static final int TEXT      = 5;
+    static final int CUSTOM    = 6;   // объект рисует себя сам через render(g)
+
+    // ---- команды ----
+    int count = 0;
+    int[] kinds = new int[256];
+    int[] layers = new int[256];
+    int[] transforms = new int[256];     // индекс в массиве трансформаций, -1 — без трансформации
+    double[] coords = new double[256 * 4];
+    Object[] refs = new Object[256];     // Image / Color / String / GameObject
+    Object[] refs2 = new Object[256];    // Font (для текста)
+    Object[] refs3 = new Object[256];    // Color (для текста)
+
+    // ---- трансформации: tx, ty, rotation, sx, sy ----
+    int transformCount = 0;
+    double[] transformData = new double[64 * 5];
+
+    // текущее состояние записи
+    private int layer = 0;
+    private int transform = -1;
+
+    /** Очистить для нового кадра (массивы остаются). */
+    public void clear() {
+        Arrays.fill(refs, 0, count, null);
+        Arrays.fill(refs2, 0, count, null);
+        Arrays.fill(refs3, 0, count, null);
+        count = 0;
+        transformCount = 0;
+        layer = 0;
+        transform = -1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // ================== СОСТОЯНИЕ ==================
+
+    /** Слой для следующих команд (больше — выше). */
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * Трансформация для следующих команд: сдвиг, поворот (рад) вокруг (tx, ty), масштаб.
+     * Координаты команд после этого — локальные.
+     */
+    public void setTransform(double tx, double ty, double rotation, double sx, double sy) {
+        if (transformCount * 5 == transformData.length) {
+            transformData = Arrays.copyOf(transformData, transformData.length * 2);
+        }
+        int i = transformCount * 5;
+        transformData[i]     = tx;
+        transformData[i + 1] = ty;
+        transformData[i + 2] = rotation;
+        transformData[i + 3] = sx;
+        transformData[i + 4] = sy;
+        transform = transformCount++;
+    }
+
+    /** Сбросить трансформацию (дальше — мировые координаты). */
+    public void resetTransform() {
+        transform = -1;
+    }
+
+    // ================== КОМАНДЫ ==================
+
+    public void sprite(Image image, double x, double y, double w, double h) {
+        if (image == null) return;
+        add(SPRITE, x, y, w, h, image, null, null);
+    }
+
+    public void fillRect(Color color, double x, double y, double w, double h) {
+        add(FILL_RECT, x, y, w, h, color, null, null);
+    }
+
+    public void drawRect(Color color, double x, double y, double w, double h) {
+        add(DRAW_RECT, x, y, w, h, color, null, null);
+    }
+
+    public void fillOval(Color color, double x, double y, double w, double h) {
+        add(FILL_OVAL, x, y, w, h, color, null, null);
+    }
+
+    /** Текст: (x, y) — начало базовой линии. */
+    public void text(String text, Font font, Color color, double x, double y) {
+        if (text == null) return;
+        add(TEXT, x, y, 0, 0, text, font, color);
+    }
+
+    /** Нарисовать объект "по-старому" (его render(g)) в момент воспроизведения. */
+    public void custom(GameObject obj) {
+        add(CUSTOM, 0, 0, 0, 0, obj, null, null);
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private void add(int kind, double x, double y, double w, double h, Object r1, Object r2, Object r3) {
+        if (count == kinds.length) grow(count * 2);
+        int i = count++;
+        kinds[i] = kind;
+        layers[i] = layer;
+        transforms[i] = transform;
+        int c = i * 4;
+        coords[c]     = x;
+        coords[c + 1] = y;
+        coords[c + 2] = w;
+        coords[c + 3] = h;
+        refs[i] = r1;
+        refs2[i] = r2;
+        refs3[i] = r3;
+    }
+
+    void grow(int n) {
+        kinds = Arrays.copyOf(kinds, n);
+        layers = Arrays.copyOf(layers, n);
+        transforms = Arrays.copyOf(transforms, n);
+        coords = Arrays.copyOf(coords, n * 4);
+        refs = Arrays.copyOf(refs, n);
+        refs2 = Arrays.copyOf(refs2, n);
+        refs3 = Arrays.copyOf(refs3, n);
+    }
+
+    /** Дописать в конец все команды из other (с пересчётом индексов трансформаций). */
+    void append(RenderCommands other) {
+        int n = other.count;
+        if (n == 0) return;
+        if (count + n > kinds.length) grow(Math.max(kinds.length * 2, count + n));
+        int needT = (transformCount + other.transformCount) * 5;
+        if (needT > transformData.length) transformData = Arrays.copyOf(transformData, Math.max(needT, transformData.length * 2));
+
+        System.arraycopy(other.transformData, 0, transformData, transformCount * 5, other.transformCount * 5);
+        System.arraycopy(other.kinds, 0, kinds, count, n);
+        System.arraycopy(other.layers, 0, layers, count, n);
+        System.arraycopy(other.coords, 0, coords, count * 4, n * 4);
+        System.arraycopy(other.refs, 0, refs, count, n);
+        System.arraycopy(other.refs2, 0, refs2, count, n);
+        System.arraycopy(other.refs3, 0, refs3, count, n);
+        for (int i = 0; i < n; i++) {
+            int t = other.transforms[i];
+            transforms[count + i] = t < 0 ? -1 : t + transformCount;
+        }
+        count += n;
+        transformCount += other.transformCount;
+    }
+}
@@ -0,0 +1,145 @@
+package net.wander.utils.render;
+
+import net.wander.objects.GameObject;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+
+/**
+ * Готовый список команд кадра: склеенный из буферов записи и отсортированный по слою.
+ * Внутри слоя команды идут в порядке записи (как объекты в сцене и команды в record()),
+ * так что перекрытия те же, что при обычном render(g). Экономия на состоянии — только
+ * между соседними командами: одинаковые цвет, шрифт и трансформация подряд не переустанавливаются.
+ *
+ * После build() список самодостаточен: его можно воспроизвести в другом потоке (поток рендера).
+ */
+public final class RenderList {
+
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private final RenderCommands commands = new RenderCommands();
+    private long[] order = new long[256];
+
+    private final AffineTransform tmp = new AffineTransform();
+
+    /** Склеить буферы и отсортировать по слою (устойчиво: индекс — младшие биты ключа). */
+    void build(RenderCommands[] buffers, int bufferCount) {
+        commands.clear();
+        for (int b = 0; b < bufferCount; b++) {
+            commands.append(buffers[b]);
+        }
+        int n = commands.count;
+        if (n > INDEX_MASK) throw new IllegalStateException("Too many render commands: " + n);
+        if (order.length < n) order = new long[Math.max(n, order.length * 2)];
+
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            long layer = Math.max(-32768, Math.min(commands.layers[i], 32767)) + 32768L;
+            order[i] = (layer << INDEX_BITS) | i;
+            if (i > 0 && order[i] < order[i - 1]) sorted = false;
+        }
+        // обычно сцена отдаёт объекты уже по слоям — тогда сортировать нечего
+        if (!sorted) Arrays.sort(order, 0, n);
+    }
+
+    public int size() {
+        return commands.count;
+    }
+
+    /** Нарисовать все команды в g за один проход. */
+    public void replay(Graphics2D g) {
+        AffineTransform base = g.getTransform();
+        Color oldColor = g.getColor();
+        Font oldFont = g.getFont();
+
+        Color color = null;
+        Font font = null;
+        int transform = Integer.MIN_VALUE;
+
+        RenderCommands c = commands;
+        int n = c.count;
+        for (int k = 0; k < n; k++) {
+            int i = (int) (order[k] & INDEX_MASK);
+            int kind = c.kinds[i];
+
+            if (kind == RenderCommands.CUSTOM) {
+                g.setTransform(base);
+                ((GameObject) c.refs[i]).renderTree(g, base);
+                // объект мог поменять что угодно — забываем состояние
+                transform = Integer.MIN_VALUE;
+                color = null;
+                font = null;
+                continue;
+            }
+
+            int t = c.transforms[i];
+            if (t != transform) {
+                applyTransform(g, base, t);
+                transform = t;
+            }
+
+            int ci = i * 4;
+            double x = c.coords[ci], y = c.coords[ci + 1], w = c.coords[ci + 2], h = c.coords[ci + 3];
+            switch (kind) {
+                case RenderCommands.SPRITE:
+                    g.drawImage((Image) c.refs[i], (int) Math.round(x), (int) Math.round(y),
+                            (int) Math.round(w), (int) Math.round(h), null);
+                    break;
+                case RenderCommands.FILL_RECT:
+                case RenderCommands.DRAW_RECT:
+                case RenderCommands.FILL_OVAL: {
+                    Color col = (Color) c.refs[i];
+                    if (col != color) {
+                        g.setColor(col);
+                        color = col;
+                    }
+                    int ix = (int) Math.round(x), iy = (int) Math.round(y);
+                    int iw = (int) Math.round(w), ih = (int) Math.round(h);
+                    if (kind == RenderCommands.FILL_RECT) g.fillRect(ix, iy, iw, ih);
+                    else if (kind == RenderCommands.DRAW_RECT) g.drawRect(ix, iy, iw, ih);
+                    else g.fillOval(ix, iy, iw, ih);
+                    break;
+                }
+                case RenderCommands.TEXT: {
+                    Font f = (Font) c.refs2[i];
+                    Color col = (Color) c.refs3[i];
+                    if (f != null && f != font) {
+                        g.setFont(f);
+                        font = f;
+                    }
+                    if (col != null && col != color) {
+                        g.setColor(col);
+                        color = col;
+                    }
+                    g.drawString((String) c.refs[i], (float) x, (float) y);
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        g.setTransform(base);
+        g.setColor(oldColor);
+        g.setFont(oldFont);
+    }
+
+    private void applyTransform(Graphics2D g, AffineTransform base, int t) {
+        if (t < 0) {
+            g.setTransform(base);
+            return;
+        }
+        double[] d = commands.transformData;
+        int i = t * 5;
+        tmp.setTransform(base);
+        tmp.translate(d[i], d[i + 1]);
+        if (d[i + 2] != 0.0) tmp.rotate(d[i + 2]);
+        if (d[i + 3] != 1.0 || d[i + 4] != 1.0) tmp.scale(d[i + 3], d[i + 4]);
+        g.setTransform(tmp);
+    }
+}
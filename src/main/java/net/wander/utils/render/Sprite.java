@@ -0,0 +1,37 @@
+package net.wander.utils.render;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Картинка для FrameBuffer: пиксели 0xAARRGGBB (без предумножения) в int[].
+ * Создаётся один раз при загрузке, дальше только читается.
+ */
+public final class Sprite {
+
+    final int width;
+    final int height;
+    final int[] pixels;
+    final boolean opaque;   // все пиксели непрозрачные — можно просто копировать
+
+    public Sprite(int width, int height, int[] pixels) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Sprite size must be > 0");
+        if (pixels.length < width * height) throw new IllegalArgumentException("Not enough pixels");
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        boolean o = true;
+        for (int i = 0, n = width * height; i < n && o; i++) {
+            if ((pixels[i] >>> 24) != 0xff) o = false;
+        }
+        this.opaque = o;
+    }
+
+    /** Скопировать пиксели из картинки. */
+    public static Sprite of(BufferedImage image) {
+        int w = image.getWidth(), h = image.getHeight();
+        return new Sprite(w, h, image.getRGB(0, 0, w, h, null, 0, w));
+    }
+
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+}
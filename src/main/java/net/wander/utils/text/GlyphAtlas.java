@@ -0,0 +1,162 @@
+package net.wander.utils.text;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Атлас глифов для часто меняющегося текста (счёт, таймер, FPS).
+ *
+ *   GlyphAtlas digits = new GlyphAtlas(font, Color.YELLOW);
+ *   digits.drawNumber(g, score, 20, 40);
+ *
+ * Все символы набора растеризуются один раз в одну картинку-полоску,
+ * а строка рисуется блитом кусочков — новое число не требует растеризации
+ * и ничего не выделяет. Кернинг не учитывается (для цифр он и не нужен).
+ * Рассчитан на экранные координаты (HUD): при масштабе в Graphics2D буквы будут мыльными.
+ */
+public class GlyphAtlas {
+
+    /** Набор по умолчанию: цифры и типичные знаки для счёта/времени. */
+    public static final String DEFAULT_CHARS = "0123456789+-.,:/%x ";
+
+    private static final int PAD = 2;
+
+    private final Font font;
+    private final Color color;
+    private final String chars;
+
+    private BufferedImage atlas;       // создаётся при первом рисовании под устройство
+    private int[] cellX;               // где глиф лежит в атласе
+    private int[] advance;             // ширина шага
+    private int cellWidth;
+    private int cellHeight;
+    private int ascent;
+
+    // ascii -> индекс в chars (-1 — нет в атласе); остальное ищется в chars
+    private final int[] asciiIndex = new int[128];
+
+    // буфер для цифр числа (без выделений)
+    private final char[] digits = new char[20];
+
+    public GlyphAtlas(Font font, Color color) {
+        this(font, color, DEFAULT_CHARS);
+    }
+
+    public GlyphAtlas(Font font, Color color, String chars) {
+        if (font == null || color == null || chars == null || chars.isEmpty()) {
+            throw new IllegalArgumentException("GlyphAtlas needs font, color and chars");
+        }
+        this.font = font;
+        this.color = color;
+        this.chars = chars;
+        Arrays.fill(asciiIndex, -1);
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c < 128 && asciiIndex[c] < 0) asciiIndex[c] = i;
+        }
+    }
+
+    // ================== РИСОВАНИЕ ==================
+
+    /** Нарисовать целое число. (x, y) — начало базовой линии. Возвращает x после текста. */
+    public int drawNumber(Graphics2D g, long value, int x, int y) {
+        int n = formatNumber(value);
+        for (int i = digits.length - n; i < digits.length; i++) {
+            x = drawChar(g, digits[i], x, y);
+        }
+        return x;
+    }
+
+    /** Нарисовать текст из символов атласа (остальные пропускаются). Возвращает x после текста. */
+    public int drawText(Graphics2D g, CharSequence text, int x, int y) {
+        for (int i = 0; i < text.length(); i++) {
+            x = drawChar(g, text.charAt(i), x, y);
+        }
+        return x;
+    }
+
+    /** Ширина числа в пикселях (атлас должен быть уже создан — иначе 0). */
+    public int measureNumber(long value) {
+        if (atlas == null) return 0;
+        int n = formatNumber(value);
+        int w = 0;
+        for (int i = digits.length - n; i < digits.length; i++) {
+            int idx = indexOf(digits[i]);
+            if (idx >= 0) w += advance[idx];
+        }
+        return w;
+    }
+
+    public Font getFont()   { return font; }
+    public Color getColor() { return color; }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private int drawChar(Graphics2D g, char c, int x, int y) {
+        ensureAtlas(g);
+        int idx = indexOf(c);
+        if (idx < 0) return x;
+        int sx = cellX[idx];
+        int dx = x - PAD;
+        int dy = y - ascent - PAD;
+        g.drawImage(atlas, dx, dy, dx + cellWidth, dy + cellHeight,
+                sx, 0, sx + cellWidth, cellHeight, null);
+        return x + advance[idx];
+    }
+
+    private int indexOf(char c) {
+        if (c < 128) return asciiIndex[c];
+        return chars.indexOf(c);
+    }
+
+    /** Записать цифры value в конец digits. Возвращает их количество. */
+    private int formatNumber(long value) {
+        int pos = digits.length;
+        boolean negative = value < 0;
+        // работаем с отрицательными, чтобы Long.MIN_VALUE тоже влез
+        long v = negative ? value : -value;
+        do {
+            digits[--pos] = (char) ('0' - (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (negative) digits[--pos] = '-';
+        return digits.length - pos;
+    }
+
+    private void ensureAtlas(Graphics2D g) {
+        if (atlas != null) return;
+
+        FontMetrics fm = g.getFontMetrics(font);
+        ascent = fm.getAscent();
+        cellHeight = ascent + fm.getDescent() + PAD * 2;
+
+        advance = new int[chars.length()];
+        int maxAdvance = 1;
+        for (int i = 0; i < chars.length(); i++) {
+            advance[i] = fm.charWidth(chars.charAt(i));
+            maxAdvance = Math.max(maxAdvance, advance[i]);
+        }
+        // глиф может вылезать за advance (наклон, засечки) — даём запас
+        cellWidth = maxAdvance + PAD * 2;
+
+        cellX = new int[chars.length()];
+        atlas = g.getDeviceConfiguration().createCompatibleImage(
+                cellWidth * chars.length(), cellHeight, Transparency.TRANSLUCENT);
+        Graphics2D ag = atlas.createGraphics();
+        ag.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        ag.setFont(font);
+        ag.setColor(color);
+        for (int i = 0; i < chars.length(); i++) {
+            cellX[i] = i * cellWidth;
+            ag.setClip(cellX[i], 0, cellWidth, cellHeight);
+            ag.drawString(String.valueOf(chars.charAt(i)), cellX[i] + PAD, ascent + PAD);
+        }
+        ag.dispose();
+    }
+}
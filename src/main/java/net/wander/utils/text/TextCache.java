@@ -0,0 +1,223 @@
+package net.wander.utils.text;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Кэш отрисованных строк для HUD и UI.
+ *
+ *   TextCache text = new TextCache();
+ *   text.drawString(g, "Score", font, Color.WHITE, 20, 30);   // вместо g.drawString(...)
+ *
+ * Строка растеризуется один раз в картинку (совместимую с экраном) и дальше просто блитится.
+ * Ключ — текст + шрифт + цвет + подсказки сглаживания + масштаб Graphics2D.
+ * Кэш ограничен по количеству строк и по памяти, старые вытесняются (LRU).
+ * Для часто меняющихся чисел (счёт, таймер) лучше GlyphAtlas.
+ */
+public class TextCache {
+
+    private static final int PAD = 2;
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private long bytes = 0;
+
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Key probe = new Key(); // переиспользуемый ключ для поиска
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public TextCache() {
+        this(512, 16L * 1024 * 1024);
+    }
+
+    /**
+     * @param maxEntries сколько строк держать
+     * @param maxBytes   сколько памяти под картинки (примерно, 4 байта на пиксель)
+     */
+    public TextCache(int maxEntries, long maxBytes) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    /**
+     * Нарисовать строку как g.drawString: (x, y) — начало базовой линии.
+     * При повороте/наклоне в Graphics2D рисует напрямую, без кэша.
+     */
+    public void drawString(Graphics2D g, String text, Font font, Color color, float x, float y) {
+        if (text == null || text.isEmpty()) return;
+
+        AffineTransform at = g.getTransform();
+        int type = at.getType() & ~(AffineTransform.TYPE_TRANSLATION
+                | AffineTransform.TYPE_UNIFORM_SCALE | AffineTransform.TYPE_GENERAL_SCALE);
+        if (type != AffineTransform.TYPE_IDENTITY || at.getScaleX() <= 0 || at.getScaleY() <= 0) {
+            Font oldFont = g.getFont();
+            Color oldColor = g.getColor();
+            g.setFont(font);
+            g.setColor(color);
+            g.drawString(text, x, y);
+            g.setFont(oldFont);
+            g.setColor(oldColor);
+            return;
+        }
+
+        double sx = at.getScaleX(), sy = at.getScaleY();
+        Object aa = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        Object fm = g.getRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS);
+        if (aa == null) aa = RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT;
+        if (fm == null) fm = RenderingHints.VALUE_FRACTIONALMETRICS_DEFAULT;
+        probe.set(text, font, color.getRGB(), aa, fm, sx, sy);
+
+        Entry e = cache.get(probe);
+        if (e == null) {
+            misses++;
+            e = rasterize(g, probe, font, color);
+            Key key = probe.copy();
+            cache.put(key, e);
+            bytes += e.bytes();
+            evict();
+        } else {
+            hits++;
+        }
+
+        // позиция базовой линии в пикселях устройства
+        int dx = (int) Math.round(x * sx + at.getTranslateX()) - e.originX;
+        int dy = (int) Math.round(y * sy + at.getTranslateY()) - e.originY;
+        if (at.isIdentity()) {
+            g.drawImage(e.image, dx, dy, null);
+        } else {
+            g.setTransform(IDENTITY);
+            g.drawImage(e.image, dx, dy, null);
+            g.setTransform(at);
+        }
+    }
+
+    /** Сбросить кэш. */
+    public void clear() {
+        for (Entry e : cache.values()) e.image.flush();
+        cache.clear();
+        bytes = 0;
+    }
+
+    public int size()          { return cache.size(); }
+    public long getBytes()     { return bytes; }
+    public long getHits()      { return hits; }
+    public long getMisses()    { return misses; }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private Entry rasterize(Graphics2D g, Key key, Font font, Color color) {
+        AffineTransform scale = AffineTransform.getScaleInstance(key.sx, key.sy);
+        FontRenderContext frc = new FontRenderContext(scale, key.aa, key.fm);
+        GlyphVector gv = font.createGlyphVector(frc, key.text);
+        Rectangle2D vb = gv.getVisualBounds();
+
+        // границы в пикселях устройства
+        int left = (int) Math.floor(vb.getMinX() * key.sx) - PAD;
+        int top = (int) Math.floor(vb.getMinY() * key.sy) - PAD;
+        int w = Math.max(1, (int) Math.ceil(vb.getMaxX() * key.sx) + PAD - left);
+        int h = Math.max(1, (int) Math.ceil(vb.getMaxY() * key.sy) + PAD - top);
+
+        BufferedImage img = g.getDeviceConfiguration().createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+        Graphics2D ig = img.createGraphics();
+        ig.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, key.aa);
+        ig.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, key.fm);
+        ig.translate(-left, -top);
+        ig.scale(key.sx, key.sy);
+        ig.setColor(color);
+        ig.setFont(font);
+        ig.drawString(key.text, 0f, 0f);
+        ig.dispose();
+
+        return new Entry(img, -left, -top);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator();
+        while ((cache.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+            Entry e = it.next().getValue();
+            it.remove();
+            bytes -= e.bytes();
+            e.image.flush();
+        }
+    }
+
+    private static final class Entry {
+        final BufferedImage image;
+        final int originX;   // где в картинке начало базовой линии
+        final int originY;
+
+        Entry(BufferedImage image, int originX, int originY) {
+            this.image = image;
+            this.originX = originX;
+            this.originY = originY;
+        }
+
+        long bytes() {
+            return (long) image.getWidth() * image.getHeight() * 4;
+        }
+    }
+
+    private static final class Key {
+        String text;
+        Font font;
+        int rgb;
+        Object aa;
+        Object fm;
+        double sx;
+        double sy;
+        int hash;
+
+        void set(String text, Font font, int rgb, Object aa, Object fm, double sx, double sy) {
+            this.text = text;
+            this.font = font;
+            this.rgb = rgb;
+            this.aa = aa;
+            this.fm = fm;
+            this.sx = sx;
+            this.sy = sy;
+            int h = text.hashCode();
+            h = 31 * h + font.hashCode();
+            h = 31 * h + rgb;
+            h = 31 * h + System.identityHashCode(aa);
+            h = 31 * h + System.identityHashCode(fm);
+            h = 31 * h + Double.hashCode(sx);
+            h = 31 * h + Double.hashCode(sy);
+            this.hash = h;
+        }
+
+        Key copy() {
+            Key k = new Key();
+            k.set(text, font, rgb, aa, fm, sx, sy);
+            return k;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && rgb == k.rgb && aa == k.aa && fm == k.fm
+                    && sx == k.sx && sy == k.sy
+                    && text.equals(k.text) && Objects.equals(font, k.font);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package net.wander.bench;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Разбор опций LoadTest: неверное значение — понятная ошибка, а не падение посреди прогона. */
+class LoadTestOptionsTest {
+
+    @Test
+    void defaultsAndValidOptions() {
+        LoadTest.Options d = LoadTest.Options.parse(new String[0]);
+        assertEquals(300, d.frames);
+        assertEquals(LoadTest.Scenario.values().length, d.scenarios.size());
+
+        LoadTest.Options o = LoadTest.Options.parse(new String[]{
+                "--out", "res", "--label", "v2", "--frames", "1", "--warmup", "0",
+                "--max-seconds", "0.5", "--sizes", "0, 10,200", "--scenarios", "Movers,colliders"});
+        assertEquals(Paths.get("res"), o.out);
+        assertEquals("v2", o.label);
+        assertEquals(1, o.frames);
+        assertEquals(0, o.warmup);
+        assertEquals(0.5, o.maxSeconds);
+        assertArrayEquals(new int[]{0, 10, 200}, o.sizes);
+        assertEquals(List.of(LoadTest.Scenario.MOVERS, LoadTest.Scenario.COLLIDERS), o.scenarios);
+    }
+
+    @Test
+    void rejectsBadValues() {
+        rejects("--frames", "0");
+        rejects("--frames", "-5");
+        rejects("--frames", "many");
+        rejects("--warmup", "-1");
+        rejects("--max-seconds", "0");
+        rejects("--max-seconds", "NaN");
+        rejects("--max-seconds", "Infinity");
+        rejects("--sizes", "10,,100");
+        rejects("--sizes", "10,");
+        rejects("--sizes", "");
+        rejects("--sizes", "-1");
+        rejects("--scenarios", "movers,dancers");
+        rejects("--bogus", "1");
+        rejects("--frames");
+    }
+
+    private static void rejects(String... args) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> LoadTest.Options.parse(args), String.join(" ", args));
+        assertTrue(e.getMessage().contains(args[0]) || e.getMessage().startsWith("Unknown"), e.getMessage());
+    }
+}
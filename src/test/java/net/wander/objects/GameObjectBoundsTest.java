@@ -0,0 +1,58 @@
+package net.wander.objects;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** intersects учитывает переопределённый хитбокс — и старым, и новым способом. */
+class GameObjectBoundsTest {
+
+    @Test
+    void plainObjectsUseTheirRectangle() {
+        GameObject a = new GameObject(0, 0, 10, 10);
+        GameObject b = new GameObject(9, 9, 10, 10);
+        GameObject c = new GameObject(10, 0, 10, 10);   // касание — не пересечение
+        assertTrue(a.intersects(b));
+        assertFalse(a.intersects(c));
+        assertFalse(a.intersects(null));
+        assertFalse(new GameObject(0, 0, 0, 10).intersects(a));
+        assertEquals(new Rectangle2D.Double(9, 9, 10, 10), b.getBounds());
+    }
+
+    @Test
+    void legacyGetBoundsOverrideIsHonored() {
+        // хитбокс меньше спрайта: только центральные 4x4
+        GameObject shrunk = new GameObject(0, 0, 10, 10) {
+            @Override
+            public Rectangle2D getBounds() {
+                return new Rectangle2D.Double(x + 3, y + 3, 4, 4);
+            }
+        };
+        GameObject corner = new GameObject(0, 0, 2, 2);
+        GameObject center = new GameObject(4, 4, 2, 2);
+        assertFalse(shrunk.intersects(corner));
+        assertFalse(corner.intersects(shrunk));
+        assertTrue(shrunk.intersects(center));
+        assertTrue(center.intersects(shrunk));
+    }
+
+    @Test
+    void getBoundsOutOverrideIsHonored() {
+        // хитбокс сдвинут вправо на 20
+        GameObject offset = new GameObject(0, 0, 10, 10) {
+            @Override
+            public Rectangle2D getBounds(Rectangle2D out) {
+                out.setRect(x + 20, y, width, height);
+                return out;
+            }
+        };
+        assertFalse(offset.intersects(new GameObject(0, 0, 10, 10)));
+        assertTrue(offset.intersects(new GameObject(25, 5, 1, 1)));
+        assertTrue(new GameObject(25, 5, 1, 1).intersects(offset));
+        assertEquals(20, offset.getBounds().getX());
+    }
+}
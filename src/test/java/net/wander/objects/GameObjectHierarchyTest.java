@@ -0,0 +1,252 @@
+package net.wander.objects;
+
+import net.wander.utils.Mouse;
+import net.wander.utils.Scene;
+import net.wander.utils.render.CommandRenderer;
+import net.wander.utils.render.RenderCommands;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Иерархия объектов: видимость поддерева, уборка уничтоженных детей, трансформации, попадания. */
+class GameObjectHierarchyTest {
+
+    /** Закрашивает свой прямоугольник (в координатах родителя). */
+    private static class Box extends GameObject {
+        final Color color;
+
+        Box(double x, double y, double w, double h, Color color) {
+            super(x, y, w, h);
+            this.color = color;
+        }
+
+        @Override
+        public void render(Graphics2D g) {
+            if (!isVisible()) return;
+            g.setColor(color);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+    }
+
+    /** Корень, который пишет команды сам (как спрайтовые объекты). */
+    private static final class RecordedBox extends Box {
+        RecordedBox(double x, double y, double w, double h, Color color) {
+            super(x, y, w, h, color);
+        }
+
+        @Override
+        public void record(RenderCommands out) {
+            out.fillRect(color, x, y, width, height);
+        }
+    }
+
+    @Test
+    void hiddenParentHidesSubtree() {
+        Scene scene = new Scene("test");
+        Box tank = new Box(10, 10, 20, 20, Color.GREEN);
+        Box turret = new Box(30, 0, 5, 5, Color.RED);   // (40, 10) в мире
+        tank.addChild(turret);
+        scene.addObject(tank);
+
+        BufferedImage img = render(scene);
+        assertEquals(Color.RED.getRGB(), img.getRGB(41, 11));
+
+        tank.setVisible(false);
+        img = render(scene);
+        assertEquals(Color.BLACK.getRGB(), img.getRGB(41, 11));
+        assertEquals(Color.BLACK.getRGB(), img.getRGB(15, 15));
+    }
+
+    @Test
+    void commandRendererDrawsChildrenOfRecordingRoot() {
+        Scene scene = new Scene("test");
+        RecordedBox tank = new RecordedBox(10, 10, 20, 20, Color.GREEN);
+        tank.addChild(new Box(30, 0, 5, 5, Color.RED));
+        RecordedBox lone = new RecordedBox(60, 60, 4, 4, Color.BLUE);
+        scene.addObject(tank);
+        scene.addObject(lone);
+
+        CommandRenderer renderer = new CommandRenderer(1);
+        scene.setCommandRenderer(renderer);
+        BufferedImage img = render(scene);
+        renderer.shutdown();
+
+        assertEquals(Color.GREEN.getRGB(), img.getRGB(15, 15));
+        assertEquals(Color.RED.getRGB(), img.getRGB(41, 11));
+        assertEquals(Color.BLUE.getRGB(), img.getRGB(61, 61));
+    }
+
+    @Test
+    void destroyedChildrenAreDetached() {
+        Scene scene = new Scene("test");
+        GameObject turret = new GameObject(0, 0, 10, 10);
+        scene.addObject(turret);
+
+        int[] updates = new int[1];
+        for (int frame = 0; frame < 1000; frame++) {
+            GameObject flash = new GameObject(0, 0, 1, 1) {
+                @Override
+                public void update(double dt) {
+                    updates[0]++;
+                    destroy();   // живёт один апдейт
+                }
+            };
+            turret.addChild(flash);
+            scene.update(0.016);
+        }
+        assertEquals(1000, updates[0]);
+        assertFalse(turret.hasChildren());
+
+        GameObject child = new GameObject();
+        turret.addChild(child);
+        child.destroy();
+        scene.update(0.016);
+        assertNull(child.getParent());
+        assertTrue(turret.getChildren().isEmpty());
+    }
+
+    @Test
+    void worldTransformFollowsChangesLazily() {
+        GameObject root = new GameObject(100, 0, 0, 0);
+        GameObject arm = new GameObject(10, 0, 0, 0);
+        GameObject tip = new GameObject(5, 0, 0, 0);
+        root.addChild(arm);
+        arm.addChild(tip);
+
+        Point2D p = tip.localToWorld(0, 0, null);
+        assertEquals(115, p.getX(), 1e-9);
+        assertEquals(0, p.getY(), 1e-9);
+
+        root.setRotation(Math.PI / 2);
+        tip.localToWorld(0, 0, p);
+        assertEquals(100, p.getX(), 1e-9);
+        assertEquals(15, p.getY(), 1e-9);
+
+        arm.setScale(2);
+        tip.localToWorld(1, 0, p);
+        assertEquals(100, p.getX(), 1e-9);
+        assertEquals(22, p.getY(), 1e-9);
+
+        root.setPosition(0, 0);
+        tip.parentToWorld(p);
+        assertEquals(0, p.getX(), 1e-9);
+        assertEquals(20, p.getY(), 1e-9);
+    }
+
+    @Test
+    void childHitTestingUsesParentTransform() {
+        GameObject panel = new GameObject(100, 50, 200, 100);
+        GameObject button = new GameObject(10, 10, 40, 20);
+        panel.addChild(button);
+
+        // кнопка нарисована в мире на (110..150, 60..80)
+        assertTrue(button.contains(115, 65));
+        assertFalse(button.contains(15, 15));
+
+        // панель в (100, 100), повёрнута на 90°: локальная (lx, ly) → мир (100 - ly, 100 + lx)
+        panel.setPosition(100, 100);
+        panel.setRotation(Math.PI / 2);
+        assertTrue(button.contains(80, 130));
+        assertFalse(button.contains(120, 120));
+
+        // сжатый в линию родитель ничего не ловит
+        panel.setScale(0);
+        assertFalse(button.contains(100, 100));
+    }
+
+    @Test
+    void childHoverAndClickFollowMovedPanel() {
+        GameObject panel = new GameObject(100, 100, 200, 100);
+        GameObject button = new GameObject(10, 10, 40, 20);
+        panel.addChild(button);
+        panel.setRotation(Math.PI / 2);
+
+        Canvas canvas = new Canvas();
+        Mouse.attach(canvas);
+        try {
+            Mouse.nextFrame();
+            moveMouse(canvas, 80, 130);
+            assertTrue(button.isMouseOver());
+            assertFalse(button.isLeftClicked());
+            click(canvas, 80, 130);
+            assertTrue(button.isLeftClicked());
+
+            Mouse.nextFrame();
+            moveMouse(canvas, 20, 20);   // там кнопка была бы без родителя
+            click(canvas, 20, 20);
+            assertFalse(button.isMouseOver());
+            assertFalse(button.isLeftClicked());
+        } finally {
+            Mouse.nextFrame();
+        }
+    }
+
+    @Test
+    void childIntersectsInWorldCoordinates() {
+        GameObject panel = new GameObject(100, 100, 0, 0);
+        GameObject part = new GameObject(10, 10, 40, 20);
+        panel.addChild(part);
+
+        GameObject inside = new GameObject(115, 115, 5, 5);
+        GameObject local = new GameObject(15, 15, 5, 5);   // пересекался бы без учёта родителя
+        assertTrue(part.intersects(inside));
+        assertTrue(inside.intersects(part));
+        assertFalse(part.intersects(local));
+        assertFalse(local.intersects(part));
+
+        // касание краями — не пересечение, как у корней
+        assertFalse(part.intersects(new GameObject(150, 110, 5, 5)));
+
+        // тонкая планка по диагонали: описанный прямоугольник задел бы точку, сама планка — нет
+        GameObject arm = new GameObject(0, 0, 0, 0);
+        GameObject bar = new GameObject(0, 0, 100, 10);
+        arm.addChild(bar);
+        arm.setRotation(Math.PI / 4);
+        assertTrue(bar.intersects(new GameObject(30, 35, 5, 5)));
+        assertFalse(bar.intersects(new GameObject(60, 5, 10, 10)));
+
+        // два ребёнка разных родителей
+        GameObject other = new GameObject(100, 100, 0, 0);
+        GameObject near = new GameObject(-20, -20, 35, 35);   // в мире (80..115, 80..115)
+        other.addChild(near);
+        assertTrue(part.intersects(near));
+        near.setPosition(-20, -20 - 10);                        // (80..115, 70..105): до part не достаёт
+        assertFalse(part.intersects(near));
+    }
+
+    private static BufferedImage render(Scene scene) {
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, 100, 100);
+        scene.render(g);
+        g.dispose();
+        return img;
+    }
+
+    private static void moveMouse(Canvas source, int x, int y) {
+        MouseEvent e = new MouseEvent(source, MouseEvent.MOUSE_MOVED, 0, 0, x, y, 0, false, MouseEvent.NOBUTTON);
+        for (MouseMotionListener l : source.getMouseMotionListeners()) l.mouseMoved(e);
+    }
+
+    private static void click(Canvas source, int x, int y) {
+        MouseEvent press = new MouseEvent(source, MouseEvent.MOUSE_PRESSED, 0, 0, x, y, 1, false, MouseEvent.BUTTON1);
+        MouseEvent release = new MouseEvent(source, MouseEvent.MOUSE_RELEASED, 0, 0, x, y, 1, false, MouseEvent.BUTTON1);
+        for (MouseListener l : source.getMouseListeners()) {
+            l.mousePressed(press);
+            l.mouseReleased(release);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package net.wander.utils;
+
+import net.wander.objects.GameObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Установившаяся сцена не мусорит: типичная смесь объектов укладывается в бюджет байт на кадр.
+ * Если тест упал — в сообщении разбивка по фазам (update/render).
+ */
+class AllocationBudgetTest {
+
+    private static final long BUDGET_BYTES_PER_FRAME = 1024;
+
+    private static class Mover extends GameObject {
+        final Color color;
+
+        Mover(Random rnd) {
+            super(rnd.nextInt(300), rnd.nextInt(220), 4 + rnd.nextInt(8), 4 + rnd.nextInt(8));
+            setVelocity(rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50);
+            color = new Color(rnd.nextInt(0xffffff));
+        }
+
+        @Override
+        public void update(double dt) {
+            super.update(dt);
+            if (x < 0 || x + width > 320) vx = -vx;
+            if (y < 0 || y + height > 240) vy = -vy;
+        }
+
+        @Override
+        public void render(Graphics2D g) {
+            if (!isVisible()) return;
+            g.setColor(color);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+    }
+
+    /** Проверяет столкновения с соседями по списку. */
+    private static final class Collider extends Mover {
+        final List<Collider> all;
+        int hits;
+
+        Collider(Random rnd, List<Collider> all) {
+            super(rnd);
+            this.all = all;
+        }
+
+        @Override
+        public void update(double dt) {
+            super.update(dt);
+            for (int i = 0; i < all.size(); i += 7) {
+                if (all.get(i) != this && intersects(all.get(i))) hits++;
+            }
+        }
+    }
+
+    @Test
+    void steadyStateSceneStaysWithinBudget() {
+        Scene scene = new Scene("budget");
+        Random rnd = new Random(3);
+
+        for (int i = 0; i < 1500; i++) scene.addObject(new Mover(rnd));
+
+        List<Collider> colliders = new ArrayList<>();
+        for (int i = 0; i < 300; i++) colliders.add(new Collider(rnd, colliders));
+        for (Collider c : colliders) scene.addObject(c);
+
+        // танки с башнями: иерархия и поворот
+        for (int i = 0; i < 100; i++) {
+            Mover tank = new Mover(rnd);
+            Mover turret = new Mover(rnd);
+            turret.setPosition(2, 2);
+            turret.setVelocity(0, 0);
+            tank.addChild(turret);
+            tank.setLayer(i % 3);
+            scene.addObject(tank);
+        }
+
+        // таймеры и низкоприоритетные объекты
+        int[] ticks = new int[1];
+        scene.getScheduler().every(0.1, () -> ticks[0]++);
+        for (int i = 0; i < scene.getObjects().size(); i += 5) {
+            scene.getObjects().get(i).setUpdateInterval(2);
+        }
+
+        long avg = AllocationTracker.assertBudget(scene, 600, 300, BUDGET_BYTES_PER_FRAME);
+        assertTrue(avg <= BUDGET_BYTES_PER_FRAME);
+        assertTrue(ticks[0] > 0);
+    }
+}
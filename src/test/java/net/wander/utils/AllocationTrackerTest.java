@@ -0,0 +1,79 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/** Разметка кадров: байты по фазам последнего кадра и отложенный сброс статистики. */
+class AllocationTrackerTest {
+
+    private static final int BIG = 1 << 20;
+
+    static volatile Object sink;
+
+    @Test
+    void lastFramePhasesSurviveNextFrame() {
+        AllocationTracker t = new AllocationTracker();
+        try {
+            assumeTrue(t.isSupported());
+            t.beginFrame("a");
+            t.phase(AllocationTracker.Phase.UPDATE);
+            sink = new byte[BIG];
+            t.phase(AllocationTracker.Phase.RENDER);
+            t.endFrame();
+
+            long update = t.getLastFrameBytes(AllocationTracker.Phase.UPDATE);
+            assertTrue(update >= BIG, "update bytes: " + update);
+            long sum = 0;
+            for (AllocationTracker.Phase p : AllocationTracker.Phase.values()) sum += t.getLastFrameBytes(p);
+            assertEquals(t.getLastFrameBytes(), sum);
+
+            // следующий кадр идёт — а «последний законченный» всё тот же
+            t.beginFrame("a");
+            assertEquals(update, t.getLastFrameBytes(AllocationTracker.Phase.UPDATE));
+            t.phase(AllocationTracker.Phase.UPDATE);
+            assertEquals(update, t.getLastFrameBytes(AllocationTracker.Phase.UPDATE));
+            t.endFrame();
+            assertTrue(t.getLastFrameBytes(AllocationTracker.Phase.UPDATE) < BIG);
+        } finally {
+            t.close();
+        }
+    }
+
+    @Test
+    void resetIsAppliedAtNextFrame() throws InterruptedException {
+        AllocationTracker t = new AllocationTracker();
+        try {
+            for (int i = 0; i < 3; i++) {
+                t.beginFrame("a");
+                t.endFrame();
+            }
+            assertEquals(3, t.getStats("a").getFrames());
+
+            // сброс из другого потока посреди кадра: текущий кадр не пропадает в никуда
+            // и не попадает в новую статистику
+            t.beginFrame("a");
+            Thread other = new Thread(t::reset);
+            other.start();
+            other.join();
+            t.endFrame();
+            assertEquals(4, t.getStats("a").getFrames(), "old stats until the next frame");
+
+            t.beginFrame("b");
+            assertNull(t.getStats("a"));
+            t.endFrame();
+            assertNotNull(t.getStats("b"));
+            assertEquals(1, t.getStats("b").getFrames());
+
+            t.beginFrame("a");
+            t.endFrame();
+            assertEquals(1, t.getStats("a").getFrames());
+        } finally {
+            t.close();
+        }
+    }
+}
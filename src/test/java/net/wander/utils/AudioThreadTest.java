@@ -0,0 +1,87 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Очередь команд звука: порядок, один поток-исполнитель, ошибка команды поток не роняет. */
+class AudioThreadTest {
+
+    @Test
+    void commandsRunInPostOrderOnAudioThread() throws InterruptedException {
+        int n = 20_000;
+        List<Integer> order = new ArrayList<>();   // трогает только аудиопоток
+        List<String> threads = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        for (int i = 0; i < n; i++) {
+            int k = i;
+            AudioThread.post(() -> {
+                order.add(k);
+                if (k == 0 || k == n - 1) threads.add(Thread.currentThread().getName());
+            });
+        }
+        AudioThread.post(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(n, order.size());
+        for (int i = 0; i < n; i++) assertEquals(i, order.get(i));
+        assertEquals(List.of("AudioThread", "AudioThread"), threads);
+    }
+
+    @Test
+    void eachProducerKeepsItsOrder() throws InterruptedException {
+        int producers = 4, perProducer = 5_000;
+        List<int[]> seen = new ArrayList<>();   // {producer, номер} — трогает только аудиопоток
+        CountDownLatch posted = new CountDownLatch(producers);
+        Thread[] ts = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            ts[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    int k = i;
+                    AudioThread.post(() -> seen.add(new int[]{id, k}));
+                }
+                posted.countDown();
+            });
+            ts[p].start();
+        }
+        assertTrue(posted.await(10, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(1);
+        AudioThread.post(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(producers * perProducer, seen.size());
+        int[] next = new int[producers];
+        for (int[] e : seen) {
+            assertEquals(next[e[0]], e[1], "producer " + e[0]);
+            next[e[0]]++;
+        }
+    }
+
+    @Test
+    void failingCommandDoesNotStopQueue() throws InterruptedException {
+        List<String> log = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        AudioThread.post(() -> log.add("before"));
+        AudioThread.post(() -> {
+            throw new IllegalStateException("line closed (expected by test)");
+        });
+        AudioThread.post(() -> log.add("after"));
+        AudioThread.post(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("before", "after"), log);
+
+        // поток после паузы просыпается на новую команду
+        Thread.sleep(50);
+        CountDownLatch again = new CountDownLatch(1);
+        AudioThread.post(again::countDown);
+        assertTrue(again.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,113 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Fixed: границы ошибки, детерминизм и поведение на краях диапазона. */
+class FixedTest {
+
+    private static final double LSB = 1.0 / Fixed.ONE;
+
+    // контрольная сумма simulate(); только целочисленные операции — совпадает на любой JVM
+    private static final long GOLDEN = 5079543394300897429L;
+
+    @Test
+    void sinCosWithinDocumentedError() {
+        double max = 0;
+        for (int a = -Fixed.TWO_PI; a <= Fixed.TWO_PI; a += 7) {
+            double d = Fixed.toDouble(a);
+            max = Math.max(max, Math.abs(Fixed.toDouble(Fixed.sin(a)) - Math.sin(d)));
+            max = Math.max(max, Math.abs(Fixed.toDouble(Fixed.cos(a)) - Math.cos(d)));
+        }
+        assertTrue(max <= 1e-4, "sin/cos error " + max);
+    }
+
+    @Test
+    void atan2WithinDocumentedError() {
+        double max = 0;
+        int[] radii = {Fixed.fromDouble(0.01), Fixed.ONE, Fixed.fromInt(100), Fixed.fromInt(30000)};
+        for (int r : radii) {
+            for (int i = 0; i < 20_000; i++) {
+                double a = -Math.PI + 2 * Math.PI * i / 20_000;
+                int y = (int) Math.round(r * Math.sin(a));
+                int x = (int) Math.round(r * Math.cos(a));
+                if (x == 0 && y == 0) continue;
+                double err = Math.abs(Fixed.toDouble(Fixed.atan2(y, x)) - Math.atan2(y, x));
+                if (err > Math.PI) err = 2 * Math.PI - err;   // -pi и pi — один угол
+                max = Math.max(max, err);
+            }
+        }
+        assertTrue(max <= 4 * LSB, "atan2 error " + max / LSB + " lsb");
+        assertEquals(0, Fixed.atan2(0, 0));
+    }
+
+    @Test
+    void sqrtIsFloorOfExactRoot() {
+        for (int a = 1; a > 0 && a < Integer.MAX_VALUE - 9973; a += 9973) {
+            int s = Fixed.sqrt(a);
+            long v = (long) a << Fixed.FRACTION_BITS;
+            assertTrue((long) s * s <= v && (long) (s + 1) * (s + 1) > v, "sqrt(" + a + ")");
+        }
+        assertEquals(0, Fixed.sqrt(-Fixed.ONE));
+        assertEquals(Fixed.fromInt(3), Fixed.sqrt(Fixed.fromInt(9)));
+        assertEquals(Fixed.fromInt(5), Fixed.length(Fixed.fromInt(3), Fixed.fromInt(4)));
+    }
+
+    @Test
+    void arithmetic() {
+        int a = Fixed.fromDouble(2.5), b = Fixed.fromDouble(-1.25);
+        assertEquals(Fixed.fromDouble(-3.125), Fixed.mul(a, b));
+        assertEquals(Fixed.fromInt(-2), Fixed.div(a, b));
+        assertEquals(Fixed.HALF, Fixed.lerp(0, Fixed.ONE, Fixed.HALF));
+        assertEquals(-2, Fixed.toInt(Fixed.fromDouble(-1.5)));   // вниз, не к нулю
+        assertThrows(ArithmeticException.class, () -> Fixed.div(Fixed.ONE, 0));
+    }
+
+    @Test
+    void edgesOfRange() {
+        // крайние целые живут без потерь
+        assertEquals(32767, Fixed.toInt(Fixed.fromInt(32767)));
+        assertEquals(-32768, Fixed.toInt(Fixed.fromInt(-32768)));
+        // произведение у края диапазона ещё точное
+        assertEquals(Fixed.fromInt(32761), Fixed.mul(Fixed.fromInt(181), Fixed.fromInt(181)));
+        // длина огромного вектора насыщается, а не переполняется в минус
+        assertEquals(Integer.MAX_VALUE, Fixed.length(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        // sqrt(MAX) — около 181.02
+        assertEquals(Math.sqrt(Fixed.toDouble(Integer.MAX_VALUE)), Fixed.toDouble(Fixed.sqrt(Integer.MAX_VALUE)), LSB);
+        // синус от крайних углов не выходит за [-1, 1]
+        for (int angle : new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1}) {
+            int s = Fixed.sin(angle);
+            assertTrue(s >= -Fixed.ONE && s <= Fixed.ONE, "sin(" + angle + ") = " + s);
+        }
+        // atan2 у края не теряет знак
+        assertTrue(Fixed.atan2(1, Integer.MIN_VALUE) > 0);
+        assertTrue(Fixed.atan2(-1, Integer.MIN_VALUE) < 0);
+    }
+
+    @Test
+    void simulationIsDeterministic() {
+        // если сумма поменялась — поменялась математика Fixed, реплеи и lockstep разойдутся
+        assertEquals(simulate(), simulate());
+        assertEquals(GOLDEN, simulate());
+    }
+
+    private static long simulate() {
+        int x = 0, y = 0, vx = Fixed.fromDouble(1.5), vy = Fixed.fromDouble(-0.75);
+        int dt = Fixed.fromDouble(1.0 / 60.0);
+        long hash = 17;
+        for (int i = 0; i < 10_000; i++) {
+            int angle = Fixed.atan2(vy, vx) + Fixed.mul(Fixed.fromDouble(0.01), Fixed.fromInt(i & 63));
+            int speed = Fixed.length(vx, vy);
+            vx = Fixed.mul(Fixed.cos(angle), speed);
+            vy = Fixed.mul(Fixed.sin(angle), speed);
+            x = Fixed.add(x, Fixed.mul(vx, dt));
+            y = Fixed.add(y, Fixed.mul(vy, dt));
+            hash = hash * 31 + x;
+            hash = hash * 31 + y;
+        }
+        return hash;
+    }
+}
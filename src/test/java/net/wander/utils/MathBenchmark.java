@@ -0,0 +1,74 @@
+package net.wander.utils;
+
+/**
+ * Замер MathUtil и Fixed против java.lang.Math (не тест — запускается руками):
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes net.wander.utils.MathBenchmark
+ *
+ * Для каждой функции — лучшее время на вызов (нс) из нескольких прогонов. Сумма результатов
+ * пишется в volatile-поле, чтобы JIT не выкинул вычисления.
+ */
+public final class MathBenchmark {
+
+    private static final int N = 1 << 20;
+    private static final int ROUNDS = 20;
+
+    private interface Op {
+        double run(int i);
+    }
+
+    static volatile double sink;
+
+    private static final double[] ANGLES = new double[N];
+    private static final double[] XS = new double[N];
+    private static final double[] YS = new double[N];
+    private static final int[] F_ANGLES = new int[N];
+    private static final int[] F_XS = new int[N];
+    private static final int[] F_YS = new int[N];
+
+    private MathBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        java.util.Random rnd = new java.util.Random(1);
+        for (int i = 0; i < N; i++) {
+            ANGLES[i] = (rnd.nextDouble() - 0.5) * 4 * Math.PI;
+            XS[i] = rnd.nextDouble() * 200 - 100;
+            YS[i] = rnd.nextDouble() * 200 - 100;
+            F_ANGLES[i] = Fixed.fromDouble(ANGLES[i]);
+            F_XS[i] = Fixed.fromDouble(XS[i]);
+            F_YS[i] = Fixed.fromDouble(YS[i]);
+        }
+
+        System.out.println("function              ns/op");
+        bench("Math.sin", i -> Math.sin(ANGLES[i]));
+        bench("StrictMath.sin", i -> StrictMath.sin(ANGLES[i]));
+        bench("MathUtil.fastSin", i -> MathUtil.fastSin(ANGLES[i]));
+        bench("Fixed.sin", i -> Fixed.sin(F_ANGLES[i]));
+        bench("Math.cos", i -> Math.cos(ANGLES[i]));
+        bench("MathUtil.fastCos", i -> MathUtil.fastCos(ANGLES[i]));
+        bench("Fixed.cos", i -> Fixed.cos(F_ANGLES[i]));
+        bench("Math.atan2", i -> Math.atan2(YS[i], XS[i]));
+        bench("StrictMath.atan2", i -> StrictMath.atan2(YS[i], XS[i]));
+        bench("MathUtil.fastAtan2", i -> MathUtil.fastAtan2(YS[i], XS[i]));
+        bench("Fixed.atan2", i -> Fixed.atan2(F_YS[i], F_XS[i]));
+        bench("Math.sqrt", i -> Math.sqrt(Math.abs(XS[i])));
+        bench("Fixed.sqrt", i -> Fixed.sqrt(Math.abs(F_XS[i])));
+        bench("Math.hypot", i -> Math.hypot(XS[i], YS[i]));
+        bench("MathUtil.length", i -> MathUtil.length(XS[i], YS[i]));
+        bench("Fixed.length", i -> Fixed.length(F_XS[i], F_YS[i]));
+    }
+
+    private static void bench(String name, Op op) {
+        double sum = 0;
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < N; i++) sum += op.run(i);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        sink = sum;
+        System.out.printf("%-20s %6.2f%n", name, best / (double) N);
+    }
+}
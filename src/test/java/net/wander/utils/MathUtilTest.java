@@ -0,0 +1,67 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Границы ошибки быстрых приближений из доков MathUtil — на плотной сетке. */
+class MathUtilTest {
+
+    private static final int STEPS = 2_000_000;
+
+    @AfterEach
+    void resetMode() {
+        MathUtil.setMode(MathUtil.Mode.PRECISE);
+    }
+
+    @Test
+    void fastSinCosWithinDocumentedError() {
+        double maxSin = 0, maxCos = 0;
+        for (int i = 0; i <= STEPS; i++) {
+            double a = -8 * Math.PI + 16 * Math.PI * i / STEPS;
+            maxSin = Math.max(maxSin, Math.abs(MathUtil.fastSin(a) - Math.sin(a)));
+            maxCos = Math.max(maxCos, Math.abs(MathUtil.fastCos(a) - Math.cos(a)));
+        }
+        assertTrue(maxSin <= 3e-7, "fastSin error " + maxSin);
+        assertTrue(maxCos <= 3e-7, "fastCos error " + maxCos);
+    }
+
+    @Test
+    void fastAtan2WithinDocumentedError() {
+        double max = 0;
+        double[] radii = {1e-6, 0.5, 1, 37, 1e6};
+        for (double r : radii) {
+            for (int i = 0; i <= STEPS / 4; i++) {
+                double a = -Math.PI + 2 * Math.PI * i / (STEPS / 4);
+                double y = r * Math.sin(a), x = r * Math.cos(a);
+                max = Math.max(max, Math.abs(MathUtil.fastAtan2(y, x) - Math.atan2(y, x)));
+            }
+        }
+        assertTrue(max <= 2e-6, "fastAtan2 error " + max);
+        assertEquals(0.0, MathUtil.fastAtan2(0, 0));
+    }
+
+    @Test
+    void sqrtMatchesMath() {
+        for (int i = 0; i <= STEPS; i++) {
+            double v = i * 0.37;
+            assertEquals(Math.sqrt(v), MathUtil.sqrt(v));
+        }
+        assertEquals(5.0, MathUtil.length(3, 4));
+    }
+
+    @Test
+    void modeSelectsImplementation() {
+        double a = 1.2345;
+        MathUtil.setMode(MathUtil.Mode.FAST);
+        assertEquals(MathUtil.fastSin(a), MathUtil.sin(a));
+        assertEquals(MathUtil.fastAtan2(1, 2), MathUtil.atan2(1, 2));
+        MathUtil.setMode(MathUtil.Mode.STRICT);
+        assertEquals(StrictMath.cos(a), MathUtil.cos(a));
+        MathUtil.setMode(null);
+        assertEquals(MathUtil.Mode.PRECISE, MathUtil.getMode());
+        assertEquals(Math.sin(a), MathUtil.sin(a));
+    }
+}
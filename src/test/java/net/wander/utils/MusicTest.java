@@ -0,0 +1,366 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.SourceDataLine;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Music без звукового устройства: линия подменяется заглушкой, которая принимает байты
+ * примерно в реальном времени, а данные читаются через nextChunk напрямую.
+ * Разбор WAV, перемотка, луп и громкость проверяются по значениям сэмплов.
+ */
+class MusicTest {
+
+    private static final int RATE = 8000;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void crossfadeBackRestoresVolumeAndRewinds() throws Exception {
+        Music a = music("a.wav", 20_000, true);
+        Music b = music("b.wav", 20_000, true);
+        try {
+            a.setVolume(0.8);
+            b.setVolume(0.6);
+            a.play();
+
+            a.crossfadeTo(b, 0.3);
+            waitFor(() -> !a.isPlaying() && b.getVolume() == 0.6, "A -> B");
+            assertEquals(0.8, a.getVolume(), "fadeOut keeps the volume the track had before the fade");
+            assertEquals(0.0, a.getPosition(), "fadeOut rewinds like stop()");
+
+            b.crossfadeTo(a, 0.3);
+            waitFor(() -> !b.isPlaying() && a.getVolume() == 0.8, "B -> A");
+            assertTrue(a.isPlaying());
+            assertEquals(0.6, b.getVolume());
+            assertEquals(0.0, b.getPosition());
+        } finally {
+            a.destroy();
+            b.destroy();
+        }
+    }
+
+    @Test
+    void crossfadeBackBeforeFadeOutEndsKeepsVolume() throws Exception {
+        Music a = music("a.wav", 20_000, true);
+        Music b = music("b.wav", 20_000, true);
+        try {
+            a.setVolume(0.7);
+            a.play();
+            a.crossfadeTo(b, 30.0);   // затухание ещё идёт
+            assertEquals(0.7, a.getTargetVolume());
+
+            b.crossfadeTo(a, 0.2);
+            waitFor(() -> !b.isPlaying() && a.getVolume() == 0.7, "B -> A");
+            assertTrue(a.isPlaying());
+        } finally {
+            a.destroy();
+            b.destroy();
+        }
+    }
+
+    @Test
+    void stopDuringFadeOutRestoresVolume() throws Exception {
+        Music a = music("a.wav", 20_000, true);
+        try {
+            a.setVolume(0.5);
+            a.play();
+            a.fadeOut(30.0);
+            a.stop();
+            assertFalse(a.isPlaying());
+            assertEquals(0.5, a.getVolume());
+            assertEquals(0.0, a.getPosition());
+        } finally {
+            a.destroy();
+        }
+    }
+
+    @Test
+    void findsPcmDataAfterOddChunk() {
+        byte[] data = new byte[40];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) (i + 1);
+        ByteBuffer wav = ByteBuffer.wrap(wav(1, 2, 16, data, true)).order(ByteOrder.LITTLE_ENDIAN);
+
+        long[] fmt = Music.findChunk(wav, "fmt ");
+        assertEquals(20, fmt[0]);
+        assertEquals(16, fmt[1]);
+        long[] list = Music.findChunk(wav, "LIST");
+        assertEquals(3, list[1]);
+        long[] chunk = Music.findChunk(wav, "data");
+        assertEquals(36 + 12 + 8, chunk[0]);   // LIST: 8 + 3 + байт выравнивания
+        assertEquals(40, chunk[1]);
+        assertNull(Music.findChunk(wav, "cue "));
+
+        ByteBuffer pcm = Music.findPcmWavData(wav);
+        assertNotNull(pcm);
+        assertEquals(40, pcm.remaining());
+        byte[] read = new byte[40];
+        pcm.get(read);
+        assertArrayEquals(data, read);
+
+        AudioFormat format = Music.readWavFormat(wav);
+        assertEquals(RATE, format.getSampleRate());
+        assertEquals(2, format.getChannels());
+        assertEquals(16, format.getSampleSizeInBits());
+        assertFalse(format.isBigEndian());
+    }
+
+    @Test
+    void rejectsWhatCannotBeMapped() {
+        byte[] data = new byte[16];
+        assertNull(Music.findPcmWavData(ByteBuffer.wrap(wav(1, 1, 8, data, false))), "8 bit is decoded");
+        assertNull(Music.findPcmWavData(ByteBuffer.wrap(wav(3, 1, 32, data, false))), "float is decoded");
+        assertNull(Music.findPcmWavData(ByteBuffer.wrap(new byte[8])));
+        byte[] notWave = wav(1, 1, 16, data, false);
+        notWave[8] = 'A';
+        assertNull(Music.findPcmWavData(ByteBuffer.wrap(notWave)));
+
+        // data длиннее файла (обрезанная запись) — берём сколько есть
+        byte[] cut = Arrays.copyOf(wav(1, 1, 16, new byte[100], false), 44 + 30);
+        ByteBuffer pcm = Music.findPcmWavData(ByteBuffer.wrap(cut));
+        assertEquals(30, pcm.remaining());
+    }
+
+    @Test
+    void mappedTrackStreamsSeeksAndLoops() throws Exception {
+        Music m = music("m.wav", 3000, false);
+        try {
+            assertEquals(3000.0 / RATE, m.getDuration(), 1e-9);
+            byte[] chunk = new byte[2048 * 4];
+
+            assertEquals(2048 * 4, m.nextChunk(chunk));
+            assertFrames(chunk, 0, 2048);
+            assertEquals(952 * 4, m.nextChunk(chunk));
+            assertFrames(chunk, 2048, 952);
+            assertEquals(Music.END, m.nextChunk(chunk));
+
+            m.seek(0.25);                           // кадр 2000
+            assertEquals(0.25, m.getPosition(), 1e-9);
+            assertEquals(1000 * 4, m.nextChunk(chunk));
+            assertFrames(chunk, 2000, 1000);
+
+            m.seek(100);                            // за концом — последний кадр
+            assertEquals(4, m.nextChunk(chunk));
+            assertFrames(chunk, 2999, 1);
+
+            // луп: после конца сразу начало, без пустого куска
+            m.setLooping(true);
+            m.seek(2500.0 / RATE);
+            assertEquals(500 * 4, m.nextChunk(chunk));
+            assertEquals(2048 * 4, m.nextChunk(chunk));
+            assertFrames(chunk, 0, 2048);
+        } finally {
+            m.destroy();
+        }
+    }
+
+    @Test
+    void decodedTrackSeeksBothWays() throws Exception {
+        // 8 бит моно не отображается, а декодируется в 16 бит: u -> примерно (u - 128) · 256
+        byte[] data = new byte[5000];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) (i % 251);
+        Path file = tmp.resolve("d.wav");
+        Files.write(file, wav(1, 1, 8, data, true));
+        Music m = new Music(null, file.toString(), f -> fakeLine());
+        try {
+            assertEquals(5000.0 / RATE, m.getDuration(), 1e-9);
+            byte[] chunk = new byte[1000 * 2];
+            assertEquals(2000, m.nextChunk(chunk));
+            assertDecoded(chunk, data, 0, 1000);
+
+            m.seek(4000.0 / RATE);                  // вперёд — пропуском
+            assertEquals(2000, m.nextChunk(chunk));
+            assertDecoded(chunk, data, 4000, 1000);
+            assertEquals(Music.END, m.nextChunk(chunk));
+
+            m.seek(500.0 / RATE);                   // назад — переоткрытием
+            assertEquals(2000, m.nextChunk(chunk));
+            assertDecoded(chunk, data, 500, 1000);
+
+            m.setLooping(true);
+            m.seek(4500.0 / RATE);
+            assertEquals(1000, m.nextChunk(chunk));
+            assertEquals(2000, m.nextChunk(chunk));
+            assertDecoded(chunk, data, 0, 1000);
+        } finally {
+            m.destroy();
+        }
+    }
+
+    @Test
+    void volumeAndFadeScaleSamples() throws Exception {
+        Music m = music("v.wav", 20_000, false);
+        try {
+            byte[] chunk = new byte[2048 * 4];
+            m.seek(8000.0 / RATE);
+            m.setVolume(0.5);
+            m.nextChunk(chunk);
+            for (int f = 0; f < 2048; f++) {
+                int v = 8000 + f;
+                assertEquals((int) (v * 0.5), sample(chunk, f, 0));
+                assertEquals((int) (-v * 0.5), sample(chunk, f, 1));
+            }
+
+            // затухание до нуля за 4096 кадров: два куска, громкость падает монотонно
+            m.fadeTo(0.0, 4096.0 / RATE);
+            m.nextChunk(chunk);
+            assertEquals(0.25, m.getVolume(), 1e-9);
+            m.nextChunk(chunk);
+            assertEquals(0.0, m.getVolume(), 1e-9);
+            assertTrue(Math.abs(sample(chunk, 0, 0)) > Math.abs(sample(chunk, 2047, 0)));
+            m.nextChunk(chunk);
+            for (int f = 0; f < 2048; f++) assertEquals(0, sample(chunk, f, 0));
+        } finally {
+            m.destroy();
+        }
+    }
+
+    @Test
+    void playStreamsWholeTrackToLine() throws Exception {
+        Path file = tmp.resolve("s.wav");
+        byte[] wav = wav16(10_000, 2);
+        Files.write(file, wav);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        Music m = new Music(null, file.toString(), f -> fakeLine(written));
+        try {
+            m.play();
+            waitFor(() -> !m.isPlaying(), "end of track");
+            byte[] expected = Arrays.copyOfRange(wav, wav.length - 10_000 * 4, wav.length);
+            assertArrayEquals(expected, written.toByteArray());
+            assertEquals(0.0, m.getPosition(), "finished track rewinds");
+
+            // и играет снова с начала
+            written.reset();
+            m.play();
+            waitFor(() -> !m.isPlaying(), "second run");
+            assertArrayEquals(expected, written.toByteArray());
+        } finally {
+            m.destroy();
+        }
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    /** Трек: 16 бит стерео, в левом канале номер кадра (по модулю 2^15), в правом — минус он. */
+    Music music(String name, int frames, boolean looping) throws IOException {
+        Path file = tmp.resolve(name);
+        Files.write(file, wav16(frames, 2));
+        Music m = new Music(null, file.toString(), f -> fakeLine());
+        m.setLooping(looping);
+        return m;
+    }
+
+    static byte[] wav16(int frames, int channels) {
+        ByteBuffer data = ByteBuffer.allocate(frames * channels * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            short v = (short) (i & 0x7fff);
+            data.putShort(v);
+            if (channels > 1) data.putShort((short) -v);
+        }
+        return wav(1, channels, 16, data.array(), false);
+    }
+
+    /** RIFF WAVE: fmt, (необязательно) блок нечётной длины перед data, data. */
+    static byte[] wav(int audioFormat, int channels, int bits, byte[] data, boolean oddChunk) {
+        int extra = oddChunk ? 8 + 3 + 1 : 0;
+        ByteBuffer b = ByteBuffer.allocate(12 + 8 + 16 + extra + 8 + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0x46464952).putInt(b.capacity() - 8).putInt(0x45564157);   // "RIFF" ... "WAVE"
+        b.putInt(0x20746d66).putInt(16);                                    // "fmt "
+        int blockAlign = channels * bits / 8;
+        b.putShort((short) audioFormat).putShort((short) channels).putInt(RATE)
+                .putInt(RATE * blockAlign).putShort((short) blockAlign).putShort((short) bits);
+        if (oddChunk) {
+            b.putInt(0x5453494c).putInt(3).put(new byte[]{1, 2, 3}).put((byte) 0);   // "LIST", 3 байта + выравнивание
+        }
+        b.putInt(0x61746164).putInt(data.length).put(data);                 // "data"
+        return b.array();
+    }
+
+    /** Кадры [first, first + n) из wav16: левый канал — номер кадра, правый — минус он. */
+    private static void assertFrames(byte[] chunk, int first, int n) {
+        for (int f = 0; f < n; f++) {
+            int v = (first + f) & 0x7fff;
+            assertEquals(v, sample(chunk, f, 0), "frame " + (first + f));
+            assertEquals(-v, sample(chunk, f, 1), "frame " + (first + f));
+        }
+    }
+
+    /** Моно 16 бит, декодированное из 8 бит без знака (декодер может растянуть до полной шкалы). */
+    private static void assertDecoded(byte[] chunk, byte[] data, int first, int n) {
+        for (int f = 0; f < n; f++) {
+            int u = data[first + f] & 0xff;
+            int s = (short) ((chunk[f * 2 + 1] << 8) | (chunk[f * 2] & 0xff));
+            int v = u - 128;
+            assertEquals(v * 256, s, Math.abs(v) * 4 + 2, "frame " + (first + f));
+        }
+    }
+
+    /** Сэмпл 16 бит LE стерео. */
+    private static int sample(byte[] chunk, int frame, int channel) {
+        int i = frame * 4 + channel * 2;
+        return (short) ((chunk[i + 1] << 8) | (chunk[i] & 0xff));
+    }
+
+    static SourceDataLine fakeLine() {
+        return fakeLine(null);
+    }
+
+    /** Линия-заглушка: принимает всё (и пишет в sink, если он есть) и ждёт ~1 мс на запись, как настоящая с маленьким буфером. */
+    static SourceDataLine fakeLine(ByteArrayOutputStream sink) {
+        return (SourceDataLine) Proxy.newProxyInstance(MusicTest.class.getClassLoader(),
+                new Class<?>[]{SourceDataLine.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "write":
+                            if (sink != null) {
+                                synchronized (sink) {
+                                    sink.write((byte[]) args[0], (int) args[1], (int) args[2]);
+                                }
+                            }
+                            LockSupport.parkNanos(1_000_000);
+                            return args[2];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "FakeLine";
+                        default:
+                            Class<?> r = method.getReturnType();
+                            if (r == boolean.class) return false;
+                            if (r == int.class) return 0;
+                            if (r == long.class) return 0L;
+                            if (r == float.class) return 0f;
+                            return null;
+                    }
+                });
+    }
+
+    static void waitFor(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Timed out waiting for " + what);
+            Thread.sleep(5);
+        }
+    }
+}
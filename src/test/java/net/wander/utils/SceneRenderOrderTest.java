@@ -0,0 +1,117 @@
+package net.wander.utils;
+
+import net.wander.objects.GameObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Порядок отрисовки сцены: по слоям, внутри слоя — по добавлению, без полной сортировки. */
+class SceneRenderOrderTest {
+
+    @Test
+    void addKeepsLayersStableByInsertion() {
+        Scene scene = new Scene("test");
+        Random rnd = new Random(5);
+        List<GameObject> added = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            GameObject o = new GameObject(i, 0, 1, 1);
+            o.setLayer(rnd.nextInt(7) - 3);
+            scene.addObject(o);
+            added.add(o);
+        }
+        List<GameObject> expected = new ArrayList<>(added);
+        expected.sort(Comparator.comparingInt(GameObject::getLayer));   // List.sort стабильная
+        assertEquals(expected, scene.getRenderOrder());
+    }
+
+    @Test
+    void layerChangeMovesToEdgeOfNewLayer() {
+        Scene scene = new Scene("test");
+        Random rnd = new Random(6);
+        List<GameObject> model = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            GameObject o = new GameObject(i, 0, 1, 1);
+            o.setLayer(rnd.nextInt(5));
+            scene.addObject(o);
+        }
+        model.addAll(scene.getRenderOrder());
+
+        for (int step = 0; step < 500; step++) {
+            GameObject o = model.get(rnd.nextInt(model.size()));
+            int from = o.getLayer();
+            int to = rnd.nextInt(5);
+            o.setLayer(to);
+            if (to != from) {
+                model.remove(o);
+                int at = to > from ? firstOfLayer(model, to) : firstOfLayer(model, to + 1);
+                model.add(at, o);
+            }
+            assertEquals(model, scene.getRenderOrder(), "step " + step);
+        }
+    }
+
+    @Test
+    void batchedChangesAndDestroyKeepInvariants() {
+        Scene scene = new Scene("test");
+        Random rnd = new Random(7);
+        List<GameObject> untouched = new ArrayList<>();
+        List<GameObject> all = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            GameObject o = new GameObject(i, 0, 1, 1);
+            o.setLayer(rnd.nextInt(10));
+            scene.addObject(o);
+            all.add(o);
+        }
+
+        Set<GameObject> moved = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            GameObject o = all.get(rnd.nextInt(all.size()));
+            o.setLayer(rnd.nextInt(10));
+            moved.add(o);
+        }
+        for (int i = 0; i < 50; i++) all.get(rnd.nextInt(all.size())).destroy();
+        // объекты, добавленные пока порядок "грязный"
+        for (int i = 0; i < 20; i++) {
+            GameObject o = new GameObject(-i, 0, 1, 1);
+            o.setLayer(rnd.nextInt(10));
+            scene.addObject(o);
+            all.add(o);
+        }
+        scene.update(0.016);
+
+        for (GameObject o : all) {
+            if (!moved.contains(o) && !o.isDestroyed()) untouched.add(o);
+        }
+
+        List<GameObject> order = scene.getRenderOrder();
+        Set<GameObject> live = new HashSet<>();
+        for (GameObject o : all) if (!o.isDestroyed()) live.add(o);
+        assertEquals(live, new HashSet<>(order));
+        assertEquals(live.size(), order.size());
+        for (int i = 1; i < order.size(); i++) {
+            assertTrue(order.get(i - 1).getLayer() <= order.get(i).getLayer(), "sorted at " + i);
+        }
+
+        // те, кто слой не менял, внутри слоя остались в порядке добавления
+        List<GameObject> filtered = new ArrayList<>();
+        for (GameObject o : order) if (untouched.contains(o)) filtered.add(o);
+        List<GameObject> expected = new ArrayList<>(untouched);
+        expected.sort(Comparator.comparingInt(GameObject::getLayer));
+        assertEquals(expected, filtered);
+    }
+
+    private static int firstOfLayer(List<GameObject> order, int layer) {
+        for (int i = 0; i < order.size(); i++) {
+            if (order.get(i).getLayer() >= layer) return i;
+        }
+        return order.size();
+    }
+}
@@ -0,0 +1,107 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Колесо времени: каждый таймер срабатывает ровно в свой тик и в порядке сроков. */
+class SchedulerTest {
+
+    @Test
+    void timersFireAtTheirTickInOrder() {
+        Scheduler s = new Scheduler();
+        Random rnd = new Random(11);
+        int n = 5000;
+        long[] due = new long[n];
+        long[] firedAt = new long[n];
+        List<Long> order = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            // от 1 мс до ~3 часов: задевает все уровни колеса
+            long ms = 1 + (long) Math.pow(10, rnd.nextDouble() * 7);
+            due[i] = ms;
+            firedAt[i] = -1;
+            int id = i;
+            s.after(ms / 1000.0, () -> {
+                firedAt[id] = ticks(s);
+                order.add(ticks(s));
+            });
+        }
+        assertEquals(n, s.size());
+
+        while (s.size() > 0) s.update(0.25);
+
+        for (int i = 0; i < n; i++) assertEquals(due[i], firedAt[i], "timer " + i);
+        for (int i = 1; i < order.size(); i++) assertTrue(order.get(i - 1) <= order.get(i));
+    }
+
+    @Test
+    void timerBeyondWheelRangeIsRescheduled() {
+        // 64^4 мс ≈ 4.66 часа — дальше таймер перекладывается
+        Scheduler s = new Scheduler();
+        long[] fired = {-1, -1};
+        long far = 5L * 3600 * 1000 + 123;
+        long farther = 10L * 3600 * 1000 + 7;
+        s.after(far / 1000.0, () -> fired[0] = ticks(s));
+        s.after(farther / 1000.0, () -> fired[1] = ticks(s));
+        while (s.size() > 0) s.update(60.0);
+        assertEquals(far, fired[0]);
+        assertEquals(farther, fired[1]);
+    }
+
+    @Test
+    void repeatingTimerDoesNotDrift() {
+        Scheduler s = new Scheduler();
+        List<Long> times = new ArrayList<>();
+        Scheduler.Timer t = s.every(0.1, 0.25, () -> times.add(ticks(s)));
+        // неровные кадры
+        double[] frames = {0.016, 0.033, 0.007, 0.05};
+        for (int i = 0; s.getTime() < 2.0; i++) s.update(frames[i % frames.length]);
+        t.cancel();
+        assertFalse(t.isActive());
+        for (int i = 0; i < times.size(); i++) assertEquals(100 + 250L * i, times.get(i));
+        assertEquals(8, times.size());
+    }
+
+    @Test
+    void cancelFromCallbackAndPause() {
+        Scheduler s = new Scheduler();
+        int[] count = new int[2];
+        // оба в одном слоте и отменяют друг друга: кто бы ни сработал первым, второй уже не должен
+        Scheduler.Timer[] t = new Scheduler.Timer[2];
+        t[0] = s.after(0.5, () -> { count[0]++; t[1].cancel(); });
+        t[1] = s.after(0.5, () -> { count[1]++; t[0].cancel(); });
+
+        s.setPaused(true);
+        s.update(10.0);
+        assertEquals(0, count[0] + count[1]);
+        s.setPaused(false);
+        s.update(1.0);
+
+        assertEquals(1, count[0] + count[1]);
+        assertFalse(t[0].isActive() || t[1].isActive());
+        assertEquals(0, s.size());
+    }
+
+    @Test
+    void cancelAllClearsEverything() {
+        Scheduler s = new Scheduler();
+        int[] count = new int[1];
+        for (int i = 0; i < 100; i++) s.after(i * 0.1, () -> count[0]++);
+        s.every(1.0, () -> count[0]++);
+        s.cancelAll();
+        assertEquals(0, s.size());
+        s.update(100.0);
+        assertEquals(0, count[0]);
+    }
+
+    private static long ticks(Scheduler s) {
+        return Math.round(Math.floor(s.getTime() * 1000.0 + 1e-6));
+    }
+}
@@ -0,0 +1,193 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/** Переходы между сценами и фоновая симуляция: только на границе кадра и только из игрового потока. */
+class SimpleGameScenesTest {
+
+    /** Игра без окна: цикл крутится в потоке теста, кадры не рисуются. */
+    private static class Game extends SimpleGame {
+        Game(Scene... scenes) {
+            super("test", 64, 64);
+            for (Scene s : scenes) addScene(s);
+        }
+
+        @Override
+        protected void init() {
+        }
+
+        Thread runAsync() {
+            Thread t = new Thread(this, "TestGameThread");
+            t.setDaemon(true);
+            t.start();
+            return t;
+        }
+    }
+
+    /** Сцена, которая замечает одновременные update из двух потоков. */
+    private static class GuardedScene extends Scene {
+        final AtomicBoolean inUpdate = new AtomicBoolean();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        volatile int updates;
+
+        GuardedScene(String name) {
+            super(name);
+        }
+
+        @Override
+        public void update(double dt) {
+            if (!inUpdate.compareAndSet(false, true)) overlapped.set(true);
+            try {
+                super.update(dt);
+                updates++;
+            } finally {
+                inUpdate.set(false);
+            }
+        }
+    }
+
+    @Test
+    void transitionFromUpdateIsDeferredToFrameBoundary() throws Exception {
+        GuardedScene b = new GuardedScene("b");
+        AtomicReference<Scene> currentDuringUpdate = new AtomicReference<>();
+        CountDownLatch switched = new CountDownLatch(1);
+
+        GuardedScene a = new GuardedScene("a") {
+            @Override
+            public void update(double dt) {
+                super.update(dt);
+                SimpleGame game = getGame();
+                if (game.getCurrentScene() == this && currentDuringUpdate.get() == null) {
+                    game.gotoScene(b);
+                    currentDuringUpdate.set(game.getCurrentScene());
+                    // держим сцену "внутри update" — фон не должен стартовать до выхода
+                    sleep(100);
+                }
+            }
+        };
+        b.getScheduler().after(0.0, switched::countDown);
+
+        Game game = new Game(a, b);
+        game.setBackgroundSimulation(a, 500);
+        Thread t = game.runAsync();
+        try {
+            assertTrue(switched.await(5, TimeUnit.SECONDS));
+            assertSame(a, currentDuringUpdate.get(), "current scene changed inside update()");
+
+            int before = a.updates;
+            sleep(200);
+            assertTrue(game.isSimulatedInBackground(a));
+            assertTrue(a.updates > before, "previous scene keeps ticking in the background");
+            assertFalse(a.overlapped.get(), "background tick overlapped the game-thread update");
+        } finally {
+            game.stop();
+            t.join(5000);
+        }
+    }
+
+    @Test
+    void callsFromOtherThreadsAreRejected() throws Exception {
+        Scene a = new Scene("a");
+        Scene b = new Scene("b");
+        Game game = new Game(a, b);
+        Thread t = game.runAsync();
+        try {
+            waitFor(() -> a.getScheduler().getTime() > 0);   // цикл запущен
+            assertThrows(IllegalStateException.class, () -> game.gotoScene(b));
+            assertThrows(IllegalStateException.class, () -> game.setBackgroundSimulation(b, 10));
+            assertSame(a, game.getCurrentScene());
+        } finally {
+            game.stop();
+            t.join(5000);
+        }
+    }
+
+    @Test
+    void backgroundSceneCallingGotoSceneStopsWithReportedFailure() throws Exception {
+        Scene a = new Scene("a");
+        Scene rogue = new Scene("rogue") {
+            @Override
+            public void update(double dt) {
+                super.update(dt);
+                gotoScene(this);   // из фонового потока — нельзя
+            }
+        };
+        Game game = new Game(a, rogue);
+        Thread t = game.runAsync();
+        try {
+            waitFor(() -> a.getScheduler().getTime() > 0);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            a.getScheduler().after(0.0, () -> {
+                try {
+                    game.setBackgroundSimulation(rogue, 100);
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            waitFor(() -> game.getBackgroundFailure(rogue) != null || error.get() != null);
+            assertNull(error.get());
+            assertInstanceOf(IllegalStateException.class, game.getBackgroundFailure(rogue));
+            assertFalse(game.isSimulatedInBackground(rogue));
+            assertSame(a, game.getCurrentScene());
+        } finally {
+            game.stop();
+            t.join(5000);
+        }
+    }
+
+    @Test
+    void promotedSceneDoesNotReportTheBackgroundGapAsAFrame() throws Exception {
+        Scene a = new Scene("a");
+        Scene b = new Scene("b");
+        Game game = new Game(a, b);
+        // без игрового цикла: переходы выполняются сразу
+        game.setBackgroundSimulation(b, 50);
+        waitFor(() -> b.getScheduler().getTime() > 0);
+        sleep(300);
+
+        game.gotoScene(b);
+        assertSame(b, game.getCurrentScene());
+        assertFalse(game.isSimulatedInBackground(b));
+
+        BufferedImage img = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        b.update(1 / 60.0);
+        b.render(g);
+        g.dispose();
+        assertTrue(b.getUpdateScheduler().getFrameTimeMs() < 100,
+                "first frame after promotion measured " + b.getUpdateScheduler().getFrameTimeMs() + " ms");
+        assertEquals(0, b.getUpdateScheduler().getQualityLevel());
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("condition not reached in 5 s");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
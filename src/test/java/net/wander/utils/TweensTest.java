@@ -0,0 +1,241 @@
+package net.wander.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Твины: значения по кадрам, переиспользование слотов, устаревшие id, последовательности и группы. */
+class TweensTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    void tweenReachesTargetAndCompletes() {
+        Tweens tw = new Tweens();
+        double[] v = {-1};
+        int[] done = {0};
+        int id = tw.to(x -> v[0] = x, 10, 20, 1.0, Easing.LINEAR, () -> done[0]++);
+
+        tw.update(0.25);
+        assertEquals(12.5, v[0], EPS);
+        assertTrue(tw.isActive(id));
+        tw.update(0.5);
+        assertEquals(17.5, v[0], EPS);
+        tw.update(0.5);
+        assertEquals(20, v[0], EPS);   // точно в цель, без перелёта
+        assertEquals(1, done[0]);
+        assertFalse(tw.isActive(id));
+        assertEquals(0, tw.size());
+    }
+
+    @Test
+    void staleIdDoesNotTouchTweenInReusedSlot() {
+        Tweens tw = new Tweens();
+        double[] a = {0}, b = {0};
+        int first = tw.to(x -> a[0] = x, 0, 1, 0.1, Easing.LINEAR);
+        tw.update(1.0);
+        assertFalse(tw.isActive(first));
+
+        // новый твин ложится в тот же (единственный) слот
+        int second = tw.to(x -> b[0] = x, 0, 1, 1.0, Easing.LINEAR);
+        assertNotEquals(first, second);
+        assertEquals(1, tw.size());
+        assertFalse(tw.isActive(first));
+        assertFalse(tw.cancel(first), "stale id must not cancel the new tween");
+        assertTrue(tw.isActive(second));
+
+        assertTrue(tw.cancel(second));
+        assertFalse(tw.cancel(second));
+        assertFalse(tw.isActive(0));
+        assertFalse(tw.isActive(-5));
+        assertFalse(tw.cancel(12345));
+    }
+
+    @Test
+    void swapRemoveKeepsIdsPointingAtTheirTweens() {
+        Tweens tw = new Tweens();
+        int n = 300;   // больше начальной ёмкости — проверяется и рост массивов
+        double[] values = new double[n];
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            int k = i;
+            ids[i] = tw.to(x -> values[k] = x, 0, 100, 1.0 + i, Easing.LINEAR);
+        }
+        // отменяем каждый третий с начала — последние переезжают на их места
+        for (int i = 0; i < n; i += 3) assertTrue(tw.cancel(ids[i]));
+        assertEquals(n - (n + 2) / 3, tw.size());
+
+        tw.update(0.5);
+        for (int i = 0; i < n; i++) {
+            if (i % 3 == 0) {
+                assertFalse(tw.isActive(ids[i]));
+                assertEquals(0, values[i], "cancelled tween " + i + " moved");
+            } else {
+                assertTrue(tw.isActive(ids[i]));
+                assertEquals(100 * 0.5 / (1.0 + i), values[i], EPS, "tween " + i);
+            }
+        }
+        // отмена по id попадает в свой твин, где бы он ни лежал после перестановок
+        assertTrue(tw.cancel(ids[n - 1]));
+        tw.update(0.5);
+        assertEquals(100 * 0.5 / n, values[n - 1], EPS);
+        assertEquals(100 * 1.0 / (n - 1), values[n - 2], EPS);
+    }
+
+    @Test
+    void randomAddCancelFinishMatchesModel() {
+        Tweens tw = new Tweens();
+        Random rnd = new Random(5);
+        Map<Integer, double[]> alive = new HashMap<>();   // id -> {осталось секунд}
+        List<Integer> dead = new ArrayList<>();
+        double dt = 0.1;
+
+        for (int frame = 0; frame < 2000; frame++) {
+            int adds = rnd.nextInt(8);
+            for (int k = 0; k < adds; k++) {
+                double dur = 0.05 + rnd.nextInt(30) * dt;
+                int id = tw.to(x -> {}, 0, 1, dur, Easing.LINEAR);
+                assertFalse(alive.containsKey(id));
+                alive.put(id, new double[]{dur});
+            }
+            int cancels = rnd.nextInt(4);
+            for (int k = 0; k < cancels && !alive.isEmpty(); k++) {
+                Integer id = alive.keySet().iterator().next();
+                assertTrue(tw.cancel(id));
+                alive.remove(id);
+                dead.add(id);
+            }
+            if (!dead.isEmpty()) {
+                assertFalse(tw.cancel(dead.get(rnd.nextInt(dead.size()))));
+            }
+
+            tw.update(dt);
+            List<Integer> finished = new ArrayList<>();
+            for (Map.Entry<Integer, double[]> e : alive.entrySet()) {
+                e.getValue()[0] -= dt;
+                if (e.getValue()[0] <= 1e-9) finished.add(e.getKey());
+            }
+            for (Integer id : finished) {
+                alive.remove(id);
+                dead.add(id);
+            }
+
+            assertEquals(alive.size(), tw.size(), "frame " + frame);
+            for (Integer id : alive.keySet()) assertTrue(tw.isActive(id), "frame " + frame);
+            for (int k = 0; k < 10 && !dead.isEmpty(); k++) {
+                assertFalse(tw.isActive(dead.get(rnd.nextInt(dead.size()))), "frame " + frame);
+            }
+        }
+    }
+
+    @Test
+    void cancelDuringUpdate() {
+        Tweens tw = new Tweens();
+        double[] v = {0, 0};
+        int[] other = new int[1];
+        // первый твин на первом кадре отменяет второй; тот не должен сдвинуться
+        tw.to(x -> {
+            v[0] = x;
+            if (tw.isActive(other[0])) assertTrue(tw.cancel(other[0]));
+        }, 0, 1, 1.0, Easing.LINEAR);
+        other[0] = tw.to(x -> v[1] = x, 0, 1, 1.0, Easing.LINEAR);
+
+        tw.update(0.5);
+        assertFalse(tw.isActive(other[0]));
+        assertFalse(tw.cancel(other[0]));
+        assertEquals(0, v[1]);
+        tw.update(0.1);
+        assertEquals(1, tw.size());
+
+        // cancelAll из колбэка
+        double[] late = {0};
+        tw.cancelAll();
+        tw.to(x -> {}, 0, 1, 0.1, Easing.LINEAR, tw::cancelAll);
+        int victim = tw.to(x -> late[0] = x, 0, 1, 1.0, 0.5, Easing.LINEAR, null);
+        tw.update(0.2);
+        assertFalse(tw.isActive(victim));
+        tw.update(1.0);
+        assertEquals(0, late[0]);
+        assertEquals(0, tw.size());
+    }
+
+    @Test
+    void sequenceRunsStepsInOrder() {
+        Tweens tw = new Tweens();
+        double[] y = {0}, alpha = {0};
+        List<String> events = new ArrayList<>();
+        Tweens.Sequence seq = tw.sequence()
+                .then(v -> y[0] = v, 0, 10, 1.0, Easing.LINEAR)
+                .with(v -> alpha[0] = v, 0, 1, 0.5, Easing.LINEAR)
+                .call(() -> events.add("shown"))
+                .delay(1.0)
+                .then(v -> y[0] = v, 10, 0, 1.0, Easing.LINEAR)
+                .call(() -> events.add("hidden"));
+        assertEquals(3.0, seq.getDuration(), EPS);
+
+        tw.update(0.25);
+        assertEquals(2.5, y[0], EPS);
+        assertEquals(0.5, alpha[0], EPS);
+        tw.update(0.75);
+        assertEquals(10, y[0], EPS);
+        assertEquals(1, alpha[0], EPS);
+        assertEquals(List.of("shown"), events);
+
+        tw.update(1.0);                        // пауза
+        assertEquals(10, y[0], EPS);
+        tw.update(0.5);
+        assertEquals(5, y[0], EPS);
+        tw.update(0.5);
+        assertEquals(0, y[0], EPS);
+        assertEquals(List.of("shown", "hidden"), events);
+        assertEquals(0, tw.size());
+    }
+
+    @Test
+    void cancelGroupStopsOnlyThatSequence() {
+        Tweens tw = new Tweens();
+        double[] a = {0}, b = {0}, free = {0};
+        Tweens.Sequence first = tw.sequence()
+                .then(v -> a[0] = v, 0, 1, 1.0, Easing.LINEAR)
+                .then(v -> a[0] = v, 1, 2, 1.0, Easing.LINEAR);
+        Tweens.Sequence second = tw.sequence()
+                .then(v -> b[0] = v, 0, 1, 1.0, Easing.LINEAR);
+        int single = tw.to(v -> free[0] = v, 0, 1, 1.0, Easing.LINEAR);
+        assertNotEquals(first.getGroup(), second.getGroup());
+        assertNotEquals(0, first.getGroup());
+        assertEquals(4, tw.size());
+
+        tw.update(0.5);
+        tw.cancelGroup(first.getGroup());
+        assertEquals(2, tw.size());
+        assertTrue(tw.isActive(single));
+        tw.cancelGroup(0);                      // 0 — «без группы», ничего не отменяет
+        assertEquals(2, tw.size());
+
+        tw.update(2.0);
+        assertEquals(0.5, a[0], EPS);
+        assertEquals(1, b[0], EPS);
+        assertEquals(1, free[0], EPS);
+    }
+
+    @Test
+    void tweenAddedFromCallbackStartsNextFrame() {
+        Tweens tw = new Tweens();
+        double[] v = {0};
+        tw.to(x -> {}, 0, 1, 0.5, Easing.LINEAR,
+                () -> tw.to(x -> v[0] = x, 0, 1, 1.0, Easing.LINEAR));
+        tw.update(0.5);
+        assertEquals(0, v[0], EPS);
+        tw.update(0.25);
+        assertEquals(0.25, v[0], EPS);
+    }
+}
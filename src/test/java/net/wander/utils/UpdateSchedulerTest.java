@@ -0,0 +1,168 @@
+package net.wander.utils;
+
+import net.wander.objects.GameObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Частота апдейтов и разгрузка: редкие объекты получают накопленный dt, лишние кадры режутся по бюджету. */
+class UpdateSchedulerTest {
+
+    private static final double DT = 1.0 / 60.0;
+    private static final long MS = 1_000_000L;
+
+    /** Запоминает каждый пришедший dt. */
+    private static final class Probe extends GameObject {
+        final List<Double> dts = new ArrayList<>();
+
+        Probe(int interval, boolean lowPriority) {
+            setUpdateInterval(interval);
+            setLowPriority(lowPriority);
+        }
+
+        @Override
+        public void update(double dt) {
+            dts.add(dt);
+        }
+
+        double total() {
+            double sum = 0;
+            for (double d : dts) sum += d;
+            return sum;
+        }
+    }
+
+    @Test
+    void intervalObjectsGetSummedDt() {
+        UpdateScheduler s = new UpdateScheduler();
+        s.setAdaptive(false);
+        Probe every = new Probe(1, false);
+        Probe[] thirds = {new Probe(3, false), new Probe(3, false), new Probe(3, false)};
+        Probe fifth = new Probe(5, false);
+        GameObject[] objects = {every, thirds[0], thirds[1], thirds[2], fifth};
+
+        int frames = 300;
+        for (int f = 0; f < frames; f++) {
+            int[] before = new int[thirds.length];
+            for (int i = 0; i < thirds.length; i++) before[i] = thirds[i].dts.size();
+            s.update(objects, objects.length, DT);
+
+            // фазы разнесены: из трёх объектов «раз в 3 кадра» в каждом кадре обновляется ровно один
+            int updated = 0;
+            for (int i = 0; i < thirds.length; i++) updated += thirds[i].dts.size() - before[i];
+            assertEquals(1, updated, "frame " + f);
+        }
+
+        assertEquals(frames, every.dts.size());
+        for (double d : every.dts) assertEquals(DT, d, 1e-12);
+        assertSummed(thirds[0], 3, frames);
+        assertSummed(thirds[1], 3, frames);
+        assertSummed(thirds[2], 3, frames);
+        assertSummed(fifth, 5, frames);
+    }
+
+    @Test
+    void intervalAppliesToChildren() {
+        UpdateScheduler s = new UpdateScheduler();
+        GameObject parent = new GameObject();
+        Probe child = new Probe(4, false);
+        parent.addChild(child);
+        for (int f = 0; f < 40; f++) s.update(new GameObject[]{parent}, 1, DT);
+        assertSummed(child, 4, 40);
+    }
+
+    @Test
+    void lowPriorityIsThrottledUnderLoadAndRecovers() {
+        UpdateScheduler s = new UpdateScheduler();
+        s.setBudgetMs(10);
+        Probe normal = new Probe(1, false);
+        Probe low = new Probe(1, true);
+        Probe lowRare = new Probe(2, true);
+        GameObject[] objects = {normal, low, lowRare};
+
+        // перегрузка: уровень растёт не сразу, а раз в 15 кадров — до максимума
+        for (int f = 1; f <= 60; f++) {
+            s.reportFrame(20 * MS);
+            int expected = Math.min(f / 15, 3);
+            assertEquals(expected, s.getQualityLevel(), "frame " + f);
+        }
+        assertEquals(8, s.getThrottle());
+        assertTrue(s.getFrameTimeMs() > 10);
+
+        for (int f = 0; f < 80; f++) {
+            s.update(objects, objects.length, DT);
+            s.reportFrame(20 * MS);
+        }
+        assertEquals(80, normal.dts.size());
+        assertSummed(low, 8, 80);
+        assertSummed(lowRare, 16, 80);
+        int lowBefore = low.dts.size(), rareBefore = lowRare.dts.size();
+
+        // между 60% бюджета и бюджетом уровень держится
+        for (int f = 0; f < 200; f++) s.reportFrame(8 * MS);
+        assertEquals(3, s.getQualityLevel());
+
+        // запас появился — уровень спускается ступенями, не чаще раза в 60 кадров
+        // (первая ступень может сразу: кадры на уровне уже накопились, пока он держался)
+        int frames = 0;
+        int level = s.getQualityLevel();
+        int lastChange = -60;
+        while (s.getQualityLevel() > 0) {
+            s.reportFrame(2 * MS);
+            frames++;
+            assertTrue(frames < 1000, "level never recovered");
+            if (s.getQualityLevel() != level) {
+                assertEquals(level - 1, s.getQualityLevel());
+                assertTrue(frames - lastChange >= 60, "lowered too early");
+                level = s.getQualityLevel();
+                lastChange = frames;
+            }
+        }
+
+        // снова каждый кадр; первый апдейт после смены частоты добирает накопленное — dt не теряется
+        for (int f = 0; f < 30; f++) s.update(objects, objects.length, DT);
+        assertEquals(lowBefore + 30, low.dts.size());
+        for (int i = lowBefore + 1; i < low.dts.size(); i++) assertEquals(DT, low.dts.get(i), 1e-9);
+        assertEquals(110 * DT, low.total(), 1e-9);
+        assertTrue(Math.abs(lowRare.dts.size() - rareBefore - 15) <= 1);
+        for (int i = rareBefore + 1; i < lowRare.dts.size(); i++) assertEquals(2 * DT, lowRare.dts.get(i), 1e-9);
+        double missing = 110 * DT - lowRare.total();
+        assertTrue(missing >= -1e-9 && missing < 2 * DT, "dt lost: " + missing);
+    }
+
+    @Test
+    void disablingAdaptiveResetsLevel() {
+        UpdateScheduler s = new UpdateScheduler();
+        s.setBudgetMs(5);
+        for (int f = 0; f < 100; f++) s.reportFrame(50 * MS);
+        assertEquals(3, s.getQualityLevel());
+
+        s.setAdaptive(false);
+        assertEquals(0, s.getQualityLevel());
+        for (int f = 0; f < 100; f++) s.reportFrame(50 * MS);
+        assertEquals(0, s.getQualityLevel());
+        assertEquals(1, s.getThrottle());
+
+        assertThrows(IllegalArgumentException.class, () -> s.setBudgetMs(0));
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    /**
+     * Объект с периодом period за frames кадров: обновился frames/period раз (±1 из-за фазы),
+     * каждый раз, кроме первого, получил ровно period·dt, а потерял не больше одного периода.
+     */
+    private static void assertSummed(Probe p, int period, int frames) {
+        int n = p.dts.size();
+        assertTrue(Math.abs(n - frames / period) <= 1, "updates: " + n);
+        for (int i = 1; i < n; i++) assertEquals(period * DT, p.dts.get(i), 1e-9, "update " + i);
+        assertTrue(p.dts.get(0) <= period * DT + 1e-9);
+        double missing = frames * DT - p.total();
+        assertTrue(missing >= -1e-9 && missing < period * DT, "dt lost: " + missing);
+    }
+}
@@ -0,0 +1,215 @@
+package net.wander.utils.asset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** AssetPacker → AssetPack: что упаковали, то и прочитали, байт в байт. */
+class AssetPackTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void directoryRoundTrip() throws IOException {
+        Path dir = Files.createDirectories(tmp.resolve("assets"));
+        byte[] text = "hello, pack".getBytes(StandardCharsets.UTF_8);
+        byte[] blob = bytes(5000, 7);
+        write(dir.resolve("readme.txt"), text);
+        write(dir.resolve("img/deep/blob.bin"), blob);
+        write(dir.resolve("empty.dat"), new byte[0]);
+        write(dir.resolve("sfx/step.bin"), bytes(17, 3));
+
+        // архив внутри упаковываемой папки сам в себя не попадает
+        Path out = dir.resolve("assets.pak");
+        assertEquals(4, AssetPacker.pack(dir, out));
+
+        AssetPack pack = AssetPack.open(out);
+        assertEquals(Set.of("readme.txt", "img/deep/blob.bin", "empty.dat", "sfx/step.bin"), pack.names());
+        assertTrue(pack.contains("img/deep/blob.bin"));
+        assertFalse(pack.contains("img/deep"));
+        assertFalse(pack.contains("assets.pak"));
+
+        assertEquals(text.length, pack.size("readme.txt"));
+        assertEquals(0, pack.size("empty.dat"));
+        assertEquals(-1, pack.size("missing"));
+
+        assertArrayEquals(text, contents(pack.getBuffer("readme.txt")));
+        assertArrayEquals(blob, contents(pack.getBuffer("img/deep/blob.bin")));
+        assertArrayEquals(new byte[0], contents(pack.getBuffer("empty.dat")));
+        assertArrayEquals(bytes(17, 3), contents(pack.getBuffer("sfx/step.bin")));
+        assertThrows(IOException.class, () -> pack.getBuffer("missing"));
+    }
+
+    @Test
+    void explicitNamesAndAlignment() throws IOException {
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            Path p = tmp.resolve("f" + i);
+            write(p, bytes(i * 13, i));   // длины не кратны выравниванию
+            files.put("data/" + i, p);
+        }
+        files.put("звук/шаг", tmp.resolve("f3"));   // имя в UTF-8, путь на диске любой
+        Path out = tmp.resolve("out.pak");
+        AssetPacker.pack(files, out);
+        assertEquals(0, Files.size(out) % AssetPack.ALIGN);
+
+        AssetPack pack = AssetPack.open(out);
+        assertEquals(21, pack.names().size());
+        assertArrayEquals(bytes(39, 3), contents(pack.getBuffer("звук/шаг")));
+        for (int i = 0; i < 20; i++) {
+            ByteBuffer b = pack.getBuffer("data/" + i);
+            assertTrue(b.isReadOnly());
+            assertEquals(0, b.position());
+            assertArrayEquals(bytes(i * 13, i), contents(b));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> pack.names().add("x"));
+    }
+
+    @Test
+    void streamsSupportMarkAndReset() throws IOException {
+        Path src = tmp.resolve("blob");
+        byte[] blob = bytes(300, 11);
+        write(src, blob);
+        Path out = tmp.resolve("s.pak");
+        AssetPacker.pack(Map.of("blob", src), out);
+        AssetPack pack = AssetPack.open(out);
+
+        try (InputStream in = pack.openStream("blob")) {
+            assertTrue(in.markSupported());
+            assertEquals(300, in.available());
+            assertEquals(blob[0] & 0xff, in.read());
+            in.mark(100);
+            byte[] head = new byte[10];
+            assertEquals(10, in.read(head));
+            assertArrayEquals(Arrays.copyOfRange(blob, 1, 11), head);
+            in.reset();
+            assertEquals(blob[1] & 0xff, in.read());
+            assertEquals(250, in.skip(250));
+            assertEquals(48, in.skip(1000));
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(head));
+        }
+
+        // каждый поток независим
+        try (InputStream a = pack.openStream("blob"); InputStream b = pack.openStream("blob")) {
+            a.skip(100);
+            assertEquals(blob[0] & 0xff, b.read());
+            assertEquals(blob[100] & 0xff, a.read());
+        }
+    }
+
+    @Test
+    void imagesAndAudioDecodeFromPack() throws Exception {
+        BufferedImage image = new BufferedImage(7, 5, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 5; y++) {
+            for (int x = 0; x < 7; x++) image.setRGB(x, y, (x * 30) << 16 | (y * 50) << 8 | 0x40);
+        }
+        Path png = tmp.resolve("hero.png");
+        ImageIO.write(image, "png", png.toFile());
+
+        byte[] samples = bytes(800, 5);
+        AudioFormat format = new AudioFormat(8000, 16, 1, true, false);   // WAV хранит 16 бит как есть
+        Path wav = tmp.resolve("jump.wav");
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(samples), format, samples.length / 2)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, wav.toFile());
+        }
+
+        Map<String, Path> files = new LinkedHashMap<>();
+        files.put("img/hero.png", png);
+        files.put("sfx/jump.wav", wav);
+        files.put("sfx/not-an-image.bin", wav);
+        Path out = tmp.resolve("media.pak");
+        AssetPacker.pack(files, out);
+        AssetPack pack = AssetPack.open(out);
+
+        BufferedImage read = pack.readImage("img/hero.png");
+        assertEquals(7, read.getWidth());
+        assertEquals(5, read.getHeight());
+        for (int y = 0; y < 5; y++) {
+            for (int x = 0; x < 7; x++) assertEquals(image.getRGB(x, y), read.getRGB(x, y));
+        }
+        assertThrows(IOException.class, () -> pack.readImage("sfx/not-an-image.bin"));
+
+        try (AudioInputStream audio = pack.openAudio("sfx/jump.wav")) {
+            assertEquals(8000f, audio.getFormat().getSampleRate());
+            assertEquals(samples.length / 2, audio.getFrameLength());
+            assertArrayEquals(samples, audio.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsBrokenFiles() throws IOException {
+        Path notPack = tmp.resolve("not.pak");
+        write(notPack, "definitely not a pack".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> AssetPack.open(notPack));
+
+        Path src = tmp.resolve("blob");
+        write(src, bytes(100, 1));
+        Path good = tmp.resolve("good.pak");
+        AssetPacker.pack(Map.of("blob", src), good);
+        byte[] raw = Files.readAllBytes(good);
+
+        // обрезан посреди индекса
+        Path truncated = tmp.resolve("truncated.pak");
+        write(truncated, Arrays.copyOf(raw, 16));
+        assertThrows(IOException.class, () -> AssetPack.open(truncated));
+
+        // неизвестная версия
+        byte[] badVersion = raw.clone();
+        badVersion[7] = 99;
+        Path version = tmp.resolve("version.pak");
+        write(version, badVersion);
+        assertThrows(IOException.class, () -> AssetPack.open(version));
+
+        // смещение + длина переполняют long: не должно пройти проверку границ
+        byte[] overflow = raw.clone();
+        int entry = 12 + 2 + "blob".length();
+        ByteBuffer.wrap(overflow, entry, 16).putLong(16).putLong(Long.MAX_VALUE);
+        Path huge = tmp.resolve("huge.pak");
+        write(huge, overflow);
+        assertThrows(IOException.class, () -> AssetPack.open(huge));
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private static byte[] bytes(int n, int seed) {
+        byte[] b = new byte[n];
+        for (int i = 0; i < n; i++) b[i] = (byte) (i * 31 + seed * 7 + (i >> 3));
+        return b;
+    }
+
+    private static void write(Path p, byte[] data) throws IOException {
+        if (p.getParent() != null) Files.createDirectories(p.getParent());
+        Files.write(p, data);
+    }
+
+    private static byte[] contents(ByteBuffer b) {
+        byte[] out = new byte[b.remaining()];
+        b.duplicate().get(out);
+        return out;
+    }
+}
@@ -0,0 +1,50 @@
+package net.wander.utils.camera;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Вьюпорт с буфером: рисует только в свой прямоугольник и не оставляет экрану свою интерполяцию. */
+class ViewportTest {
+
+    @Test
+    void bufferedViewportRestoresInterpolationHint() {
+        BufferedImage screenImage = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D screen = screenImage.createGraphics();
+        Viewport vp = new Viewport(50, 20, 100, 60, new Camera(100, 60, 1.0));
+        vp.setResolutionScale(0.5);
+        assertTrue(vp.usesBuffer());
+
+        Object before = screen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        draw(vp, screen);
+        assertEquals(before != null ? before : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR,
+                screen.getRenderingHint(RenderingHints.KEY_INTERPOLATION));
+
+        screen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        draw(vp, screen);
+        vp.present(screen);
+        assertEquals(RenderingHints.VALUE_INTERPOLATION_BICUBIC,
+                screen.getRenderingHint(RenderingHints.KEY_INTERPOLATION));
+        screen.dispose();
+
+        assertEquals(Color.RED.getRGB(), screenImage.getRGB(100, 50));
+        assertEquals(0, screenImage.getRGB(20, 50) & 0xffffff, "left of the viewport");
+        assertEquals(0, screenImage.getRGB(100, 90) & 0xffffff, "below the viewport");
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    /** Залить весь видимый мир красным. */
+    private static void draw(Viewport vp, Graphics2D screen) {
+        Graphics2D vg = vp.begin(screen);
+        vg.setColor(Color.RED);
+        vg.fillRect(-100_000, -100_000, 200_000, 200_000);
+        vp.end(screen, vg);
+    }
+}
@@ -0,0 +1,74 @@
+package net.wander.utils.light;
+
+import net.wander.objects.GameObject;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Замер LightMap.update на сотнях источников (не тест — запускается руками):
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes net.wander.utils.light.LightMapBenchmark [lights] [occluders]
+ *
+ * Карта 320x180 на вид 1280x720, по умолчанию 300 источников (две трети с тенями) и 200 препятствий.
+ * Для каждого числа потоков — лучшее и среднее время кадра (мс) из нескольких прогонов.
+ */
+public final class LightMapBenchmark {
+
+    private static final int FRAMES = 200;
+    private static final int ROUNDS = 5;
+
+    static volatile float sink;
+
+    private LightMapBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int lights = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int occluders = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d lights, %d occluders, map 320x180%n", lights, occluders);
+        System.out.println("threads   best ms   avg ms");
+        bench(1, lights, occluders);
+        if (cores > 2) bench(cores / 2, lights, occluders);
+        if (cores > 1) bench(cores, lights, occluders);
+    }
+
+    private static void bench(int threads, int lights, int occluders) {
+        LightMap map = new LightMap(320, 180, threads);
+        try {
+            Random rnd = new Random(1);
+            map.setAmbient(new Color(20, 20, 40));
+            for (int i = 0; i < lights; i++) {
+                Light l = new Light(rnd.nextDouble() * 1280, rnd.nextDouble() * 720, 30 + rnd.nextDouble() * 150,
+                        new Color(rnd.nextInt(0xffffff)), 0.5f + rnd.nextFloat());
+                l.setCastingShadows(i % 3 != 0);
+                map.addLight(l);
+            }
+            for (int i = 0; i < occluders; i++) {
+                map.addOccluder(new GameObject(rnd.nextDouble() * 1280, rnd.nextDouble() * 720,
+                        8 + rnd.nextDouble() * 40, 8 + rnd.nextDouble() * 40));
+            }
+
+            long best = Long.MAX_VALUE, total = 0;
+            float sum = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                for (int f = 0; f < FRAMES; f++) {
+                    map.update(f & 7, 0, 1280, 720);   // вид чуть сдвигается, как при движении камеры
+                    sum += map.getLight(160, 90, 0);
+                }
+                long t = System.nanoTime() - t0;
+                best = Math.min(best, t);
+                if (r > 0) total += t;   // первый прогон — прогрев
+            }
+            sink = sum;
+            System.out.printf("%7d %9.3f %8.3f%n", threads,
+                    best / 1e6 / FRAMES, total / 1e6 / FRAMES / (ROUNDS - 1));
+        } finally {
+            map.shutdown();
+        }
+    }
+}
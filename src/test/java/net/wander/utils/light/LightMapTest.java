@@ -0,0 +1,261 @@
+package net.wander.utils.light;
+
+import net.wander.objects.GameObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Карта света: спад, тени, ambient, вывод — на клетках, посчитанных руками,
+ * и одинаковый результат при любом числе потоков.
+ */
+class LightMapTest {
+
+    private static final float EPS = 1e-6f;
+
+    // карта 10x10 на мир 100x100: клетка 10x10, центр клетки (cx, cy) — (10·cx + 5, 10·cy + 5)
+
+    @Test
+    void falloffMatchesFormula() {
+        LightMap map = new LightMap(10, 10, 1);
+        map.addLight(new Light(55, 55, 30));
+        map.update(0, 0, 100, 100);
+
+        assertEquals(1f, map.getLight(5, 5, 0), EPS);                       // d = 0
+        float f = 1f - 100f / 900f;                                         // d = 10
+        assertEquals(f * f, map.getLight(6, 5, 1), EPS);
+        f = 1f - 200f / 900f;                                               // d² = 10² + 10²
+        assertEquals(f * f, map.getLight(6, 6, 2), EPS);
+        assertEquals(0f, map.getLight(8, 5, 0), EPS);                       // d = r — уже не светит
+        assertEquals(0f, map.getLight(0, 0, 0), EPS);
+    }
+
+    @Test
+    void colorIntensityAmbientAndClamp() {
+        LightMap map = new LightMap(10, 10, 1);
+        map.setAmbient(new Color(51, 0, 0));
+        map.addLight(new Light(55, 55, 30, new Color(0, 255, 0), 0.5f));
+        map.addLight(new Light(15, 15, 30, Color.WHITE, 3f));               // пересвет обрезается до 1
+        map.update(0, 0, 100, 100);
+
+        assertEquals(0.2f, map.getLight(9, 9, 0), EPS);                     // только ambient
+        assertEquals(0f, map.getLight(9, 9, 1), EPS);
+        assertEquals(0.2f, map.getLight(5, 5, 0), EPS);
+        assertEquals(0.5f, map.getLight(5, 5, 1), EPS);
+        assertEquals(0f, map.getLight(5, 5, 2), EPS);
+        assertEquals(1f, map.getLight(1, 1, 0), EPS);
+        assertEquals(1f, map.getLight(1, 1, 2), EPS);
+    }
+
+    @Test
+    void occludersCastShadows() {
+        GameObject wall = new GameObject(70, 0, 2, 100);
+        Light light = new Light(55, 55, 40);
+        LightMap map = new LightMap(10, 10, 1);
+        map.addLight(light);
+        map.addOccluder(wall);
+
+        map.update(0, 0, 100, 100);
+        float f = 1f - 100f / 1600f;
+        assertEquals(f * f, map.getLight(6, 5, 0), EPS);                    // до стены
+        assertEquals(0f, map.getLight(7, 5, 0), EPS);                       // за стеной
+        assertEquals(0f, map.getLight(8, 5, 0), EPS);
+
+        float behind = 1f - 900f / 1600f;
+        light.setCastingShadows(false);
+        map.update(0, 0, 100, 100);
+        assertEquals(behind * behind, map.getLight(8, 5, 0), EPS);
+
+        light.setCastingShadows(true);
+        map.setShadows(false);
+        map.update(0, 0, 100, 100);
+        assertEquals(behind * behind, map.getLight(8, 5, 0), EPS);
+
+        // уничтоженное препятствие убирается само
+        map.setShadows(true);
+        wall.destroy();
+        map.update(0, 0, 100, 100);
+        assertEquals(behind * behind, map.getLight(8, 5, 0), EPS);
+    }
+
+    @Test
+    void occluderCellsAndLightsInsideOccluderStayLit() {
+        LightMap map = new LightMap(10, 10, 1);
+        map.addLight(new Light(55, 55, 40));
+        map.addOccluder(new GameObject(73, 50, 4, 10));                     // накрывает центр клетки (7, 5)
+        map.addOccluder(new GameObject(50, 50, 10, 10));                    // в нём стоит сам источник
+        map.update(0, 0, 100, 100);
+
+        float f = 1f - 400f / 1600f;
+        assertEquals(f * f, map.getLight(7, 5, 0), EPS);                    // стена сама освещена
+        float g = 1f - 100f / 1600f;
+        assertEquals(g * g, map.getLight(4, 5, 0), EPS);                    // «факел в руке» не гасится
+        assertEquals(0f, map.getLight(8, 5, 0), EPS);                       // а за стеной — тень
+    }
+
+    @Test
+    void viewOffsetMovesTheMap() {
+        LightMap map = new LightMap(10, 10, 1);
+        map.addLight(new Light(1055, 2055, 30));
+        map.update(1000, 2000, 100, 100);
+        assertEquals(1f, map.getLight(5, 5, 0), EPS);
+
+        // свет вне вида не считается
+        map.update(0, 0, 100, 100);
+        assertEquals(0f, map.getLight(5, 5, 0), EPS);
+    }
+
+    @Test
+    void sameResultForAnyThreadCount() {
+        Consumer<LightMap> scene = LightMapTest::busyScene;
+        LightSnapshot single = compute(1, scene);
+        for (int threads : new int[]{2, 3, 4, 8}) {
+            LightSnapshot multi = compute(threads, scene);
+            assertArrayEquals(single.light, multi.light, threads + " threads: light differs");
+            assertArrayEquals(single.overlay, multi.overlay, threads + " threads: overlay differs");
+            assertArrayEquals(single.applied, multi.applied, threads + " threads: applyTo differs");
+        }
+    }
+
+    @Test
+    void interruptedUpdateWaitsForWorkers() {
+        LightSnapshot expected = compute(1, LightMapTest::busyScene);
+        LightMap map = new LightMap(200, 150, 4);
+        try {
+            busyScene(map);
+            Thread.currentThread().interrupt();
+            map.update(0, 0, 800, 600);
+            assertTrue(Thread.interrupted(), "interrupt flag must be restored");
+            assertArrayEquals(expected.light, snapshot(map).light);
+        } finally {
+            Thread.interrupted();
+            map.shutdown();
+        }
+    }
+
+    @Test
+    void applyToMultipliesPixels() {
+        LightMap map = new LightMap(4, 4, 1);
+        map.setAmbient(new Color(255, 128, 0));
+        map.update(0, 0, 100, 100);
+
+        int[] px = new int[8 * 8];
+        Arrays.fill(px, 0x80C8C8C8);   // альфа не трогается
+        map.applyTo(px, 8, 8);
+        int expected = 0x80000000 | (200 << 16) | ((int) (200 * (128 / 255f)) << 8);
+        for (int p : px) assertEquals(expected, p);
+    }
+
+    @Test
+    void applyToInterpolatesBilinearly() {
+        // половина карты освещена, половина нет: на границе — плавный переход
+        LightMap map = new LightMap(2, 1, 1);
+        map.addLight(new Light(25, 5, 1000));
+        map.addOccluder(new GameObject(49, -1000, 2, 3000));
+        map.update(0, 0, 100, 10);
+        assertTrue(map.getLight(0, 0, 0) > 0.99f);
+        assertEquals(0f, map.getLight(1, 0, 0), EPS);
+
+        int[] px = new int[4];
+        Arrays.fill(px, 0xFFFFFFFF);
+        map.applyTo(px, 4, 1);
+        int[] red = new int[4];
+        for (int i = 0; i < 4; i++) red[i] = (px[i] >> 16) & 0xff;
+        // центры пикселей: -0.25, 0.25, 0.75, 1.25 в клетках карты
+        assertTrue(red[0] > 250);
+        assertTrue(red[0] > red[1] && red[1] > red[2], Arrays.toString(red));
+        assertEquals(0, red[3]);
+    }
+
+    @Test
+    void renderDarkensAndRestoresInterpolationHint() {
+        LightMap map = new LightMap(10, 10, 1);
+        map.addLight(new Light(25, 25, 20));
+        map.update(0, 0, 100, 100);
+
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 100, 100);
+
+        Object before = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        map.render(g, 0, 0, 100, 100);
+        Object after = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        assertEquals(before != null ? before : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, after);
+
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        map.render(g, 0, 0, 100, 100);
+        assertEquals(RenderingHints.VALUE_INTERPOLATION_BICUBIC, g.getRenderingHint(RenderingHints.KEY_INTERPOLATION));
+        g.dispose();
+
+        assertTrue((img.getRGB(25, 25) & 0xff) > 200, "lit area stays bright");
+        assertEquals(0, img.getRGB(90, 90) & 0xffffff, "unlit area is black");
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    /** Сотни источников, часть с тенями, препятствия через границы тайлов. */
+    private static void busyScene(LightMap map) {
+        Random rnd = new Random(3);
+        map.setAmbient(new Color(10, 10, 30));
+        for (int i = 0; i < 300; i++) {
+            Light l = new Light(rnd.nextDouble() * 900 - 50, rnd.nextDouble() * 700 - 50, 20 + rnd.nextDouble() * 120,
+                    new Color(rnd.nextInt(0xffffff)), 0.3f + rnd.nextFloat());
+            l.setCastingShadows(i % 3 != 0);
+            map.addLight(l);
+        }
+        for (int i = 0; i < 60; i++) {
+            map.addOccluder(new GameObject(rnd.nextDouble() * 800, rnd.nextDouble() * 600,
+                    5 + rnd.nextDouble() * 60, 5 + rnd.nextDouble() * 60));
+        }
+    }
+
+    private static final class LightSnapshot {
+        float[] light;
+        int[] overlay;
+        int[] applied;
+    }
+
+    private static LightSnapshot compute(int threads, Consumer<LightMap> scene) {
+        LightMap map = new LightMap(200, 150, threads);   // не кратно тайлу (32)
+        try {
+            scene.accept(map);
+            map.update(0, 0, 800, 600);
+            return snapshot(map);
+        } finally {
+            map.shutdown();
+        }
+    }
+
+    private static LightSnapshot snapshot(LightMap map) {
+        int w = map.getMapWidth(), h = map.getMapHeight();
+        LightSnapshot s = new LightSnapshot();
+        s.light = new float[w * h * 3];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                for (int c = 0; c < 3; c++) s.light[(y * w + x) * 3 + c] = map.getLight(x, y, c);
+            }
+        }
+
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        map.render(g, 0, 0, w, h);   // 1:1 — пиксели картинки-затемнения как есть
+        g.dispose();
+        s.overlay = img.getRGB(0, 0, w, h, null, 0, w);
+
+        s.applied = new int[320 * 240];
+        Arrays.fill(s.applied, 0xFFFFFFFF);
+        map.applyTo(s.applied, 320, 240);
+        return s;
+    }
+}
@@ -0,0 +1,82 @@
+package net.wander.utils.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** BitWriter -> BitReader: всё записанное читается обратно бит в бит. */
+class BitStreamTest {
+
+    @Test
+    void roundTripMixedValues() {
+        Random rnd = new Random(7);
+        int n = 10_000;
+        int[] kinds = new int[n];
+        long[] values = new long[n];
+        int[] widths = new int[n];
+
+        BitWriter w = new BitWriter(16);   // маленький — заодно проверяем рост буфера
+        for (int i = 0; i < n; i++) {
+            kinds[i] = rnd.nextInt(4);
+            switch (kinds[i]) {
+                case 0:
+                    widths[i] = 1 + rnd.nextInt(32);
+                    values[i] = rnd.nextLong() & ((1L << widths[i]) - 1);
+                    w.writeBits(values[i], widths[i]);
+                    break;
+                case 1:
+                    values[i] = rnd.nextBoolean() ? 1 : 0;
+                    w.writeBool(values[i] == 1);
+                    break;
+                case 2:
+                    values[i] = (rnd.nextLong() & 0xffffffffL) >>> rnd.nextInt(32);
+                    w.writeUnsigned(values[i]);
+                    break;
+                default:
+                    values[i] = rnd.nextInt() >> rnd.nextInt(32);
+                    w.writeSigned((int) values[i]);
+                    break;
+            }
+        }
+        int length = w.finish();
+
+        BitReader r = new BitReader(w.buffer(), length);
+        for (int i = 0; i < n; i++) {
+            long v;
+            switch (kinds[i]) {
+                case 0:  v = r.readBits(widths[i]); break;
+                case 1:  v = r.readBool() ? 1 : 0; break;
+                case 2:  v = r.readUnsigned(); break;
+                default: v = r.readSigned(); break;
+            }
+            assertEquals(values[i], v, "value " + i);
+        }
+        assertTrue(r.remainingBits() < 8);
+    }
+
+    @Test
+    void unsignedBoundaries() {
+        long[] edges = {0, 63, 64, (1 << 14) - 1, 1 << 14, (1 << 22) - 1, 1 << 22, 0xffffffffL};
+        int[] signed = {0, -1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        BitWriter w = new BitWriter();
+        for (long e : edges) w.writeUnsigned(e);
+        for (int s : signed) w.writeSigned(s);
+        BitReader r = new BitReader(w.buffer(), w.finish());
+        for (long e : edges) assertEquals(e, r.readUnsigned());
+        for (int s : signed) assertEquals(s, r.readSigned());
+    }
+
+    @Test
+    void readPastEndThrows() {
+        BitWriter w = new BitWriter();
+        w.writeBits(5, 3);
+        BitReader r = new BitReader(w.buffer(), w.finish());
+        assertEquals(8, r.remainingBits());
+        r.readBits(8);
+        assertThrows(IllegalStateException.class, () -> r.readBits(1));
+    }
+}
@@ -0,0 +1,147 @@
+package net.wander.utils.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Дельты снимков: запись + чтение на базе дают ровно текущий снимок. */
+class SnapshotTest {
+
+    @Test
+    void fullSnapshotRoundTrip() {
+        Snapshot cur = random(new Random(1), 1, 200);
+        assertSame(cur, decode(cur, null));
+    }
+
+    @Test
+    void deltaMergeAddsChangesAndRemoves() {
+        Random rnd = new Random(2);
+        Snapshot base = random(rnd, 1, 300);
+        for (int step = 2; step < 50; step++) {
+            Snapshot cur = mutate(rnd, base, step);
+            assertSame(cur, decode(cur, base));
+            base = cur;
+        }
+    }
+
+    @Test
+    void unchangedStateIsAlmostFree() {
+        Snapshot base = random(new Random(3), 1, 500);
+        Snapshot same = copy(base, 2);
+        BitWriter w = new BitWriter();
+        Snapshot.writeDelta(w, same, base);
+        assertTrue(w.finish() <= 2, "empty delta takes " + w.finish() + " bytes");
+        assertSame(same, decode(same, base));
+    }
+
+    @Test
+    void typeChangeIsSentAsNewObject() {
+        Snapshot base = new Snapshot(1, 4);
+        base.add(5, 1, 100, 200, 300, Snapshot.FLAG_VISIBLE);
+        Snapshot cur = new Snapshot(2, 4);
+        cur.add(5, 2, 100, 200, 300, Snapshot.FLAG_VISIBLE);
+        assertSame(cur, decode(cur, base));
+    }
+
+    @Test
+    void hostileCountsAreRejected() {
+        // changed = 2^32-1 в пакете из нескольких байт
+        BitWriter w = new BitWriter();
+        w.writeUnsigned(0xffffffffL);
+        BitReader r = new BitReader(w.buffer(), w.finish());
+        assertThrows(IllegalStateException.class, () -> Snapshot.readDelta(r, 1, null));
+
+        // 0 изменённых, а удалённых — миллион
+        w.reset();
+        w.writeUnsigned(0);
+        w.writeUnsigned(1_000_000);
+        BitReader r2 = new BitReader(w.buffer(), w.finish());
+        assertThrows(IllegalStateException.class, () -> Snapshot.readDelta(r2, 1, null));
+    }
+
+    @Test
+    void randomGarbageNeverEscapesAsOtherExceptions() {
+        Random rnd = new Random(4);
+        Snapshot base = random(rnd, 1, 50);
+        byte[] junk = new byte[256];
+        for (int i = 0; i < 10_000; i++) {
+            rnd.nextBytes(junk);
+            BitReader r = new BitReader(junk, 1 + rnd.nextInt(junk.length));
+            try {
+                Snapshot.readDelta(r, 2, rnd.nextBoolean() ? base : null);
+            } catch (IllegalStateException expected) {
+                // битый пакет
+            }
+        }
+    }
+
+    // ================== ВСПОМОГАТЕЛЬНОЕ ==================
+
+    private static Snapshot decode(Snapshot cur, Snapshot base) {
+        BitWriter w = new BitWriter();
+        Snapshot.writeDelta(w, cur, base);
+        BitReader r = new BitReader(w.buffer(), w.finish());
+        return Snapshot.readDelta(r, cur.tick, base);
+    }
+
+    private static Snapshot random(Random rnd, int tick, int count) {
+        Snapshot s = new Snapshot(tick, count);
+        int id = 0;
+        for (int i = 0; i < count; i++) {
+            id += 1 + rnd.nextInt(rnd.nextBoolean() ? 3 : 5000);
+            s.add(id, rnd.nextInt(4), rnd.nextInt(1 << 20) - (1 << 19), rnd.nextInt(1 << 20) - (1 << 19),
+                    rnd.nextInt(Snapshot.ROTATION_STEPS), rnd.nextInt(4));
+        }
+        return s;
+    }
+
+    private static Snapshot copy(Snapshot s, int tick) {
+        Snapshot c = new Snapshot(tick, s.count);
+        for (int i = 0; i < s.count; i++) c.add(s.ids[i], s.types[i], s.xs[i], s.ys[i], s.rots[i], s.flags[i]);
+        return c;
+    }
+
+    /** Часть объектов двигается, часть исчезает, появляются новые (id по возрастанию). */
+    private static Snapshot mutate(Random rnd, Snapshot base, int tick) {
+        Snapshot s = new Snapshot(tick, base.count + 8);
+        int lastId = 0;
+        for (int i = 0; i < base.count; i++) {
+            if (rnd.nextInt(10) == 0) {
+                int newId = lastId + 1;
+                if (newId < base.ids[i]) {
+                    s.add(newId, rnd.nextInt(4), rnd.nextInt(1000), rnd.nextInt(1000), 0, 1);
+                    lastId = newId;
+                }
+            }
+            if (rnd.nextInt(15) == 0) continue;   // удалён
+            int x = base.xs[i], y = base.ys[i], rot = base.rots[i], flag = base.flags[i], type = base.types[i];
+            if (rnd.nextInt(3) == 0) x += rnd.nextInt(41) - 20;
+            if (rnd.nextInt(3) == 0) y += rnd.nextInt(41) - 20;
+            if (rnd.nextInt(4) == 0) rot = (rot + rnd.nextInt(2000) - 1000) & (Snapshot.ROTATION_STEPS - 1);
+            if (rnd.nextInt(20) == 0) flag = rnd.nextInt(4);
+            if (rnd.nextInt(50) == 0) type = rnd.nextInt(4);
+            s.add(base.ids[i], type, x, y, rot, flag);
+            lastId = base.ids[i];
+        }
+        s.add(lastId + 1 + rnd.nextInt(100), 3, 0, 0, 0, 3);
+        return s;
+    }
+
+    private static void assertSame(Snapshot expected, Snapshot actual) {
+        assertEquals(expected.tick, actual.tick);
+        assertEquals(expected.count, actual.count);
+        int n = expected.count;
+        assertArrayEquals(Arrays.copyOf(expected.ids, n), Arrays.copyOf(actual.ids, n));
+        assertArrayEquals(Arrays.copyOf(expected.types, n), Arrays.copyOf(actual.types, n));
+        assertArrayEquals(Arrays.copyOf(expected.xs, n), Arrays.copyOf(actual.xs, n));
+        assertArrayEquals(Arrays.copyOf(expected.ys, n), Arrays.copyOf(actual.ys, n));
+        assertArrayEquals(Arrays.copyOf(expected.rots, n), Arrays.copyOf(actual.rots, n));
+        assertArrayEquals(Arrays.copyOf(expected.flags, n), Arrays.copyOf(actual.flags, n));
+    }
+}
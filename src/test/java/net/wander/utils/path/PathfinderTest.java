@@ -0,0 +1,364 @@
+package net.wander.utils.path;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A*, поля потоков и кэши Pathfinder на маленьких сетках, где оптимум считается руками.
+ * Клетка — 10x10 мировых единиц; стоимость шага — 10 прямо, 14 по диагонали, умножить на цену клетки.
+ */
+class PathfinderTest {
+
+    private static final double CELL = 10;
+
+    @Test
+    void openGridPathsAreOptimal() {
+        NavGrid grid = new NavGrid(5, 5, CELL);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            Path diag = pf.findPath(at(0), at(0), at(4), at(4));
+            assertEquals(5, diag.size());
+            assertEquals(4 * 14, cost(grid, diag));
+            assertEnds(diag, 0, 0, 4, 4);
+
+            Path mixed = pf.findPath(at(0), at(0), at(4), at(2));
+            assertEquals(5, mixed.size());
+            assertEquals(2 * 14 + 2 * 10, cost(grid, mixed));
+
+            Path same = pf.findPath(at(3), at(3), at(3), at(3));
+            assertEquals(1, same.size());
+            assertEquals(0, cost(grid, same));
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void wallDetourIsOptimalAndDoesNotCutCorners() {
+        // . # . . .
+        // . # . . .      из (0,0) в (4,0) — только через проход (2,4);
+        // . # . . .      в проход и из него нельзя зайти по диагонали мимо угла стены
+        // . # # . .
+        // . . . . .
+        NavGrid grid = new NavGrid(5, 5, CELL);
+        for (int y = 0; y < 4; y++) grid.setBlocked(1, y, true);
+        grid.setBlocked(2, 3, true);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            Path p = pf.findPath(at(0), at(0), at(4), at(0));
+            assertNotNull(p);
+            assertEnds(p, 0, 0, 4, 0);
+            // (0,0)→(0,4): 40, (0,4)→(3,4): 30 — обе диагонали у стены запрещены,
+            // (3,4)→(4,3): 14, (4,3)→(4,0): 30
+            assertEquals(114, cost(grid, p));
+            assertValidSteps(grid, p);
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void diagonalBetweenTwoWallsIsNotAllowed() {
+        NavGrid grid = new NavGrid(2, 2, CELL);
+        grid.setBlocked(1, 0, true);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            // один угол — обход по прямой
+            Path p = pf.findPath(at(0), at(0), at(1), at(1));
+            assertEquals(3, p.size());
+            assertEquals(20, cost(grid, p));
+            assertEquals(0, p.getCellX(1));
+            assertEquals(1, p.getCellY(1));
+
+            // два угла — щели нет
+            grid.setBlocked(0, 1, true);
+            assertNull(pf.findPath(at(0), at(0), at(1), at(1)));
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void expensiveCellsAreAvoidedWhenCheaper() {
+        // средний ряд, клетка (2,1) — болото x3: обход сверху дешевле, чем напрямик (48 < 60)
+        NavGrid grid = new NavGrid(5, 3, CELL);
+        grid.setCost(2, 1, 3);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            Path p = pf.findPath(at(0), at(1), at(4), at(1));
+            assertEquals(10 + 14 + 14 + 10, cost(grid, p));
+
+            // обходы тоже болото x5: напрямик через x2 дешевле (50 < 104)
+            grid.setCost(2, 1, 2);
+            grid.setCost(2, 0, 5);
+            grid.setCost(2, 2, 5);
+            p = pf.findPath(at(0), at(1), at(4), at(1));
+            assertEquals(10 + 20 + 10 + 10, cost(grid, p));
+            assertEquals(1, p.getCellY(2));
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void noPath() {
+        NavGrid grid = new NavGrid(5, 5, CELL);
+        // цель (4,4) заперта со всех сторон
+        grid.setBlocked(3, 3, true);
+        grid.setBlocked(3, 4, true);
+        grid.setBlocked(4, 3, true);
+        grid.setBlocked(0, 0, true);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            assertNull(pf.findPath(at(1), at(1), at(4), at(4)));
+            assertNull(pf.findPath(at(1), at(1), at(0), at(0)));     // цель — стена
+            assertNull(pf.findPath(at(0), at(0), at(1), at(1)));     // старт — стена
+            assertNull(pf.findPath(at(1), at(1), -5, at(1)));        // за пределами сетки
+            assertNull(pf.findPath(at(1), at(1), at(1), 50));
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void cachedPathIsInvalidatedByGridChange() {
+        NavGrid grid = new NavGrid(5, 5, CELL);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            Path first = pf.findPath(at(0), at(2), at(4), at(2));
+            assertEquals(40, cost(grid, first));
+            assertSame(first, pf.findPath(at(0), at(2), at(4), at(2)), "second query comes from the cache");
+
+            // стена поперёк старого пути: (0,2)↗(1,1)→(3,1)↘(4,2), без срезания угла у (2,2)
+            grid.setBlocked(2, 2, true);
+            Path second = pf.findPath(at(0), at(2), at(4), at(2));
+            assertNotSame(first, second);
+            assertEquals(10 + 14 + 14 + 10, cost(grid, second));
+            for (int i = 0; i < second.size(); i++) {
+                assertFalse(second.getCellX(i) == 2 && second.getCellY(i) == 2, "path goes through the new wall");
+            }
+
+            // отсутствие пути тоже кэшируется — и тоже сбрасывается
+            for (int y = 0; y < 5; y++) grid.setBlocked(2, y, true);
+            assertNull(pf.findPath(at(0), at(2), at(4), at(2)));
+            grid.setBlocked(2, 4, false);
+            Path reopened = pf.findPath(at(0), at(2), at(4), at(2));
+            assertNotNull(reopened);
+            assertValidSteps(grid, reopened);
+
+            // изменение без смены значения версию не двигает
+            int v = grid.getVersion();
+            grid.setBlocked(2, 4, false);
+            assertEquals(v, grid.getVersion());
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void requestPathIsDeliveredInUpdate() throws InterruptedException {
+        NavGrid grid = new NavGrid(8, 8, CELL);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            AtomicReference<Path> result = new AtomicReference<>();
+            AtomicReference<Thread> thread = new AtomicReference<>();
+            AtomicInteger calls = new AtomicInteger();
+            pf.requestPath(at(0), at(0), at(7), at(5), p -> {
+                result.set(p);
+                thread.set(Thread.currentThread());
+                calls.incrementAndGet();
+            });
+
+            // фон посчитал, но без update() колбэк не зовётся
+            Thread.sleep(50);
+            assertEquals(0, calls.get());
+
+            waitFor(pf, () -> calls.get() > 0, "path callback");
+            assertEquals(1, calls.get());
+            assertSame(Thread.currentThread(), thread.get(), "callback runs on the update() thread");
+            assertEquals(5 * 14 + 2 * 10, cost(grid, result.get()));
+
+            // результат лёг в кэш: повторный запрос отвечает сразу, тем же объектом
+            AtomicReference<Path> again = new AtomicReference<>();
+            pf.requestPath(at(0), at(0), at(7), at(5), again::set);
+            assertSame(result.get(), again.get());
+            assertSame(result.get(), pf.findPath(at(0), at(0), at(7), at(5)));
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void staleBackgroundPathIsNotCached() throws InterruptedException {
+        NavGrid grid = new NavGrid(8, 8, CELL);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            AtomicReference<Path> stale = new AtomicReference<>();
+            pf.requestPath(at(0), at(3), at(7), at(3), stale::set);
+            // сетка меняется раньше, чем результат дошёл до игрового потока
+            for (int y = 0; y < 7; y++) grid.setBlocked(4, y, true);
+            waitFor(pf, () -> stale.get() != null, "stale path");
+
+            // колбэк получил старый путь, но в кэш он не попал
+            Path fresh = pf.findPath(at(0), at(3), at(7), at(3));
+            assertNotSame(stale.get(), fresh);
+            assertValidSteps(grid, fresh);
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void flowFieldPointsTowardsGoal() throws InterruptedException {
+        // . . . . . .
+        // . # # # # .
+        // . . . . # .      цель — (2,2), внутри «кармана»
+        // . . . . # .
+        // . . . . . .
+        NavGrid grid = new NavGrid(6, 5, CELL);
+        for (int x = 1; x <= 4; x++) grid.setBlocked(x, 1, true);
+        grid.setBlocked(4, 2, true);
+        grid.setBlocked(4, 3, true);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            FlowField f = pf.getFlowField(at(2), at(2));
+            assertFalse(f.isReady());
+            assertEquals(0.0, f.getDirX(at(0), at(0)));
+            waitFor(pf, f::isReady, "flow field");
+            assertTrue(f.isUpToDate());
+            assertSame(f, pf.getFlowField(at(2) + 3, at(2) - 3), "same goal cell, same field");
+
+            assertEquals(0, f.getDistance(at(2), at(2)));
+            assertEquals(0.0, f.getDirX(at(2), at(2)));
+            assertEquals(0.0, f.getDirY(at(2), at(2)));
+            assertFalse(f.isReachable(at(1), at(1)));
+            assertEquals(-1, f.getDistance(at(1), at(1)));
+            assertEquals(-1, f.getDistance(-1, at(1)));
+
+            // из (5,0) вдоль стены вниз, а не через неё
+            assertEquals(0.0, f.getDirX(at(5), at(0)), 1e-9);
+            assertEquals(1.0, f.getDirY(at(5), at(0)), 1e-9);
+            // из (3,2) — прямо к цели влево
+            assertEquals(-1.0, f.getDirX(at(3), at(2)), 1e-9);
+            assertEquals(0.0, f.getDirY(at(3), at(2)), 1e-9);
+
+            assertFollowsToGoal(grid, pf, f);
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    @Test
+    void flowFieldIsRecomputedAfterGridChange() throws InterruptedException {
+        NavGrid grid = new NavGrid(6, 6, CELL);
+        Pathfinder pf = new Pathfinder(grid, 1);
+        try {
+            FlowField f = pf.getFlowField(at(5), at(0));
+            waitFor(pf, f::isReady, "flow field");
+            assertEquals(5 * 10, f.getDistance(at(0), at(0)));
+
+            for (int y = 0; y < 5; y++) grid.setBlocked(2, y, true);
+            assertFalse(f.isUpToDate());
+            // до прихода нового расчёта агенты ходят по старому полю
+            assertEquals(5 * 10, f.getDistance(at(0), at(0)));
+
+            // агенты обращаются к полю каждый кадр — только такое поле и пересчитывается
+            waitFor(pf, () -> pf.getFlowField(at(5), at(0)).isUpToDate(), "recomputed flow field");
+            assertSame(f, pf.getFlowField(at(5), at(0)));
+            assertFalse(f.isReachable(at(2), at(0)));
+            // (0,0)→(1,5): 54, (1,5)→(3,5): 20 — мимо торца стены только прямо, (3,5)→(5,0): 58
+            assertEquals(54 + 20 + 58, f.getDistance(at(0), at(0)));
+            assertFollowsToGoal(grid, pf, f);
+        } finally {
+            pf.shutdown();
+        }
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    /** Мировая координата центра клетки. */
+    private static double at(int cell) {
+        return (cell + 0.5) * CELL;
+    }
+
+    /** Стоимость пути: 10/14 за шаг, умноженные на цену клетки, в которую шагнули. */
+    private static int cost(NavGrid grid, Path p) {
+        int sum = 0;
+        for (int i = 1; i < p.size(); i++) {
+            int dx = Math.abs(p.getCellX(i) - p.getCellX(i - 1));
+            int dy = Math.abs(p.getCellY(i) - p.getCellY(i - 1));
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0, "not a neighbour step at " + i);
+            sum += (dx + dy == 2 ? 14 : 10) * grid.getCost(p.getCellX(i), p.getCellY(i));
+        }
+        return sum;
+    }
+
+    private static void assertEnds(Path p, int sx, int sy, int gx, int gy) {
+        assertEquals(sx, p.getCellX(0));
+        assertEquals(sy, p.getCellY(0));
+        assertEquals(gx, p.getCellX(p.size() - 1));
+        assertEquals(gy, p.getCellY(p.size() - 1));
+        assertEquals(at(gx), p.getX(p.size() - 1));
+        assertEquals(at(gy), p.getY(p.size() - 1));
+    }
+
+    /** Каждый шаг — по проходимым клеткам, диагональ — без срезания углов. */
+    private static void assertValidSteps(NavGrid grid, Path p) {
+        for (int i = 0; i < p.size(); i++) {
+            int x = p.getCellX(i), y = p.getCellY(i);
+            assertTrue(grid.isWalkable(x, y), "wall at " + x + "," + y);
+            if (i == 0) continue;
+            int px = p.getCellX(i - 1), py = p.getCellY(i - 1);
+            if (px != x && py != y) {
+                assertTrue(grid.isWalkable(x, py) && grid.isWalkable(px, y), "corner cut at " + x + "," + y);
+            }
+        }
+    }
+
+    /** Из каждой достижимой клетки шаги по полю приводят к цели, и расстояние равно A*. */
+    private static void assertFollowsToGoal(NavGrid grid, Pathfinder pf, FlowField f) {
+        int goalX = grid.toCellX(f.getGoalX()), goalY = grid.toCellY(f.getGoalY());
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                Path astar = pf.findPath(at(x), at(y), f.getGoalX(), f.getGoalY());
+                assertEquals(astar != null, f.isReachable(at(x), at(y)), "reachability at " + x + "," + y);
+                if (astar == null) continue;
+                assertEquals(cost(grid, astar), f.getDistance(at(x), at(y)), "distance at " + x + "," + y);
+
+                int cx = x, cy = y;
+                for (int steps = 0; cx != goalX || cy != goalY; steps++) {
+                    assertTrue(steps < grid.getWidth() * grid.getHeight(), "loop from " + x + "," + y);
+                    int nx = cx + (int) Math.signum(f.getDirX(at(cx), at(cy)));
+                    int ny = cy + (int) Math.signum(f.getDirY(at(cx), at(cy)));
+                    assertTrue(f.getDistance(at(nx), at(ny)) < f.getDistance(at(cx), at(cy)),
+                            "step from " + cx + "," + cy + " does not get closer");
+                    cx = nx;
+                    cy = ny;
+                }
+            }
+        }
+    }
+
+    /** Крутить кадры, пока фон не отдаст результат. */
+    private static void waitFor(Pathfinder pf, BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            pf.update();
+            if (condition.getAsBoolean()) return;
+            if (System.nanoTime() > deadline) fail("Timed out waiting for " + what);
+            Thread.sleep(1);
+        }
+    }
+}
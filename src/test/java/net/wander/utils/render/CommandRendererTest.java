@@ -0,0 +1,218 @@
+package net.wander.utils.render;
+
+import net.wander.objects.GameObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Воспроизведение записанных команд: те же перекрытия, что при прямом render(g). */
+class CommandRendererTest {
+
+    private static final int W = 120;
+    private static final int H = 90;
+
+    /** Прямоугольник через команду. */
+    private static class RecordedRect extends GameObject {
+        final Color color;
+
+        RecordedRect(double x, double y, double w, double h, Color color) {
+            super(x, y, w, h);
+            this.color = color;
+        }
+
+        @Override
+        public void render(Graphics2D g) {
+            g.setColor(color);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+
+        @Override
+        public void record(RenderCommands out) {
+            out.fillRect(color, x, y, width, height);
+        }
+    }
+
+    /** Без record(): при воспроизведении рисуется своим render(g). */
+    private static final class PaintedRect extends GameObject {
+        final Color color;
+
+        PaintedRect(double x, double y, double w, double h, Color color) {
+            super(x, y, w, h);
+            this.color = color;
+        }
+
+        @Override
+        public void render(Graphics2D g) {
+            g.setColor(color);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+    }
+
+    @Test
+    void submissionOrderWinsInsideLayer() {
+        List<GameObject> objects = new ArrayList<>();
+        objects.add(new RecordedRect(0, 0, 80, 60, Color.RED));
+        objects.add(new PaintedRect(20, 10, 60, 60, Color.GREEN));   // custom посередине, а не в конце
+        objects.add(new RecordedRect(40, 20, 60, 60, Color.BLUE));
+        objects.add(new RecordedRect(10, 40, 30, 30, Color.RED));    // тот же цвет, что у первого
+
+        int[] expected = direct(objects);
+        assertArrayEquals(expected, commands(objects, 1));
+        assertEquals(Color.BLUE.getRGB(), expected[30 * W + 60]);
+        assertEquals(Color.RED.getRGB(), expected[50 * W + 20]);
+    }
+
+    @Test
+    void layersStillOrderAcrossSubmission() {
+        RecordedRect top = new RecordedRect(0, 0, 50, 50, Color.YELLOW);
+        top.setLayer(5);
+        List<GameObject> objects = new ArrayList<>();
+        objects.add(top);
+        objects.add(new RecordedRect(25, 25, 50, 50, Color.CYAN));
+
+        int[] px = commands(objects, 1);
+        assertEquals(Color.YELLOW.getRGB(), px[30 * W + 30]);
+        assertEquals(Color.CYAN.getRGB(), px[60 * W + 60]);
+    }
+
+    @Test
+    void layerSetInsideRecordIsHonored() {
+        GameObject multi = new GameObject(0, 0, 0, 0) {
+            @Override
+            public void record(RenderCommands out) {
+                out.fillRect(Color.WHITE, 0, 0, 40, 40);   // слой объекта — 0
+                out.setLayer(-1);
+                out.fillRect(Color.MAGENTA, 20, 20, 40, 40);
+            }
+        };
+        List<GameObject> objects = new ArrayList<>();
+        objects.add(multi);
+
+        int[] px = commands(objects, 1);
+        assertEquals(Color.WHITE.getRGB(), px[30 * W + 30]);     // -1 ниже 0, хоть и записан позже
+        assertEquals(Color.MAGENTA.getRGB(), px[50 * W + 50]);
+    }
+
+    @Test
+    void parallelRecordingKeepsOrder() {
+        // больше порога параллельной записи: куски пишутся разными потоками
+        Random rnd = new Random(7);
+        Color[] palette = {Color.RED, Color.GREEN, Color.BLUE, Color.ORANGE, Color.PINK};
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int x = rnd.nextInt(W), y = rnd.nextInt(H);
+            Color c = palette[rnd.nextInt(palette.length)];
+            GameObject o = i % 7 == 0
+                    ? new PaintedRect(x - 10, y - 10, 20, 20, c)
+                    : new RecordedRect(x - 10, y - 10, 20, 20, c);
+            o.setLayer(i % 100 == 0 ? 1 : 0);
+            objects.add(o);
+        }
+        // как сцена: по слоям, внутри слоя — по порядку добавления
+        List<GameObject> ordered = new ArrayList<>(objects);
+        ordered.sort((a, b) -> Integer.compare(a.getLayer(), b.getLayer()));
+
+        int[] expected = direct(ordered);
+        assertArrayEquals(expected, commands(ordered, 1));
+        assertArrayEquals(expected, commands(ordered, 4));
+    }
+
+    @Test
+    void interruptedRecordWaitsForWorkers() {
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            objects.add(new RecordedRect(i % W, i % H, 10, 10, i % 2 == 0 ? Color.RED : Color.BLUE) {
+                @Override
+                public void record(RenderCommands out) {
+                    // медленная запись: потоки заведомо не успеют к моменту ожидания
+                    long until = System.nanoTime() + 2_000;
+                    while (System.nanoTime() < until) Thread.onSpinWait();
+                    super.record(out);
+                }
+            });
+        }
+        int[] expected = direct(objects);
+
+        CommandRenderer renderer = new CommandRenderer(4);
+        try {
+            BufferedImage img = image();
+            Graphics2D g = img.createGraphics();
+            Thread.currentThread().interrupt();
+            RenderList list = renderer.record(objects);
+            assertTrue(Thread.interrupted(), "interrupt flag must be restored");
+            assertEquals(3000, list.size());
+            list.replay(g);
+            g.dispose();
+            assertArrayEquals(expected, pixels(img));
+        } finally {
+            Thread.interrupted();
+            renderer.shutdown();
+        }
+    }
+
+    @Test
+    void replayIsRepeatable() {
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            objects.add(new RecordedRect(i * 2, i, 30, 30, i % 2 == 0 ? Color.RED : Color.BLUE));
+        }
+        CommandRenderer renderer = new CommandRenderer(1);
+        RenderList list = renderer.record(objects);
+        assertEquals(50, list.size());
+        assertArrayEquals(replay(list), replay(list));
+        assertArrayEquals(direct(objects), replay(list));
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    private static int[] direct(List<GameObject> objects) {
+        BufferedImage img = image();
+        Graphics2D g = img.createGraphics();
+        for (GameObject o : objects) o.renderTree(g);
+        g.dispose();
+        return pixels(img);
+    }
+
+    private static int[] commands(List<GameObject> objects, int threads) {
+        CommandRenderer renderer = new CommandRenderer(threads);
+        try {
+            BufferedImage img = image();
+            Graphics2D g = img.createGraphics();
+            renderer.render(g, objects);
+            g.dispose();
+            return pixels(img);
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    private static int[] replay(RenderList list) {
+        BufferedImage img = image();
+        Graphics2D g = img.createGraphics();
+        list.replay(g);
+        g.dispose();
+        return pixels(img);
+    }
+
+    private static BufferedImage image() {
+        BufferedImage img = new BufferedImage(W, H, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, W, H);
+        g.dispose();
+        return img;
+    }
+
+    private static int[] pixels(BufferedImage img) {
+        return img.getRGB(0, 0, W, H, null, 0, W);
+    }
+}
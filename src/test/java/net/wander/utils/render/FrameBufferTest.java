@@ -0,0 +1,306 @@
+package net.wander.utils.render;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Растеризация FrameBuffer: попиксельно как эталонные картинки и одинаково при любом числе потоков.
+ *
+ * Эталоны лежат в src/test/resources/net/wander/utils/render/. Если растеризация поменялась
+ * намеренно — пересоздать их и проверить глазами:
+ *
+ *   mvn test -Dtest=FrameBufferTest -Dframebuffer.updateReferences=true
+ */
+class FrameBufferTest {
+
+    // не кратно тайлу (64): последние тайлы по обеим осям неполные
+    private static final int W = 200;
+    private static final int H = 150;
+    private static final int[] THREADS = {2, 3, 4, 8};
+
+    private static final String UPDATE_PROPERTY = "framebuffer.updateReferences";
+    private static final File REFERENCE_DIR = new File("src/test/resources/net/wander/utils/render");
+
+    // ================== СЦЕНЫ ==================
+
+    private static void rects(FrameBuffer fb) {
+        fb.clear(0x102030);
+        fb.fillRect(10, 10, 100, 60, 0xFFCC3333);       // через границу тайлов по x
+        fb.fillRect(-20, -10, 50, 40, 0xFF33CC33);      // обрезка слева и сверху
+        fb.fillRect(170, 120, 80, 80, 0xFF3333CC);      // обрезка справа и снизу
+        fb.fillRect(60, 40, 30, 50, 0x80FFFFFF);        // полупрозрачный через угол тайлов
+        fb.fillRect(50, 50, 100, 20, 0x40FF8800);       // смешивание поверх смешивания
+        fb.fillRect(120, 5, 70, 130, 0xC0000000);
+        fb.fillRect(0, 140, 200, 1, 0xFFFFFF00);        // строка через все тайлы
+        fb.fillRect(63, 0, 2, 150, 0x7F00FFFF);         // столбец ровно на стыке тайлов
+        fb.fillRect(300, 10, 10, 10, 0xFFFFFFFF);       // целиком за кадром
+        fb.fillRect(20, 20, 0, 10, 0xFFFFFFFF);         // пустой
+        fb.fillRect(20, 20, 10, 10, 0x00FFFFFF);        // прозрачный
+    }
+
+    private static void circles(FrameBuffer fb) {
+        fb.clear(0x000000);
+        fb.fillCircle(64, 64, 40, 0xFFE0E0E0);          // центр на углу четырёх тайлов
+        fb.fillCircle(64, 64, 20, 0x80FF0000);
+        fb.fillCircle(80, 70, 25, 0x8000FF00);
+        fb.fillCircle(0, 0, 30, 0xFF2040FF);            // обрезка по углу кадра
+        fb.fillCircle(199, 149, 45, 0xB0FFFF00);
+        fb.fillCircle(150, 30, 0, 0xFFFFFFFF);          // r = 0 — один пиксель
+        fb.fillCircle(170, 30, 1, 0xFFFFFFFF);
+        fb.fillCircle(185, 30, 2, 0xFFFFFFFF);
+        fb.fillCircle(-50, 75, 60, 0x60FF00FF);         // центр за кадром
+        fb.fillCircle(128, 128, 100, 0x20FFFFFF);       // больше нескольких тайлов
+    }
+
+    private static void lines(FrameBuffer fb) {
+        fb.clear(0x202020);
+        // звезда из центра: все восемь октантов, концы в других тайлах
+        int cx = 100, cy = 75;
+        int[][] ends = {
+                {199, 75}, {199, 110}, {190, 149}, {130, 149}, {100, 149}, {70, 149}, {5, 149}, {0, 110},
+                {0, 75}, {0, 40}, {10, 0}, {70, 0}, {100, 0}, {130, 0}, {195, 0}, {199, 40},
+        };
+        for (int i = 0; i < ends.length; i++) {
+            int c = 0xFF000000 | ((i * 16) << 16) | ((255 - i * 16) << 8) | 0x80;
+            fb.drawLine(cx, cy, ends[i][0], ends[i][1], c);
+        }
+        fb.drawLine(-40, -30, 260, 190, 0xFFFF0000);     // оба конца за кадром
+        fb.drawLine(250, 10, -60, 140, 0x80FFFFFF);      // справа налево, полупрозрачная
+        fb.drawLine(3, 147, 196, 2, 0x80FFFF00);         // пересекает предыдущую: смешивание дважды
+        fb.drawLine(63, 5, 63, 145, 0xFF00FFFF);         // вертикаль вдоль стыка тайлов
+        fb.drawLine(5, 64, 195, 64, 0xFF00FFFF);         // горизонталь по первой строке второго ряда тайлов
+        fb.drawLine(64, 63, 65, 64, 0xFFFFFFFF);         // короткая диагональ через угол тайлов
+        fb.drawLine(150, 120, 150, 120, 0xFFFF00FF);     // точка
+        fb.drawLine(20, 20, 21, 60, 0xFFFFFFFF);         // крутая, почти вертикальная
+        fb.drawLine(20, 100, 180, 101, 0xFFFFFFFF);      // пологая, почти горизонтальная
+    }
+
+    private static void sprites(FrameBuffer fb) {
+        Sprite translucent = gradientSprite(40, 30);
+        Sprite opaque = checkerSprite(50, 20);
+
+        fb.clear(0x336699);
+        fb.blit(opaque, 40, 50);                          // непрозрачный через стык тайлов
+        fb.blit(opaque, -25, -8);                         // обрезка слева и сверху
+        fb.blit(opaque, 170, 140);                        // обрезка справа и снизу
+        fb.blit(opaque, 100, 10, 128);                    // непрозрачный с общей альфой
+        fb.blit(translucent, 50, 45);                     // попиксельная альфа поверх спрайта
+        fb.blit(translucent, -15, 120);
+        fb.blit(translucent, 180, -10);
+        fb.blit(translucent, 110, 80, 100);               // попиксельная альфа и общая
+        fb.blit(translucent, 10, 10, 0);                  // невидимый
+        fb.blit(translucent, 400, 400);                   // за кадром
+    }
+
+    /** Много мелких команд: растущие массивы команд и много команд на тайл. */
+    private static void particles(FrameBuffer fb) {
+        fb.clear(0x000010);
+        long seed = 42;
+        for (int i = 0; i < 700; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int x = (int) ((seed >>> 33) % (W + 20)) - 10;
+            int y = (int) ((seed >>> 13) % (H + 20)) - 10;
+            int r = (int) ((seed >>> 53) & 7);
+            int c = (int) (seed >>> 16) | 0x40000000;
+            if ((i & 3) == 0) {
+                fb.drawLine(x, y, x + r * 5 - 17, y - r * 3 + 9, c);
+            } else {
+                fb.fillCircle(x, y, r, c);
+            }
+        }
+    }
+
+    // ================== ТЕСТЫ ==================
+
+    @Test
+    void rectsMatchReference() throws IOException {
+        checkScene("rects", FrameBufferTest::rects);
+    }
+
+    @Test
+    void circlesMatchReference() throws IOException {
+        checkScene("circles", FrameBufferTest::circles);
+    }
+
+    @Test
+    void linesMatchReference() throws IOException {
+        checkScene("lines", FrameBufferTest::lines);
+    }
+
+    @Test
+    void spritesMatchReference() throws IOException {
+        checkScene("sprites", FrameBufferTest::sprites);
+    }
+
+    @Test
+    void particlesMatchReference() throws IOException {
+        checkScene("particles", FrameBufferTest::particles);
+    }
+
+    @Test
+    void opaqueRectsMatchJava2D() {
+        int[] ours = render(1, fb -> {
+            fb.clear(0x000000);
+            fb.fillRect(10, 10, 100, 60, 0xFFCC3333);
+            fb.fillRect(-20, -10, 50, 40, 0xFF33CC33);
+            fb.fillRect(170, 120, 80, 80, 0xFF3333CC);
+        });
+
+        BufferedImage image = new BufferedImage(W, H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, W, H);
+        g.setColor(new Color(0xCC3333));
+        g.fillRect(10, 10, 100, 60);
+        g.setColor(new Color(0x33CC33));
+        g.fillRect(-20, -10, 50, 40);
+        g.setColor(new Color(0x3333CC));
+        g.fillRect(170, 120, 80, 80);
+        g.dispose();
+
+        assertArrayEquals(rgb(image), ours);
+    }
+
+    @Test
+    void blendRoundsToNearest() {
+        // (src·a + dst·(255 - a) + 127) / 255
+        int[] px = render(1, fb -> {
+            fb.clear(0x000000);
+            fb.fillRect(0, 0, 1, 1, 0x80FFFFFF);          // 255·128 / 255 = 128
+            fb.fillRect(1, 0, 1, 1, 0x01FFFFFF);          // 1
+            fb.fillRect(2, 0, 1, 1, 0xFEFFFFFF);          // 254
+            fb.fillRect(3, 0, 1, 1, 0x80FF8000);
+            fb.fillRect(3, 0, 1, 1, 0x80FF8000);          // дважды: 128 → (255·128 + 128·127 + 127) / 255 = 192
+        });
+        assertEquals(0x808080, px[0]);
+        assertEquals(0x010101, px[1]);
+        assertEquals(0xFEFEFE, px[2]);
+        assertEquals(0xC06000, px[3]);
+    }
+
+    @Test
+    void flushWaitsForWorkersWhenInterrupted() {
+        int[] expected = render(1, FrameBufferTest::particles);
+        FrameBuffer fb = new FrameBuffer(W, H, 4);
+        try {
+            particles(fb);
+            Thread.currentThread().interrupt();
+            fb.flush();
+            assertTrue(Thread.interrupted(), "interrupt flag must be restored");
+            assertEquals(0, fb.size());
+            assertArrayEquals(expected, rgb(fb.getPixels()));
+        } finally {
+            Thread.interrupted();
+            fb.shutdown();
+        }
+    }
+
+    @Test
+    void flushWithoutCommandsKeepsPixels() {
+        FrameBuffer fb = new FrameBuffer(W, H, 1);
+        fb.clear(0x123456);
+        fb.flush();
+        fb.flush();
+        assertEquals(0x123456, fb.getPixels()[W * H - 1] & 0xFFFFFF);
+        assertFalse(fb.size() > 0);
+    }
+
+    // ================== ВНУТРЕННОСТИ ==================
+
+    /** Сцена одинакова при 1 и N потоках и совпадает с эталоном. */
+    private static void checkScene(String name, Consumer<FrameBuffer> scene) throws IOException {
+        int[] single = render(1, scene);
+        for (int threads : THREADS) {
+            assertArrayEquals(single, render(threads, scene), name + ": " + threads + " threads differ from 1 thread");
+        }
+
+        String file = name + ".png";
+        if (Boolean.getBoolean(UPDATE_PROPERTY)) {
+            File out = new File(REFERENCE_DIR, file);
+            assertTrue(REFERENCE_DIR.isDirectory() || REFERENCE_DIR.mkdirs(), "Cannot create " + REFERENCE_DIR);
+            ImageIO.write(toImage(single), "png", out);
+            return;
+        }
+
+        BufferedImage reference;
+        try (InputStream in = FrameBufferTest.class.getResourceAsStream(file)) {
+            if (in == null) fail("Reference image " + file + " is missing, run with -D" + UPDATE_PROPERTY + "=true");
+            reference = ImageIO.read(in);
+        }
+        assertNotNull(reference, file);
+        assertEquals(W, reference.getWidth(), file);
+        assertEquals(H, reference.getHeight(), file);
+
+        int[] expected = rgb(reference);
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != single[i]) {
+                fail(String.format("%s: pixel (%d, %d) is %06X, reference %06X",
+                        name, i % W, i / W, single[i], expected[i]));
+            }
+        }
+    }
+
+    private static int[] render(int threads, Consumer<FrameBuffer> scene) {
+        FrameBuffer fb = new FrameBuffer(W, H, threads);
+        try {
+            scene.accept(fb);
+            fb.flush();
+            return rgb(fb.getPixels());
+        } finally {
+            fb.shutdown();
+        }
+    }
+
+    private static int[] rgb(int[] pixels) {
+        int[] out = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) out[i] = pixels[i] & 0xFFFFFF;
+        return out;
+    }
+
+    private static int[] rgb(BufferedImage image) {
+        return rgb(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+    }
+
+    private static BufferedImage toImage(int[] rgb) {
+        BufferedImage image = new BufferedImage(W, H, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, W, H, rgb, 0, W);
+        return image;
+    }
+
+    /** Альфа растёт слева направо, цвет — сверху вниз; есть и полностью прозрачные пиксели. */
+    private static Sprite gradientSprite(int w, int h) {
+        int[] px = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int a = x * 255 / (w - 1);
+                px[y * w + x] = (a << 24) | ((y * 255 / (h - 1)) << 16) | (0x40 << 8) | (255 - a);
+            }
+        }
+        return new Sprite(w, h, px);
+    }
+
+    private static Sprite checkerSprite(int w, int h) {
+        int[] px = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                px[y * w + x] = ((x / 5 + y / 5) & 1) == 0 ? 0xFFF0F0F0 : 0xFF804020;
+            }
+        }
+        return new Sprite(w, h, px);
+    }
+}